@@ -0,0 +1,72 @@
+package typer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Making a 1000 word drill, and adding a game, with a few thousand games of history. Both should take about the
+ * same time for every size of wordlist.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class AdaptiveSamplerBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    private AdaptiveSampler sampler;
+    private SessionResult[] games;
+    private int next = 0;
+
+    @Setup
+    public void setup() {
+        ArrayList<String> words = Utils.getWordlist("1000en.txt");
+        ArrayList<String> wordlist = new ArrayList<String>(size);
+        for (int i = 0; i < size; i++) {
+            wordlist.add(words.get(i % words.size()));
+        }
+        sampler = new AdaptiveSampler(wordlist, 42);
+
+        // games with a few missed words each, spread over the whole list
+        SplittableRandom random = new SplittableRandom(42);
+        games = new SessionResult[1024];
+        for (int i = 0; i < games.length; i++) {
+            List<String> wrong = List.of(wordlist.get(random.nextInt(size)), wordlist.get(random.nextInt(size)),
+                                         wordlist.get(random.nextInt(size)));
+            games[i] = new SessionResult("", 0, 30_000_000_000L, 50, 250, 3, 60, 98, wrong, List.of("th", "e_"));
+        }
+        for (int i = 0; i < 5000; i++) {
+            sampler.add(games[i % games.length]);
+        }
+    }
+
+    @Benchmark
+    public ArrayList<String> drill() {
+        return sampler.drill(1000);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void add() {
+        sampler.add(games[next++ & (games.length - 1)]);
+    }
+
+}
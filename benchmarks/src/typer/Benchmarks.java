@@ -0,0 +1,29 @@
+package typer;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the JMH benchmarks with the GC profiler always on, so every result comes with how much it allocated
+ * (gc.alloc.rate.norm is bytes per operation). Any normal JMH options can be passed, like a regex to pick which
+ * benchmarks to run, or -rf json -rff results.json to save the numbers for comparing later.
+ *
+ * Run it from the top folder (the wordlist benchmarks read words/): java -jar benchmarks/target/benchmarks.jar
+ */
+public class Benchmarks {
+
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        CommandLineOptions cmd = new CommandLineOptions(args);
+        Options options = new OptionsBuilder()
+                .parent(cmd)
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+
+}
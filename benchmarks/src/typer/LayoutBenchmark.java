@@ -0,0 +1,67 @@
+package typer;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Laying out words into lines, next to the old string based wrapWords for the same words
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LayoutBenchmark {
+
+    @Param({"50", "10000"})
+    private int words;
+
+    private ArrayList<String> used;
+    private int[] lengths;
+    private LineLayout layout;
+    private boolean narrow = false;
+
+    @Setup
+    public void setup() {
+        used = new WordSampler(42).sample(Utils.getWordlist("1000en.txt"), words);
+        lengths = new int[words];
+        for (int i = 0; i < words; i++) {
+            lengths[i] = used.get(i).length();
+        }
+        layout = new LineLayout(lengths, words, 64);
+    }
+
+    @Benchmark
+    public LineLayout layout() {
+        return new LineLayout(lengths, words, 64);
+    }
+
+    /**
+     * What a resize does, switching between two widths so the layout changes every time
+     */
+    @Benchmark
+    public int relayout() {
+        narrow = !narrow;
+        layout.setWidth(narrow ? 40 : 64);
+        return layout.lineCount();
+    }
+
+    @Benchmark
+    public ArrayList<String> wrapWords() {
+        return Utils.wrapWords(used, 64);
+    }
+
+}
@@ -0,0 +1,103 @@
+package typer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jline.terminal.Size;
+import org.jline.terminal.Terminal;
+import org.jline.terminal.TerminalBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A whole game through Typer.start(), the same way Headless plays one: JLine reading from a stream, the decoder,
+ * the game state and the renderer, into an output that's thrown away. Every word gets typed correctly, then enter
+ * gets past the end screen. The time is per game, so divide by the keys (about 6 per word) for the time per key.
+ *
+ * game() makes the game with the constructor and no scorers, and builtGame() makes the same game with
+ * Typer.builder(), so its words come from a GameMode and all three scorers run at the end. The difference between
+ * them (time and gc.alloc.rate.norm) is everything the plugin layer costs.
+ *
+ * The times are the same within the noise. builtGame() allocates about 10KB more per game (out of about 1.9MB, most
+ * of it JLine's), the same at 50 and 1000 words, so none of it is per key: it's the scores' map and their lines on
+ * the end screen. It used to be about 16KB, when the builder made a new WordSampler for every unseeded game (and its
+ * two int[]s the size of the wordlist) and the score lines went through String.format.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TyperBenchmark {
+
+    @Param({"50", "1000"})
+    private int words;
+
+    private List<String> wordlist;
+    private Theme theme;
+    private GameOptions options;
+
+    @Setup
+    public void setup() {
+        wordlist = Utils.getWordlist("1000en.txt");
+        theme = new Theme("#FFFFFF", "#888888", "#FF0000", "#000000");
+        options = GameOptions.builder().wordlist("1000en.txt").words(words).theme(theme).build();
+    }
+
+    @Benchmark
+    public int game() throws Exception {
+        Headless.KeyStream in = new Headless.KeyStream(0);
+        Headless.CountingOutput out = new Headless.CountingOutput();
+        Terminal term = TerminalBuilder.builder().system(false).streams(in, new FrameOutput(out))
+                .size(new Size(100, 30)).type("xterm-256color").build();
+        try {
+            Typer typer = new Typer(wordlist, words, theme, term);
+            typer.setScorers(Collections.emptyList());
+            return play(typer, in);
+        } finally {
+            term.close();
+        }
+    }
+
+    @Benchmark
+    public int builtGame() throws Exception {
+        Headless.KeyStream in = new Headless.KeyStream(0);
+        Headless.CountingOutput out = new Headless.CountingOutput();
+        Terminal term = TerminalBuilder.builder().system(false).streams(in, new FrameOutput(out))
+                .size(new Size(100, 30)).type("xterm-256color").build();
+        try {
+            Typer typer = Typer.builder().options(options).terminal(term).build();
+            return play(typer, in);
+        } finally {
+            term.close();
+        }
+    }
+
+    /**
+     * Types every word of the game, then enter
+     */
+    private static int play(Typer typer, Headless.KeyStream in) throws Exception {
+        StringBuilder keys = new StringBuilder();
+        for (String word: typer.getWords()) {
+            keys.append(word).append(' ');
+        }
+        keys.append('\r');
+        in.setKeys(keys.toString().getBytes(StandardCharsets.UTF_8));
+
+        typer.play();
+        return typer.getState().getCorrect();
+    }
+
+}
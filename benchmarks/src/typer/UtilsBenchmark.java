@@ -0,0 +1,65 @@
+package typer;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The helpers in Utils, with the same sizes the game uses them at (the 1000 word list, 50 words, 64 character lines)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UtilsBenchmark {
+
+    private ArrayList<String> wordlist;
+    private ArrayList<String> words;
+    private String text;
+
+    @Setup
+    public void setup() {
+        wordlist = Utils.getWordlist("1000en.txt");
+        words = Utils.getRandom(wordlist, 50);
+        text = "WPM: 87\nAccuracy: 96%\nTime: 34.2s\n\nPress Enter to continue";
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public ArrayList<String> getWordlist() {
+        return Utils.getWordlist("1000en.txt");
+    }
+
+    @Benchmark
+    public ArrayList<String> getRandom() {
+        return Utils.getRandom(wordlist, 50);
+    }
+
+    @Benchmark
+    public ArrayList<String> wrapWords() {
+        return Utils.wrapWords(words, 64);
+    }
+
+    @Benchmark
+    public String hexToAnsi() {
+        return Utils.hexToAnsi("#7FFFD4");
+    }
+
+    @Benchmark
+    public String centerText() {
+        return Utils.centerText(text, 100, 30);
+    }
+
+}
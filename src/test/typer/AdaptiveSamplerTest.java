@@ -0,0 +1,154 @@
+package typer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AdaptiveSamplerTest {
+
+    private static final List<String> WORDS = Utils.getWordlist("1000en.txt");
+
+    private static SessionResult missed(String user, String... words) {
+        return new SessionResult(user, 0, 1_000_000_000L, 10, 50, words.length, 60, 90, List.of(words), List.of());
+    }
+
+    private static Map<String, Integer> counts(List<String> picked) {
+        HashMap<String, Integer> counts = new HashMap<String, Integer>();
+        for (String word: picked) counts.merge(word, 1, Integer::sum);
+        return counts;
+    }
+
+    /**
+     * How often a word should come up when there are no slow bigrams: the missed words part picks it by its share,
+     * and everything else picks any word. That's leaving out the rule against repeats, which only matters much for a
+     * word with a big share.
+     */
+    private static double expected(double share, int picks) {
+        return (AdaptiveSampler.ERRORS * share + (1 - AdaptiveSampler.ERRORS) / WORDS.size()) * picks;
+    }
+
+    @Test
+    void moreMistakesComeUpMore() {
+        AdaptiveSampler sampler = new AdaptiveSampler(WORDS, 1);
+        sampler.add(missed("amy", "people", "about"));
+        sampler.add(missed("amy", "people"));
+        sampler.add(missed("amy", "people", "not-a-listed-word"));
+        int people = WORDS.indexOf("people");
+        int about = WORDS.indexOf("about");
+        assertEquals(3, sampler.getGames());
+        // newer games count for more, so it's not just 3 to 1
+        assertEquals((1 + 1.05 + 1.1025) / (1 + 1.05 + 1.1025 + 1), sampler.errorShare(people), 1e-12);
+        assertEquals(1 / (1 + 1.05 + 1.1025 + 1), sampler.errorShare(about), 1e-12);
+        assertEquals(0, sampler.errorShare(WORDS.indexOf("the")));
+
+        int picks = 200_000;
+        Map<String, Integer> counts = counts(sampler.drill(picks));
+        int peopleCount = counts.get("people");
+        int aboutCount = counts.get("about");
+        assertTrue(peopleCount > 2 * aboutCount, peopleCount + " vs " + aboutCount);
+        // a word that was never missed only comes up from the picks of any word
+        assertTrue(aboutCount > 20 * expected(0, picks), aboutCount + " vs " + expected(0, picks));
+        assertTrue(counts.getOrDefault("the", 0) < 0.01 * picks);
+    }
+
+    @Test
+    void slowBigramsPickWordsWithThemIn() {
+        AdaptiveSampler sampler = new AdaptiveSampler(WORDS, 2);
+        sampler.add(new SessionResult("amy", 0, 1_000_000_000L, 10, 50, 0, 60, 100, List.of(), List.of("qu")));
+        long withQu = sampler.drill(10_000).stream().filter(word -> word.contains("qu")).count();
+        // with no missed words yet, their share of the picks goes to the bigrams too, so that's 70%
+        assertTrue(withQu > 6500 && withQu < 7500, withQu + " words with qu");
+    }
+
+    @Test
+    void sameSeedPicksTheSameDrill() {
+        AdaptiveSampler a = new AdaptiveSampler(WORDS, 3);
+        AdaptiveSampler b = new AdaptiveSampler(WORDS, 3);
+        a.add(missed("amy", "people"));
+        b.add(missed("amy", "people"));
+        assertEquals(a.drill(100), b.drill(100));
+        assertNotEquals(a.drill(100), new AdaptiveSampler(WORDS, 4).drill(100));
+    }
+
+    @Test
+    void neverTheSameWordTwiceInARow() {
+        AdaptiveSampler sampler = new AdaptiveSampler(WORDS, 5);
+        // so nearly every missed words pick is the same word
+        sampler.add(missed("amy", "people"));
+        List<String> picked = sampler.drill(10_000);
+        for (int i = 1; i < picked.size(); i++) {
+            assertNotEquals(picked.get(i - 1), picked.get(i), "at " + i);
+        }
+        assertEquals(List.of("only", "only"), new AdaptiveSampler(List.of("only"), 6).drill(2));
+        assertTrue(new AdaptiveSampler(List.of(), 7).drill(5).isEmpty());
+    }
+
+    @Test
+    void weightsSurviveARescale() {
+        // the amount added per game passes RESCALE (1.05^n > 1e200) after game 9439, and everything gets scaled
+        // down. It stops a few games after that, since any later ones would swamp the weights from before it. That's
+        // checked against the same decay done the slow way: every weight shrinks by GROWTH before each game. The
+        // mistakes are spread over 21 words so none of them comes up often enough for the no-repeats rule to matter
+        AdaptiveSampler sampler = new AdaptiveSampler(WORDS, 8);
+        int games = 9445;
+        double[] weights = new double[21];
+        for (int i = 0; i < games; i++) {
+            for (int w = 0; w < weights.length; w++) weights[w] /= 1.05;
+            List<String> wrong = new ArrayList<String>(List.of(WORDS.get(i % 20)));
+            weights[i % 20]++;
+            if (i % 40 == 0) {
+                wrong.add(WORDS.get(20));
+                weights[20]++;
+            }
+            sampler.add(missed("amy", wrong.toArray(new String[0])));
+        }
+        assertEquals(games, sampler.getGames());
+        double total = 0;
+        for (double weight: weights) total += weight;
+        for (int w = 0; w < weights.length; w++) {
+            assertEquals(weights[w] / total, sampler.errorShare(w), 1e-9, WORDS.get(w));
+        }
+
+        // and the tree that picks them was rebuilt to match
+        int picks = 400_000;
+        Map<String, Integer> counts = counts(sampler.drill(picks));
+        for (int w = 0; w < weights.length; w++) {
+            int count = counts.get(WORDS.get(w));
+            assertEquals(expected(weights[w] / total, picks), count, 0.06 * count, WORDS.get(w));
+        }
+    }
+
+    @Test
+    void followOnlyCountsOneUsersGames(@TempDir Path folder) throws IOException {
+        try (ResultsLog log = ResultsLog.open(folder, 0)) {
+            assertTrue(log.submit(missed("amy", "people")));
+            assertTrue(log.submit(missed("bob", "about", "people")));
+        }
+        try (ResultsLog log = ResultsLog.open(folder, 0)) {
+            AdaptiveSampler sampler = AdaptiveSampler.follow(log, "amy", WORDS);
+            assertEquals(1, sampler.getGames());
+            assertEquals(1, sampler.errorShare(WORDS.indexOf("people")));
+            assertEquals(0, sampler.errorShare(WORDS.indexOf("about")));
+
+            // and the games after that, as they're saved
+            assertTrue(log.submit(missed("bob", "about")));
+            assertTrue(log.submit(missed("amy", "about")));
+            assertTrue(log.submit(missed("bob", "about")));
+            long deadline = System.nanoTime() + 5_000_000_000L;
+            while (sampler.getGames() < 2 && System.nanoTime() < deadline) Thread.onSpinWait();
+            assertEquals(2, sampler.getGames());
+            assertEquals(1 / 2.05, sampler.errorShare(WORDS.indexOf("people")), 1e-12);
+        }
+    }
+
+}
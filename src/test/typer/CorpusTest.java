@@ -0,0 +1,176 @@
+package typer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class CorpusTest {
+
+    // lists written to the words folder for a test, and whether the folder had to be made for them
+    private final List<Path> written = new ArrayList<Path>();
+    private boolean madeFolder = false;
+
+    /**
+     * Writes a list to the words folder (which is relative to where the tests run), for Corpus to load like any other
+     */
+    private String writeList(String name, String... words) throws IOException {
+        Path folder = Paths.get("words");
+        if (!Files.isDirectory(folder)) {
+            Files.createDirectories(folder);
+            madeFolder = true;
+        }
+        Path path = folder.resolve("corpus-test-" + name + ".txt");
+        written.add(path);
+        Files.writeString(path, String.join("\n", words) + "\n");
+        return path.getFileName().toString();
+    }
+
+    @AfterEach
+    void deleteLists() throws IOException {
+        for (Path path: written) Files.deleteIfExists(path);
+        if (madeFolder) Files.delete(Paths.get("words"));
+    }
+
+    @Test
+    void listsAreLoadedOnce() {
+        Corpus corpus = new Corpus(Long.MAX_VALUE);
+        List<String> words = corpus.get(Utils.DEFAULT_WORDLIST);
+        assertFalse(words.isEmpty());
+        assertSame(words, corpus.get(Utils.DEFAULT_WORDLIST));
+        assertEquals(1, corpus.getLoads());
+    }
+
+    @Test
+    void missingListIsAnErrorAndIsntKept() {
+        Corpus corpus = new Corpus(Long.MAX_VALUE);
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> corpus.get("missing.txt"));
+        assertTrue(e.getCause().getCause() instanceof FileNotFoundException, e.getCause().toString());
+        assertTrue(corpus.getLoaded().isEmpty());
+        assertEquals(0, corpus.getLoads());
+        // and it's tried again, instead of handing out what failed the first time
+        assertThrows(IllegalStateException.class, () -> corpus.get("missing.txt"));
+    }
+
+    @Test
+    void emptyListIsAnErrorAndIsntKept() throws IOException {
+        // the words folder is relative to where the tests run, it's only made here if there isn't one
+        Path folder = Paths.get("words");
+        boolean made = !Files.isDirectory(folder);
+        Path empty = Files.createDirectories(folder).resolve("corpus-test-empty.txt");
+        try {
+            Files.createFile(empty);
+            Corpus corpus = new Corpus(Long.MAX_VALUE);
+            assertThrows(IllegalStateException.class, () -> corpus.get(empty.getFileName().toString()));
+            assertTrue(corpus.getLoaded().isEmpty());
+
+            Files.writeString(empty, "some\nwords\n");
+            assertEquals(List.of("some", "words"), corpus.get(empty.getFileName().toString()));
+        } finally {
+            Files.deleteIfExists(empty);
+            if (made) Files.delete(folder);
+        }
+    }
+
+    @Test
+    void concurrentGetsLoadOnce() throws Exception {
+        Corpus corpus = new Corpus(Long.MAX_VALUE);
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch ready = new CountDownLatch(threads);
+            CountDownLatch go = new CountDownLatch(1);
+            List<Future<List<String>>> gets = new ArrayList<Future<List<String>>>();
+            for (int i = 0; i < threads; i++) {
+                gets.add(pool.submit(() -> {
+                    ready.countDown();
+                    go.await();
+                    return corpus.get(Utils.DEFAULT_WORDLIST);
+                }));
+            }
+            assertTrue(ready.await(5, TimeUnit.SECONDS));
+            go.countDown();
+            List<String> first = gets.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<List<String>> get: gets) assertSame(first, get.get(5, TimeUnit.SECONDS));
+            assertEquals(1, corpus.getLoads());
+            assertEquals(List.of(Utils.DEFAULT_WORDLIST), corpus.getLoaded());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void wordsInTwoListsArePooled() throws IOException {
+        String a = writeList("a", "apple", "shared", "one");
+        String b = writeList("b", "shared", "two");
+        Corpus corpus = new Corpus(Long.MAX_VALUE);
+        List<String> first = corpus.get(a);
+        List<String> second = corpus.get(b);
+        assertEquals("shared", first.get(1));
+        assertSame(first.get(1), second.get(0));
+        assertEquals(4, corpus.getPoolSize());
+    }
+
+    @Test
+    void leastRecentlyUsedListIsDropped() throws IOException {
+        String a = writeList("a", "apple", "shared", "one");
+        String b = writeList("b", "shared", "two");
+        String c = writeList("c", "shared", "six");
+        String d = writeList("d", "dog", "cat");
+        String e = writeList("e", "egg", "fig");
+
+        // a limit that fits two of them but not three
+        Corpus sizing = new Corpus(Long.MAX_VALUE);
+        sizing.get(a);
+        sizing.get(b);
+        Corpus corpus = new Corpus(sizing.getBytes());
+
+        List<String> first = corpus.get(a);
+        corpus.get(b);
+        assertEquals(0, corpus.getEvictions());
+        corpus.get(a); // so b is the least recently used
+        corpus.get(c);
+        assertEquals(List.of(a, c), corpus.getLoaded());
+        assertEquals(1, corpus.getEvictions());
+        // two only went with b, but shared is still in a and c
+        assertEquals(4, corpus.getPoolSize()); // apple, shared, one, six
+        assertSame(first.get(1), corpus.get(c).get(0));
+
+        // a dropped list is loaded again the next time, and the one it's handed out to still works
+        corpus.get(c);
+        corpus.get(b);
+        assertEquals(List.of(c, b), corpus.getLoaded());
+        assertEquals(3, corpus.getPoolSize()); // shared, six, two
+        assertEquals(List.of("apple", "shared", "one"), first);
+        assertEquals(4, corpus.getLoads());
+
+        // once the last list that has shared is gone, so is it, and loading it again makes a new one
+        corpus.get(d);
+        assertEquals(List.of(b, d), corpus.getLoaded());
+        corpus.get(d);
+        corpus.get(e);
+        assertEquals(List.of(d, e), corpus.getLoaded());
+        assertEquals(4, corpus.getPoolSize()); // dog, cat, egg, fig
+        assertEquals(4, corpus.getEvictions());
+        assertNotSame(first.get(1), corpus.get(a).get(1));
+    }
+
+}
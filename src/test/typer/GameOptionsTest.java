@@ -0,0 +1,162 @@
+package typer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import org.jline.terminal.Size;
+import org.jline.terminal.Terminal;
+import org.jline.terminal.TerminalBuilder;
+import org.junit.jupiter.api.Test;
+
+class GameOptionsTest {
+
+    private static final Theme THEME = new Theme("#FFFFFF", "#888888", "#FF0000", "#000000");
+
+    private static Terminal terminal(Headless.KeyStream in, OutputStream out) throws IOException {
+        return TerminalBuilder.builder().system(false).streams(in, new FrameOutput(out))
+                .size(new Size(100, 30)).type("xterm-256color").build();
+    }
+
+    /**
+     * Plays a game from options, typing every word (the first one as a typo instead, if there is one) then enter
+     */
+    private static GameResult play(GameOptions options, String typo, OutputStream out) throws IOException {
+        Headless.KeyStream in = new Headless.KeyStream(200);
+        Terminal term = terminal(in, out);
+        try {
+            Typer typer = Typer.builder().options(options).terminal(term).build();
+            StringBuilder keys = new StringBuilder();
+            for (String word: typer.getWords()) {
+                keys.append(typo != null && keys.length() == 0 ? typo : word).append(' ');
+            }
+            keys.append('\r');
+            in.setKeys(keys.toString().getBytes(StandardCharsets.UTF_8));
+            return typer.play();
+        } finally {
+            term.close();
+        }
+    }
+
+    @Test
+    void defaults() {
+        GameOptions options = GameOptions.builder().build();
+        assertEquals("words", options.getMode());
+        assertEquals(50, options.getWords());
+        assertEquals(0, options.getTimeLimit());
+        assertEquals(Utils.DEFAULT_WORDLIST, options.getWordlist());
+        assertNull(options.getTheme());
+        assertFalse(options.hasSeed());
+        assertNull(options.getScorers());
+        assertTrue(options.hasEndScreen());
+    }
+
+    @Test
+    void timeLimitMakesItATimedGameUnlessTheModeIsSet() {
+        assertEquals("time", GameOptions.builder().timeLimit(15).build().getMode());
+        assertEquals("endless", GameOptions.builder().timeLimit(15).mode("endless").build().getMode());
+        assertThrows(IllegalArgumentException.class, () -> GameOptions.builder().words(0));
+        assertThrows(IllegalArgumentException.class, () -> GameOptions.builder().timeLimit(-1));
+        List<String> scorers = GameOptions.builder().scorers("net-wpm").build().getScorers();
+        assertThrows(UnsupportedOperationException.class, () -> scorers.add("raw-wpm"));
+    }
+
+    @Test
+    void sameSeedGetsTheSameWords() throws IOException {
+        GameOptions options = GameOptions.builder().words(20).seed(7).theme(THEME).build();
+        Headless.KeyStream in = new Headless.KeyStream(0);
+        Terminal a = terminal(in, OutputStream.nullOutputStream());
+        Terminal b = terminal(in, OutputStream.nullOutputStream());
+        try {
+            List<String> words = Typer.builder().options(options).terminal(a).build().getWords();
+            assertEquals(20, words.size());
+            assertEquals(words, Typer.builder().options(options).terminal(b).build().getWords());
+            GameOptions other = GameOptions.builder().words(20).seed(8).theme(THEME).build();
+            assertNotEquals(words, Typer.builder().options(other).terminal(b).build().getWords());
+        } finally {
+            a.close();
+            b.close();
+        }
+    }
+
+    @Test
+    void buildingDoesntTouchTheTerminal() throws IOException {
+        Headless.CountingOutput out = new Headless.CountingOutput();
+        Terminal term = terminal(new Headless.KeyStream(0), out);
+        try {
+            Typer.builder().options(GameOptions.builder().theme(THEME).build()).terminal(term).build();
+            assertEquals(0, out.count);
+        } finally {
+            term.close();
+        }
+    }
+
+    @Test
+    void badNamesFailWhenBuilding() throws IOException {
+        Terminal term = terminal(new Headless.KeyStream(0), OutputStream.nullOutputStream());
+        try {
+            assertThrows(IllegalArgumentException.class, () -> Typer.builder()
+                    .options(GameOptions.builder().mode("nope").build()).terminal(term).build());
+            assertThrows(IllegalArgumentException.class, () -> Typer.builder()
+                    .options(GameOptions.builder().scorers("net-wpm", "nope").build()).terminal(term).build());
+        } finally {
+            term.close();
+        }
+        assertThrows(IllegalStateException.class, () -> Typer.builder().build());
+    }
+
+    @Test
+    void typoLowersTheNetWpm() throws IOException {
+        GameOptions options = GameOptions.builder().words(10).seed(3).theme(THEME).endScreen(false)
+                .scorers("net-wpm", "raw-wpm").build();
+        GameResult clean = play(options, null, OutputStream.nullOutputStream());
+        GameResult typo = play(options, "zzzzzzz", OutputStream.nullOutputStream());
+        assertTrue(clean.isFinished());
+        assertTrue(typo.isFinished());
+        assertEquals(List.of("net-wpm", "raw-wpm"), List.copyOf(clean.getScores().keySet()));
+        assertEquals(0, clean.getSession().getMistakes());
+        assertTrue(typo.getSession().getMistakes() > 0);
+        assertTrue(typo.getScore("net-wpm") < clean.getScore("net-wpm"),
+                   typo.getScore("net-wpm") + " vs " + clean.getScore("net-wpm"));
+        assertTrue(clean.getScore("net-wpm") <= clean.getScore("raw-wpm"));
+    }
+
+    @Test
+    void endScreenHasALineForEachScore() {
+        List<Scorer> scorers = Scorers.get(List.of("net-wpm", "consistency"));
+        Map<String, Double> scores = Map.of("net-wpm", 71.25, "consistency", 88.5);
+        // the labels are padded to 12, like the lines above them on the end screen
+        assertEquals("\nNet WPM:    71.25\nConsistency:88.5", Typer.scoreLines(scorers, scores));
+        assertEquals("", Typer.scoreLines(List.of(), scores));
+    }
+
+    @Test
+    void timedModeStopsAtTheLimit() throws IOException {
+        GameOptions options = GameOptions.builder().timeLimit(1).seed(5).theme(THEME).endScreen(false).build();
+        Headless.KeyStream in = new Headless.KeyStream(30);
+        Terminal term = terminal(in, OutputStream.nullOutputStream());
+        try {
+            Typer typer = Typer.builder().options(options).terminal(term).build();
+            StringBuilder keys = new StringBuilder();
+            for (String word: typer.getWords()) keys.append(word).append(' ');
+            in.setKeys(keys.toString().getBytes(StandardCharsets.UTF_8));
+            GameResult result = typer.play();
+            assertTrue(result.isFinished());
+            assertEquals(1_000_000_000L, result.getSession().getDuration());
+            // 30 keys a second for a second is about 5 words, nowhere near all of them
+            assertTrue(result.getSession().getWords() < 10, result.getSession().getWords() + " words");
+        } finally {
+            term.close();
+        }
+    }
+
+}
@@ -0,0 +1,221 @@
+package typer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+import com.sun.management.ThreadMXBean;
+
+class GameStateTest {
+
+    private static final List<String> WORDS = List.of("the", "quick", "brown", "fox");
+    private static final char BACKSPACE = '\u007f';
+    private static final char CTRL_BACKSPACE = '\u0017';
+
+    /**
+     * Plays keys from a string, the way they'd come from a recording
+     */
+    private static GameState replay(List<String> words, String keys) {
+        return GameState.replay(words, keys.chars().toArray(), keys.length(), null);
+    }
+
+    @Test
+    void perfectGame() {
+        GameState state = replay(WORDS, "the quick brown fox ");
+        assertTrue(state.isFinished());
+        assertEquals(state.textLength(), state.getCursor());
+        assertEquals(4, state.getWord());
+        assertEquals(16, state.getCorrect());
+        assertEquals(0, state.getMistakes());
+        assertEquals(0, state.wrongWordCount());
+        assertTrue(state.getWrongWords().isEmpty());
+    }
+
+    @Test
+    void cursorMovesThroughTheFlatText() {
+        GameState state = replay(WORDS, "the qu");
+        assertEquals(6, state.getCursor());
+        assertEquals(1, state.getWord());
+        assertEquals(2, state.getTypedInWord());
+        assertEquals('i', state.expectedAtCursor());
+        assertEquals("the quick brown fox", new String(charsOf(state)));
+    }
+
+    @Test
+    void fixedMistakeStillCounts() {
+        GameState state = replay(WORDS, "thw" + BACKSPACE + "e quick ");
+        assertEquals(0, state.getIncorrect());
+        assertEquals(8, state.getCorrect());
+        assertEquals(1, state.getMistakes());
+        assertEquals(List.of("the"), state.getWrongWords());
+        assertEquals(GameState.CORRECT, state.state(2));
+    }
+
+    @Test
+    void wrongCharacterStaysWrong() {
+        GameState state = replay(WORDS, "thx ");
+        assertEquals(2, state.getCorrect());
+        assertEquals(1, state.getIncorrect());
+        assertEquals(GameState.WRONG, state.state(2));
+        assertEquals('x', state.typed(2));
+        assertEquals(1, state.wrongWordCount());
+    }
+
+    @Test
+    void backspaceStopsAtTheStartOfTheWord() {
+        GameState state = replay(WORDS, "the q" + BACKSPACE + BACKSPACE + BACKSPACE);
+        assertEquals(1, state.getWord());
+        assertEquals(0, state.getTypedInWord());
+        assertEquals(4, state.getCursor());
+        assertEquals(3, state.getCorrect());
+        assertEquals(GameState.CORRECT, state.state(2));
+        assertEquals(GameState.UNTYPED, state.state(4));
+    }
+
+    @Test
+    void ctrlBackspaceDeletesTheWholeWord() {
+        GameState state = replay(WORDS, "the quxc" + CTRL_BACKSPACE);
+        assertEquals(1, state.getWord());
+        assertEquals(0, state.getTypedInWord());
+        assertEquals(3, state.getCorrect());
+        assertEquals(0, state.getIncorrect());
+        assertEquals(1, state.getMistakes()); // the x was still a mistake
+        assertEquals(List.of("quick"), state.getWrongWords());
+        for (int pos = 4; pos < 9; pos++) {
+            assertEquals(GameState.UNTYPED, state.state(pos));
+        }
+        assertEquals(4, state.getDirtyStart());
+        assertEquals(8, state.getDirtyEnd());
+
+        // nothing left to delete
+        assertFalse(state.press(CTRL_BACKSPACE));
+    }
+
+    @Test
+    void spaceEarlyMissesTheRestOfTheWord() {
+        GameState state = replay(WORDS, "the qu brown ");
+        assertEquals(3, state.getMissed());
+        assertEquals(3, state.getMistakes());
+        assertEquals(GameState.MISSED, state.state(6));
+        assertEquals(GameState.MISSED, state.state(8));
+        assertEquals(List.of("quick"), state.getWrongWords());
+    }
+
+    @Test
+    void spaceAtTheStartOfAWordDoesNothing() {
+        GameState state = replay(WORDS, "the  ");
+        assertEquals(1, state.getWord());
+        assertEquals(0, state.getMissed());
+        assertFalse(state.press(' '));
+    }
+
+    @Test
+    void keysAfterTheEndOfAWordAreExtra() {
+        GameState state = replay(WORDS, "thexx quick");
+        assertEquals(2, state.getExtra());
+        assertEquals(1, state.getWord());
+        assertEquals(8, state.getCorrect());
+        assertEquals(0, state.getMistakes());
+    }
+
+    @Test
+    void enterOnlyEndsTheLastWordOnALine() {
+        // "the quick" and "brown fox" on two lines
+        LineLayout layout = new LineLayout(new int[] { 3, 5, 5, 3 }, 4, 9);
+        String keys = "th\re quick\rbrown\r";
+        GameState state = GameState.replay(WORDS, keys.chars().toArray(), keys.length(), layout);
+        // enter in "the" and after "brown" (the last line) did nothing, after "quick" it was a space
+        assertEquals(2, state.getWord());
+        assertEquals(5, state.getTypedInWord());
+        assertEquals(0, state.getMissed());
+        assertEquals(0, state.getExtra());
+    }
+
+    @Test
+    void replayingARecordedGameGetsTheSameState() {
+        List<String> words = new WordSampler(11).sample(Utils.getWordlist("1000en.txt"), 300);
+        SplittableRandom random = new SplittableRandom(12);
+
+        // play it live with a sloppy typist, recording every key like the game does
+        GameState live = new GameState(words);
+        KeystrokeLog log = new KeystrokeLog(1 << 13);
+        long time = 0;
+        while (!live.isFinished()) {
+            char ch;
+            double roll = random.nextDouble();
+            if (roll < 0.05) ch = (char) ('a' + random.nextInt(26));
+            else if (roll < 0.08) ch = BACKSPACE;
+            else if (roll < 0.09) ch = CTRL_BACKSPACE;
+            else if (roll < 0.10) ch = ' ';
+            else ch = live.isWordTyped() ? ' ' : live.expectedAtCursor();
+            if (ch == 0) ch = ' ';
+            log.record(ch, live.expectedAtCursor(), ch == live.expectedAtCursor(), time += 100_000_000);
+            live.press(ch);
+        }
+
+        int[] keys = new int[log.size()];
+        for (int i = 0; i < keys.length; i++) keys[i] = log.key(i);
+        GameState replayed = GameState.replay(words, keys, keys.length, null);
+
+        assertEquals(live.getCursor(), replayed.getCursor());
+        assertEquals(live.getCorrect(), replayed.getCorrect());
+        assertEquals(live.getIncorrect(), replayed.getIncorrect());
+        assertEquals(live.getExtra(), replayed.getExtra());
+        assertEquals(live.getMissed(), replayed.getMissed());
+        assertEquals(live.getMistakes(), replayed.getMistakes());
+        assertEquals(live.getWrongWords(), replayed.getWrongWords());
+        for (int pos = 0; pos < live.textLength(); pos++) {
+            assertEquals(live.state(pos), replayed.state(pos));
+            assertEquals(live.typed(pos), replayed.typed(pos));
+        }
+        assertTrue(live.getMistakes() > 0);
+    }
+
+    @Test
+    void wrongWordsThatWereDiscardedAreStillReported() {
+        GameState state = new GameState(16, 4);
+        state.append(List.of("the", "quick", "brown"));
+        for (char ch: ("thx quick brxwn ").toCharArray()) state.press(ch);
+        state.append(List.of("the", "fox"));
+        state.discard(3); // "the", "quick" and "brown" are gone, so their room gets reused
+        state.append(List.of("jumps", "over", "the", "dog"));
+        for (char ch: ("thx fxx jumps ").toCharArray()) state.press(ch);
+
+        // "the" came up twice wrong, but only shows once, where it first came up
+        assertEquals(List.of("the", "brown", "fox"), state.getWrongWords());
+        assertEquals(4, state.wrongWordCount());
+        state.discard(state.getWord());
+        assertEquals(List.of("the", "brown", "fox"), state.getWrongWords());
+    }
+
+    @Test
+    void wrongKeysDontAllocate() {
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        List<String> words = new WordSampler(13).sample(Utils.getWordlist("1000en.txt"), 2000);
+        GameState state = new GameState(words);
+        // every word gets a wrong key, then the rest of it typed right
+        long before = threads.getCurrentThreadAllocatedBytes();
+        while (!state.isFinished()) {
+            state.press('#');
+            state.press('\u007f');
+            while (!state.isWordTyped()) state.press(state.expectedAtCursor());
+            state.press(' ');
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+        assertEquals(2000, state.wrongWordCount());
+        assertEquals(0, allocated);
+    }
+
+    private static char[] charsOf(GameState state) {
+        char[] chars = new char[state.textLength()];
+        for (int i = 0; i < chars.length; i++) chars[i] = state.expected(i);
+        return chars;
+    }
+
+}
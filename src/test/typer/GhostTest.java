@@ -0,0 +1,148 @@
+package typer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class GhostTest {
+
+    private static final long MS = 1_000_000;
+
+    /**
+     * A result with a trace of "ab " typed with a key every given time
+     */
+    private static SessionResult result(String user, double wpm, long keyMillis, boolean traced) {
+        byte[] encoded = null;
+        if (traced) {
+            KeyTrace trace = new KeyTrace(List.of("ab"), 4);
+            for (int i = 0; i < 3; i++) trace.record("ab ".charAt(i), (i + 1) * keyMillis * MS);
+            encoded = trace.encode();
+        }
+        return new SessionResult(user, 0, 3 * keyMillis * MS, 1, 2, 0, wpm, 100, List.of(), List.of(), encoded);
+    }
+
+    private static void save(Path folder, SessionResult... saved) throws IOException {
+        try (ResultsLog results = ResultsLog.open(folder, 0)) {
+            for (SessionResult result: saved) results.submit(result);
+        }
+    }
+
+    @Test
+    void findsTheUsersMostRecentTracedGame(@TempDir Path folder) throws IOException {
+        save(folder, result("amy", 50, 10, true), result("amy", 90, 20, true), result("amy", 70, 30, true),
+             result("amy", 99, 40, false), result("bob", 120, 50, true));
+        try (ResultsLog results = ResultsLog.open(folder)) {
+            assertEquals(30 * MS, Ghost.find(results, "amy", false).delta(1));
+            assertEquals(20 * MS, Ghost.find(results, "amy", true).delta(1));
+            assertEquals(50 * MS, Ghost.find(results, "bob", false).delta(1));
+            assertNull(Ghost.find(results, "cal", false));
+            assertNull(Ghost.find(results, "cal", true));
+        }
+    }
+
+    @Test
+    void getReadsOneResult(@TempDir Path folder) throws IOException {
+        save(folder, result("amy", 50, 10, false), result("bob", 60, 10, false));
+        try (ResultsLog results = ResultsLog.open(folder)) {
+            assertEquals("amy", results.get(0).getUser());
+            assertEquals(60, results.get(1).getWpm());
+            assertThrows(IndexOutOfBoundsException.class, () -> results.get(2));
+            assertThrows(IndexOutOfBoundsException.class, () -> results.get(-1));
+        }
+    }
+
+    @Test
+    void ghostPlaysTheKeysOnTime() {
+        KeyTrace trace = new KeyTrace(List.of("ab"), 4);
+        trace.record('a', 1000 * MS);
+        trace.record('b', 1100 * MS);
+        trace.record(' ', 1250 * MS);
+        Ghost ghost = new Ghost(trace);
+        ghost.advance(0);
+        assertEquals(1, ghost.getCursor());
+        assertEquals(100 * MS, ghost.nextKeyAt());
+        ghost.advance(99 * MS);
+        assertEquals(1, ghost.getCursor());
+        ghost.advance(300 * MS);
+        assertEquals(1, ghost.getWord());
+        assertEquals(Long.MAX_VALUE, ghost.nextKeyAt());
+    }
+
+    @Test
+    void raceResultSaysWhoWon() {
+        assertEquals("you won by 1.25s", Typer.raceResult(3000 * MS, 4250 * MS));
+        assertEquals("the ghost won by 0.5s", Typer.raceResult(4500 * MS, 4000 * MS));
+        assertEquals("the ghost won by 0.01s", Typer.raceResult(4006 * MS, 4000 * MS));
+        // the same to a hundredth of a second either way
+        assertEquals("a tie", Typer.raceResult(4000 * MS, 4000 * MS));
+        assertEquals("a tie", Typer.raceResult(4004 * MS, 4000 * MS));
+        assertEquals("a tie", Typer.raceResult(3996 * MS, 4000 * MS));
+    }
+
+    @Test
+    void traceRoundTrip() throws IOException {
+        // more keys than it was made with room for, keys outside ASCII, and gaps from nothing up to a long pause
+        KeyTrace trace = new KeyTrace(List.of("caf\u00e9", "ab", "\u20ac5"), 2);
+        String keys = "caf\u00e9\u007fe ab\r\u20ac5 ";
+        long[] gaps = { 0, 1, 127 * MS, 128, 16_384, 5000 * MS, 2 * MS, 90 * MS, 250 * MS, 3, 60_000 * MS, 1 * MS,
+                       40 * MS };
+        long time = 1000 * MS;
+        for (int i = 0; i < keys.length(); i++) {
+            time += gaps[i];
+            trace.record(keys.charAt(i), time);
+        }
+
+        KeyTrace decoded = KeyTrace.decode(trace.encode());
+        assertEquals(trace.getWords(), decoded.getWords());
+        assertEquals(keys.length(), decoded.size());
+        for (int i = 0; i < keys.length(); i++) {
+            assertEquals(keys.charAt(i), decoded.key(i));
+            assertEquals(gaps[i], decoded.delta(i), "key " + i);
+        }
+        assertEquals(time - 1000 * MS, decoded.getDuration());
+        assertEquals(trace.getDuration(), decoded.getDuration());
+
+        KeyTrace empty = KeyTrace.decode(new KeyTrace(List.of(), 0).encode());
+        assertEquals(0, empty.size());
+        assertEquals(List.of(), empty.getWords());
+    }
+
+    @Test
+    void brokenTracesAreErrors() throws IOException {
+        KeyTrace trace = new KeyTrace(List.of("one", "two"), 8);
+        for (int i = 0; i < 8; i++) trace.record("one two ".charAt(i), (1000 + 150 * i) * MS);
+        byte[] encoded = trace.encode();
+        assertNotNull(KeyTrace.decode(encoded));
+
+        // cut off anywhere
+        for (int length = 0; length < encoded.length; length++) {
+            byte[] cut = Arrays.copyOf(encoded, length);
+            assertThrows(IOException.class, () -> KeyTrace.decode(cut), "cut to " + length);
+        }
+
+        byte[] version = encoded.clone();
+        version[0] = 2;
+        IOException e = assertThrows(IOException.class, () -> KeyTrace.decode(version));
+        assertEquals("unknown trace version 2", e.getMessage());
+
+        // a varint that never ends
+        byte[] endless = new byte[12];
+        Arrays.fill(endless, (byte) 0xFF);
+        e = assertThrows(IOException.class, () -> KeyTrace.decode(endless));
+        assertEquals("trace has a varint that's too long", e.getMessage());
+
+        // a word count that's far more than there are bytes for, which mustn't make a huge list first
+        byte[] huge = { 1, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07 };
+        assertThrows(IOException.class, () -> KeyTrace.decode(huge));
+    }
+
+}
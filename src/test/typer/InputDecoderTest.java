@@ -0,0 +1,158 @@
+package typer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jline.terminal.Size;
+import org.jline.terminal.Terminal;
+import org.jline.terminal.TerminalBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class InputDecoderTest {
+
+    private static final long MS = 1_000_000;
+
+    private Terminal term = null;
+
+    private InputDecoder decoder(long pauseMillis, int capacity, String... chunks) throws IOException {
+        term = TerminalBuilder.builder().system(false)
+                .streams(new TyperTest.PausingInput(pauseMillis, chunks), OutputStream.nullOutputStream())
+                .encoding(StandardCharsets.UTF_8).size(new Size(80, 24)).type("xterm-256color").build();
+        return new InputDecoder(term.reader(), capacity, 25);
+    }
+
+    @AfterEach
+    void close() throws IOException {
+        if (term != null) term.close();
+    }
+
+    /**
+     * Decodes everything until the input ends, as "key" or "key/flags" for each event
+     */
+    private List<String> decode(String... chunks) throws IOException {
+        InputDecoder decoder = decoder(0, 64, chunks);
+        List<String> events = new ArrayList<String>();
+        long deadline = System.nanoTime() + 5000 * MS;
+        int n;
+        // a poll can also come back with nothing if all it read was the start or end of a paste
+        while ((n = decoder.poll(5000)) != InputDecoder.EOF) {
+            assertTrue(System.nanoTime() < deadline, "timed out");
+            for (int i = 0; i < n; i++) {
+                events.add(decoder.key(i) + (decoder.flags(i) != 0 ? "/" + decoder.flags(i) : ""));
+            }
+        }
+        return events;
+    }
+
+    private static String keys(int... keys) {
+        StringBuilder text = new StringBuilder();
+        for (int key: keys) text.append(text.length() > 0 ? "," : "").append(key);
+        return text.toString();
+    }
+
+    @Test
+    void plainKeys() throws IOException {
+        // (no CR, the terminal can turn that into a LF before the decoder ever sees it)
+        assertEquals(List.of("97", "32", "9", "127", "23"), decode("a \t\u007f\u0017"));
+    }
+
+    @Test
+    void csiArrowsAndKeys() throws IOException {
+        assertEquals(keys(InputDecoder.KEY_UP, InputDecoder.KEY_DOWN, InputDecoder.KEY_RIGHT, InputDecoder.KEY_LEFT,
+                          InputDecoder.KEY_HOME, InputDecoder.KEY_END),
+                     String.join(",", decode("\033[A\033[B\033[C\033[D\033[H\033[F")));
+        assertEquals(keys(InputDecoder.KEY_HOME, InputDecoder.KEY_INSERT, InputDecoder.KEY_DELETE,
+                          InputDecoder.KEY_END, InputDecoder.KEY_PAGE_UP, InputDecoder.KEY_PAGE_DOWN,
+                          InputDecoder.KEY_HOME, InputDecoder.KEY_END),
+                     String.join(",", decode("\033[1~\033[2~\033[3~\033[4~\033[5~\033[6~\033[7~\033[8~")));
+        // ctrl + right still moves right, and sequences we don't care about are one unknown key each
+        assertEquals(keys(InputDecoder.KEY_RIGHT, InputDecoder.KEY_UNKNOWN, InputDecoder.KEY_UNKNOWN, 'x'),
+                     String.join(",", decode("\033[1;5C\033[?25h\033[99~x")));
+    }
+
+    @Test
+    void ss3Arrows() throws IOException {
+        assertEquals(keys(InputDecoder.KEY_UP, InputDecoder.KEY_DOWN, InputDecoder.KEY_RIGHT, InputDecoder.KEY_LEFT,
+                          InputDecoder.KEY_HOME, InputDecoder.KEY_END, InputDecoder.KEY_UNKNOWN),
+                     String.join(",", decode("\033OA\033OB\033OC\033OD\033OH\033OF\033OP")));
+    }
+
+    @Test
+    void bracketedPasteIsFlagged() throws IOException {
+        int paste = InputDecoder.FLAG_PASTE;
+        assertEquals(List.of("97", "120/" + paste, "32/" + paste, InputDecoder.KEY_UP + "/" + paste, "98"),
+                     decode("a\033[200~x \033[A\033[201~b"));
+        // the paste can come in over more than one read
+        assertEquals(List.of("120/" + paste, "121/" + paste, "122"), decode("\033[200~x", "y\033[20", "1~z"));
+    }
+
+    @Test
+    void altIsEscThenTheKey() throws IOException {
+        assertEquals(List.of("120/" + InputDecoder.FLAG_ALT, "121"), decode("\033xy"));
+        // two escapes, then an arrow
+        assertEquals(keys(InputDecoder.KEY_ESCAPE, InputDecoder.KEY_UP), String.join(",", decode("\033\033[A")));
+    }
+
+    @Test
+    void surrogatePairsAreOneKey() throws IOException {
+        assertEquals(List.of(String.valueOf(0x1F600), "97", String.valueOf(0x1F44D)),
+                     decode("\ud83d\ude00a\ud83d\udc4d"));
+    }
+
+    @Test
+    void loneEscapeTimesOut() throws IOException {
+        // the rest of the input comes in well after the timeout, so the ESC has to be reported on its own first
+        InputDecoder decoder = decoder(300, 64, "\033", "a");
+        long start = System.nanoTime();
+        assertEquals(1, decoder.poll(5000));
+        assertEquals(InputDecoder.KEY_ESCAPE, decoder.key(0));
+        assertEquals(0, decoder.flags(0));
+        assertTrue(System.nanoTime() - start < 250 * MS, "took " + (System.nanoTime() - start) / MS + "ms");
+        assertEquals(1, decoder.poll(5000));
+        assertEquals('a', decoder.key(0));
+        assertEquals(0, decoder.flags(0), "not alt + a");
+        assertEquals(InputDecoder.EOF, decoder.poll(5000));
+    }
+
+    @Test
+    void cutOffSequenceIsUnknown() throws IOException {
+        InputDecoder decoder = decoder(300, 64, "\033[1", "b");
+        assertEquals(1, decoder.poll(5000));
+        assertEquals(InputDecoder.KEY_UNKNOWN, decoder.key(0));
+        assertEquals(1, decoder.poll(5000));
+        assertEquals('b', decoder.key(0));
+    }
+
+    @Test
+    void pollStopsAtCapacity() throws IOException {
+        InputDecoder decoder = decoder(0, 4, "abcdefghij");
+        StringBuilder keys = new StringBuilder();
+        int n;
+        while ((n = decoder.poll(5000)) != InputDecoder.EOF) {
+            assertTrue(n > 0 && n <= 4, "got " + n);
+            for (int i = 0; i < n; i++) keys.append((char) decoder.key(i));
+        }
+        assertEquals("abcdefghij", keys.toString());
+    }
+
+    @Test
+    void keysAreTimedAsTheyComeIn() throws IOException {
+        InputDecoder decoder = decoder(200, 64, "a", "b");
+        long before = System.nanoTime();
+        assertEquals(1, decoder.poll(5000));
+        long first = decoder.time(0);
+        assertTrue(before <= first);
+        // nothing else for a while, so a short poll runs out
+        assertEquals(0, decoder.poll(50));
+        assertEquals(1, decoder.poll(5000));
+        assertTrue(first + 150 * MS <= decoder.time(0), (decoder.time(0) - first) / MS + "ms apart");
+    }
+
+}
@@ -0,0 +1,174 @@
+package typer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+class KeyRingTest {
+
+    private static final long MS = 1_000_000;
+
+    private static void put(KeyRing ring, int key) {
+        ring.put(key, 1000L + key, (byte) (key % 3));
+    }
+
+    /**
+     * Checks the events from the last poll are the keys from first on, in order, with the times and flags that went
+     * with them
+     */
+    private static void check(KeyRing ring, int events, int first) {
+        for (int i = 0; i < events; i++) {
+            assertEquals(first + i, ring.key(i));
+            assertEquals(1000L + first + i, ring.time(i));
+            assertEquals((first + i) % 3, ring.flags(i));
+        }
+    }
+
+    @Test
+    void eventsComeOutInOrder() {
+        KeyRing ring = new KeyRing(16);
+        for (int i = 0; i < 5; i++) put(ring, i);
+        assertEquals(5, ring.poll(0));
+        check(ring, 5, 0);
+        // nothing new yet
+        assertEquals(0, ring.poll(10 * MS));
+    }
+
+    @Test
+    void wrapsAround() {
+        // 5 rounds up to 8, and going through the events a few at a time wraps it plenty of times. The events from
+        // the last poll keep their slots until the next one, so only half of it is put in each time (or it'd wait)
+        KeyRing ring = new KeyRing(5);
+        int next = 0;
+        for (int round = 0; round < 30; round++) {
+            int amount = 1 + round % 4;
+            for (int i = 0; i < amount; i++) put(ring, next + i);
+            assertEquals(amount, ring.poll(0));
+            check(ring, amount, next);
+            next += amount;
+        }
+    }
+
+    @Test
+    void unreadEventsComeBack() {
+        KeyRing ring = new KeyRing(8);
+        for (int i = 0; i < 5; i++) put(ring, i);
+        assertEquals(5, ring.poll(0));
+        ring.unread(2);
+        put(ring, 5);
+        assertEquals(4, ring.poll(0));
+        check(ring, 4, 2);
+        ring.unread(10); // past the end gives nothing back
+        assertEquals(0, ring.poll(MS));
+    }
+
+    @Test
+    void closedRingGivesTheRestThenEof() {
+        KeyRing ring = new KeyRing(8);
+        put(ring, 0);
+        put(ring, 1);
+        ring.close();
+        assertEquals(2, ring.poll(0));
+        check(ring, 2, 0);
+        assertEquals(KeyRing.EOF, ring.poll(0));
+        assertEquals(KeyRing.EOF, ring.poll(MS));
+    }
+
+    @Test
+    void fullRingWaitsForTheConsumer() throws InterruptedException {
+        KeyRing ring = new KeyRing(4);
+        AtomicBoolean lastPut = new AtomicBoolean();
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < 5; i++) put(ring, i);
+            lastPut.set(true);
+            ring.close();
+        });
+        producer.start();
+        try {
+            // the first 4 fit, the 5th has to wait until they've been let go of, which is the poll after they're taken
+            long deadline = System.nanoTime() + 5000 * MS;
+            int events;
+            while ((events = ring.poll(MS)) == 0 && System.nanoTime() < deadline) {
+                Thread.onSpinWait();
+            }
+            while (events < 4 && System.nanoTime() < deadline) {
+                ring.unread(0);
+                events = ring.poll(MS);
+            }
+            assertEquals(4, events);
+            check(ring, 4, 0);
+            Thread.sleep(50);
+            assertFalse(lastPut.get(), "put into a full ring");
+
+            assertEquals(1, ring.poll(5000 * MS));
+            check(ring, 1, 4);
+            producer.join(5000);
+            assertTrue(lastPut.get());
+            assertEquals(KeyRing.EOF, ring.poll(5000 * MS));
+        } finally {
+            producer.interrupt();
+            producer.join(5000);
+        }
+    }
+
+    @Test
+    void wakeEndsAWait() throws InterruptedException {
+        KeyRing ring = new KeyRing(8);
+        CountDownLatch polling = new CountDownLatch(1);
+        AtomicReference<Integer> result = new AtomicReference<Integer>();
+        Thread consumer = new Thread(() -> {
+            polling.countDown();
+            result.set(ring.poll(0));
+        });
+        consumer.start();
+        assertTrue(polling.await(5, TimeUnit.SECONDS));
+        // keep waking it until it's been parked and woken (a wake before it parks just does nothing)
+        long deadline = System.nanoTime() + 5000 * MS;
+        while (consumer.isAlive() && System.nanoTime() < deadline) {
+            ring.wake();
+            consumer.join(10);
+        }
+        assertFalse(consumer.isAlive());
+        assertEquals(0, result.get());
+    }
+
+    @Test
+    void twoThreadsPassEverythingInOrder() throws InterruptedException {
+        // a small ring and lots of events, so it's full and empty over and over
+        KeyRing ring = new KeyRing(16);
+        int total = 100_000;
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < total; i++) put(ring, i);
+            ring.close();
+        });
+        producer.start();
+        try {
+            int next = 0;
+            int events;
+            long deadline = System.nanoTime() + 30_000 * MS;
+            while ((events = ring.poll(10 * MS)) != KeyRing.EOF) {
+                assertTrue(System.nanoTime() < deadline, "stuck at " + next);
+                for (int i = 0; i < events; i++) {
+                    // checked inline, the same as check() but without an assert per field per event
+                    if (ring.key(i) != next || ring.time(i) != 1000L + next || ring.flags(i) != next % 3) {
+                        assertEquals(next, ring.key(i), "event " + next);
+                        assertEquals(1000L + next, ring.time(i));
+                        assertEquals(next % 3, ring.flags(i));
+                    }
+                    next++;
+                }
+            }
+            assertEquals(total, next);
+        } finally {
+            producer.join(5000);
+        }
+    }
+
+}
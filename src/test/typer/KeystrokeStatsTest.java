@@ -0,0 +1,99 @@
+package typer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class KeystrokeStatsTest {
+
+    private static final long MS = 1_000_000;
+
+    @Test
+    void logKeepsTheNewestKeysWhenItWrapsAround() {
+        KeystrokeLog log = new KeystrokeLog(4);
+        long time = 1000;
+        for (int i = 0; i < 10; i++) {
+            log.record('a' + i, (char) ('a' + i), i % 2 == 0, time += (i + 1) * MS);
+        }
+        assertEquals(4, log.size());
+        assertEquals(10, log.total());
+        for (int i = 0; i < 4; i++) {
+            assertEquals('a' + 6 + i, log.key(i));
+            assertEquals((7 + i) * MS, log.delta(i));
+            assertEquals((6 + i) % 2 == 0, log.correct(i));
+        }
+        assertEquals(time, log.lastTime());
+        log.clear();
+        assertEquals(0, log.size());
+    }
+
+    @Test
+    void firstKeyHasNoDelta() {
+        KeystrokeLog log = new KeystrokeLog(8);
+        log.record('a', 'a', true, 5 * MS);
+        log.record('b', 'b', true, 7 * MS);
+        assertEquals(0, log.delta(0));
+        assertEquals(2 * MS, log.delta(1));
+    }
+
+    @Test
+    void histogramPercentilesAreWithinTheBucketError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 10_000; i++) {
+            histogram.record(i * 1000);
+        }
+        assertEquals(10_000, histogram.count());
+        assertEquals(1000, histogram.min());
+        assertEquals(10_000_000, histogram.max());
+        long[][] expected = { { 50, 5_000_000 }, { 90, 9_000_000 }, { 99, 9_900_000 } };
+        for (long[] point: expected) {
+            long value = histogram.percentile(point[0]);
+            assertTrue(Math.abs(value - point[1]) <= point[1] / 64, point[0] + "th percentile was " + value);
+        }
+        assertEquals(10_000_000, histogram.percentile(100));
+    }
+
+    @Test
+    void bigramsOnlyCountTransitionsBetweenCorrectKeys() {
+        KeystrokeLog log = new KeystrokeLog(64);
+        long time = 0;
+        // "th" takes 200ms each time, "he" 50ms, and the wrong "x" after "e" doesn't count for "ex"
+        for (int i = 0; i < 3; i++) {
+            log.record('t', 't', true, time += 100 * MS);
+            log.record('h', 'h', true, time += 200 * MS);
+            log.record('e', 'e', true, time += 50 * MS);
+            log.record('x', 'y', false, time += 500 * MS);
+            log.record(' ', ' ', true, time += 100 * MS);
+        }
+        KeystrokeStats stats = new KeystrokeStats(log);
+        assertEquals(200 * MS, stats.bigramAverage('t', 'h'));
+        assertEquals(50 * MS, stats.bigramAverage('h', 'e'));
+        assertEquals(-1, stats.bigramAverage('e', 'x'));
+        assertEquals(-1, stats.bigramAverage('x', ' '));
+        assertArrayEquals(new String[] { "th", "_t", "he" }, stats.slowestBigrams(3, 2));
+        assertEquals(14, stats.getLatency().count());
+    }
+
+    @Test
+    void burstAndRawWpmHaveAPointPerWord() {
+        KeystrokeLog log = new KeystrokeLog(64);
+        long time = 0;
+        // two words of 4 keys and a space, a key every 100ms is 120 WPM
+        for (int word = 0; word < 2; word++) {
+            for (int i = 0; i < 4; i++) {
+                log.record('a', 'a', true, time += 100 * MS);
+            }
+            log.record(' ', ' ', true, time += 100 * MS);
+        }
+        KeystrokeStats stats = new KeystrokeStats(log);
+        assertEquals(2, stats.getBurstWpm().length);
+        // the first word's time starts at its first key, so it's 5 keys in 400ms
+        assertEquals(150, stats.getBurstWpm()[0], 1e-9);
+        assertEquals(120, stats.getBurstWpm()[1], 1e-9);
+        assertEquals(150, stats.getRawWpm()[0], 1e-9);
+        assertEquals(10 / 5.0 / (900 * MS / 60_000_000_000.0), stats.getRawWpm()[1], 1e-9);
+    }
+
+}
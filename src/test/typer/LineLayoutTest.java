@@ -0,0 +1,117 @@
+package typer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class LineLayoutTest {
+
+    /**
+     * Where the lines start, the old way: wrapWords on whatever words are left until there aren't any
+     */
+    private static int[] wrapped(List<String> words, int width) {
+        ArrayList<Integer> starts = new ArrayList<Integer>();
+        int at = 0;
+        while (at < words.size()) {
+            starts.add(at);
+            at += Utils.wrapWords(words.subList(at, words.size()), width).size();
+        }
+        return starts.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static int[] starts(LineLayout layout) {
+        int[] starts = new int[layout.lineCount()];
+        for (int i = 0; i < starts.length; i++) starts[i] = layout.lineStart(i);
+        return starts;
+    }
+
+    private static LineLayout layout(List<String> words, int width) {
+        int[] lengths = new int[words.size()];
+        for (int i = 0; i < lengths.length; i++) lengths[i] = words.get(i).length();
+        return new LineLayout(lengths, lengths.length, width);
+    }
+
+    @Test
+    void emptyListHasNoLines() {
+        LineLayout layout = layout(List.of(), 20);
+        assertEquals(0, layout.lineCount());
+        assertArrayEquals(wrapped(List.of(), 20), starts(layout));
+    }
+
+    @Test
+    void wordLongerThanTheLineGetsALineToItself() {
+        List<String> words = List.of("a", "bb", "internationalization", "cc", "d");
+        LineLayout layout = layout(words, 10);
+        assertArrayEquals(wrapped(words, 10), starts(layout));
+        assertArrayEquals(new int[] { 0, 2, 3 }, starts(layout));
+        assertEquals(20, layout.lineLength(1));
+    }
+
+    @Test
+    void exactFitStaysOnTheLine() {
+        // "abc defg hi" is 11 characters
+        List<String> words = List.of("abc", "defg", "hi", "jk");
+        assertArrayEquals(new int[] { 0, 3 }, starts(layout(words, 11)));
+        assertArrayEquals(new int[] { 0, 2 }, starts(layout(words, 10)));
+        assertArrayEquals(wrapped(words, 11), starts(layout(words, 11)));
+        assertArrayEquals(wrapped(words, 10), starts(layout(words, 10)));
+        assertEquals(11, layout(words, 11).lineLength(0));
+    }
+
+    @Test
+    void lastWordIsCounted() {
+        // the old line count never looked at the last word, so a last word that didn't fit was lost
+        List<String> words = List.of("aaaa", "bbbb", "cccc");
+        LineLayout layout = layout(words, 9);
+        assertEquals(2, layout.lineCount());
+        assertEquals(3, layout.lineEnd(1));
+    }
+
+    @Test
+    void resizeMatchesAFreshLayout() {
+        List<String> words = new WordSampler(7).sample(Utils.getWordlist("1000en.txt"), 200);
+        LineLayout layout = layout(words, 64);
+        for (int width: new int[] { 40, 17, 80, 64, 5, 1 }) {
+            layout.setWidth(width);
+            assertEquals(width, layout.getWidth());
+            assertArrayEquals(wrapped(words, width), starts(layout), "width " + width);
+        }
+    }
+
+    @Test
+    void marathonMatchesWrapWordsAtEveryWidth() {
+        List<String> words = new WordSampler(8).sample(Utils.getWordlist("1000en.txt"), 5000);
+        for (int width = 10; width <= 120; width += 7) {
+            LineLayout layout = layout(words, width);
+            assertArrayEquals(wrapped(words, width), starts(layout), "width " + width);
+            assertEquals(words.size(), layout.lineEnd(layout.lineCount() - 1));
+            for (int line = 0; line < layout.lineCount(); line++) {
+                int end = layout.lineEnd(line);
+                String text = String.join(" ", words.subList(layout.lineStart(line), end));
+                assertEquals(text.length(), layout.lineLength(line));
+                for (int word = layout.lineStart(line); word < end; word++) {
+                    assertEquals(line, layout.lineOf(word));
+                }
+            }
+        }
+    }
+
+    @Test
+    void windowKeepsTheGamesWordIndexes() {
+        List<String> words = new WordSampler(9).sample(Utils.getWordlist("1000en.txt"), 300);
+        int first = 120;
+        int[] lengths = new int[words.size() - first];
+        for (int i = 0; i < lengths.length; i++) lengths[i] = words.get(first + i).length();
+        LineLayout window = new LineLayout(lengths, first, lengths.length, 50);
+
+        int[] expected = wrapped(words.subList(first, words.size()), 50);
+        for (int i = 0; i < expected.length; i++) expected[i] += first;
+        assertArrayEquals(expected, starts(window));
+        assertEquals(window.lineCount() - 1, window.lineOf(words.size() - 1));
+    }
+
+}
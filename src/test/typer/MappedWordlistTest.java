@@ -0,0 +1,100 @@
+package typer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MappedWordlistTest {
+
+    @TempDir
+    Path dir;
+
+    private MappedWordlist compile(List<String> lines) throws IOException {
+        Path text = dir.resolve("list.txt");
+        Path compiled = dir.resolve("list.twl");
+        Files.write(text, lines, StandardCharsets.UTF_8);
+        long words = lines.stream().filter(line -> !line.trim().isEmpty()).count();
+        assertEquals(words, WordlistCompiler.compile(text.toString(), compiled.toString()));
+        return MappedWordlist.open(compiled);
+    }
+
+    private static void checkSame(List<String> expected, MappedWordlist mapped) {
+        assertEquals(expected.size(), mapped.size());
+        for (int i = 0; i < expected.size(); i++) {
+            String word = expected.get(i);
+            assertEquals(word, mapped.get(i));
+            assertEquals(word.length(), mapped.length(i), word);
+            assertEquals(WordlistCompiler.letterMask(word), mapped.letterMask(i), word);
+        }
+        assertEquals(expected, mapped);
+    }
+
+    @Test
+    void roundTrip() throws IOException {
+        MappedWordlist mapped = compile(List.of("the", "", "  Of  ", "don't", "caf\u00e9", "na\u00efve",
+                                                "\u65e5\u672c", "\ud83d\ude00ok", "x", "   ", "zebra"));
+        checkSame(List.of("the", "Of", "don't", "caf\u00e9", "na\u00efve", "\u65e5\u672c", "\ud83d\ude00ok", "x",
+                          "zebra"), mapped);
+        // capitals are the same letters, anything else sets the extra bit
+        assertEquals(WordlistCompiler.letterMask("of"), mapped.letterMask(1));
+        assertTrue((mapped.letterMask(2) & WordlistCompiler.OTHER_CHARS) != 0);
+        assertEquals(0, mapped.letterMask(0) & WordlistCompiler.OTHER_CHARS);
+        assertEquals(4, mapped.length(6)); // the emoji is two chars
+    }
+
+    @Test
+    void wholeWordlistRoundTrip() throws IOException {
+        List<String> words = Utils.getWordlist("1000en.txt");
+        MappedWordlist mapped = compile(words);
+        checkSame(words, mapped);
+
+        // and an index made from the mapped list (which uses its lengths and masks) finds the same words
+        WordIndex.Query query = new WordIndex.Query().length(3, 6).letters(WordIndex.HOME_ROW + "etr");
+        assertEquals(new WordIndex(words).find(query, 100), new WordIndex(mapped).find(query, 100));
+    }
+
+    @Test
+    void emptyList() throws IOException {
+        MappedWordlist mapped = compile(List.of("", " "));
+        assertEquals(0, mapped.size());
+        assertThrows(IndexOutOfBoundsException.class, () -> mapped.get(0));
+    }
+
+    @Test
+    void outOfRange() throws IOException {
+        MappedWordlist mapped = compile(List.of("a", "b"));
+        assertThrows(IndexOutOfBoundsException.class, () -> mapped.get(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> mapped.get(-1));
+        assertThrows(IndexOutOfBoundsException.class, () -> mapped.length(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> mapped.letterMask(-1));
+    }
+
+    @Test
+    void badFilesAreErrors() throws IOException {
+        compile(List.of("some", "words", "here"));
+        byte[] good = Files.readAllBytes(dir.resolve("list.twl"));
+        Path bad = dir.resolve("bad.twl");
+
+        Files.write(bad, "not a wordlist at all".getBytes(StandardCharsets.UTF_8));
+        IOException e = assertThrows(IOException.class, () -> MappedWordlist.open(bad));
+        assertTrue(e.getMessage().contains("bad header"), e.getMessage());
+
+        Files.write(bad, Arrays.copyOf(good, good.length - 1));
+        e = assertThrows(IOException.class, () -> MappedWordlist.open(bad));
+        assertTrue(e.getMessage().contains("truncated"), e.getMessage());
+
+        Files.write(bad, new byte[0]);
+        assertThrows(IOException.class, () -> MappedWordlist.open(bad));
+    }
+
+}
@@ -0,0 +1,144 @@
+package typer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PassagesTest {
+
+    private static final String QUOTED = "\u201cWell,\u201d she said, \u2018it\u2019s late\u2026 we should go"
+                                         + " \ud83d\ude00 home\u2014now.\u201d\nThe night was\n   cold and    the road"
+                                         + " was long, so they walked on in silence.";
+    private static final String QUOTED_TIDY = "\"Well,\" she said, 'it's late... we should go home-now.\" The night"
+                                              + " was cold and the road was long, so they walked on in silence.";
+
+    @TempDir
+    Path dir;
+
+    private static String sentence(int n) {
+        return String.format("Sentence %02d goes on for a while, just to fill the space up.", n);
+    }
+
+    /**
+     * A run of words with no end of a sentence in it, exactly some number of bytes long
+     */
+    private static String words(int bytes) {
+        String text = "abcd ".repeat(bytes / 5 + 1).substring(0, bytes);
+        return text.endsWith(" ") ? text.substring(0, bytes - 1) + "e" : text;
+    }
+
+    private Path write(String name, String... paragraphs) throws IOException {
+        Path path = dir.resolve(name);
+        Files.write(path, String.join("\n\n", paragraphs).getBytes(StandardCharsets.UTF_8));
+        return path;
+    }
+
+    private static List<String> readAll(Passages passages) throws IOException {
+        List<String> all = new ArrayList<String>();
+        for (int i = 0; i < passages.size(); i++) all.add(passages.read(i));
+        return all;
+    }
+
+    @Test
+    void findsAndTidiesPassages() throws IOException {
+        assertEquals(59, sentence(0).length());
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < 13; i++) {
+            if (i > 0) lines.append(i % 4 == 0 ? "\n" : " ");
+            lines.append(sentence(i));
+        }
+        Path path = write("book.txt",
+                          "CHAPTER I", QUOTED, lines.toString(),
+                          words(99), words(100), words(600), words(601),
+                          "Short one. " + words(700) + " and then some more. And another sentence that's fine.",
+                          "After the long ones, this paragraph is a normal length again, so it's a passage like the"
+                          + " others are.");
+
+        try (Passages passages = Passages.open(path)) {
+            List<String> first = new ArrayList<String>();
+            List<String> second = new ArrayList<String>();
+            for (int i = 0; i < 13; i++) (i < 10 ? first : second).add(sentence(i));
+            assertEquals(List.of(QUOTED_TIDY, String.join(" ", first), String.join(" ", second), words(100),
+                                 words(600),
+                                 "After the long ones, this paragraph is a normal length again, so it's a passage like"
+                                 + " the others are."),
+                         readAll(passages));
+            assertEquals(List.of("\"Well,\"", "she", "said,", "'it's", "late...", "we", "should", "go", "home-now.\"",
+                                 "The", "night", "was", "cold", "and", "the", "road", "was", "long,", "so", "they",
+                                 "walked", "on", "in", "silence."),
+                         passages.words(0));
+            // numbers wrap around
+            assertEquals(passages.read(0), passages.read(passages.size()));
+            assertEquals(passages.read(passages.size() - 1), passages.read(-1));
+        }
+        assertTrue(Files.isRegularFile(dir.resolve("book.tpi")));
+    }
+
+    @Test
+    void tidyMakesTextTypeable() {
+        assertEquals(QUOTED_TIDY, Passages.tidy(QUOTED));
+        assertEquals("a b c d", Passages.tidy("  a\u00a0b\t\u2003c\r\n\u0007d  "));
+        assertEquals("wait ...what... no", Passages.tidy("wait \u2026what\u2026 no"));
+        assertEquals("ok", Passages.tidy("\ufeffo\ud83d\ude00k"));
+        assertEquals("\"a\" 'b' -", Passages.tidy("\u201ea\u2033 \u201ab\u2032 \u2015"));
+    }
+
+    @Test
+    void indexIsOnlyRebuiltWhenTheTextChanges() throws IOException {
+        Path path = write("book.txt", words(200), words(300));
+        Path index = dir.resolve("book.tpi");
+        FileTime textTime = FileTime.fromMillis(1_000_000_000_000L);
+        FileTime indexTime = FileTime.fromMillis(1_000_000_100_000L);
+        Files.setLastModifiedTime(path, textTime);
+        try (Passages passages = Passages.open(path)) {
+            assertEquals(2, passages.size());
+        }
+
+        // newer than the text and for the same size, so it's used as it is
+        Files.setLastModifiedTime(index, indexTime);
+        try (Passages passages = Passages.open(path)) {
+            assertEquals(2, passages.size());
+        }
+        assertEquals(indexTime, Files.getLastModifiedTime(index));
+
+        // still older than the index, but a different size
+        Files.write(path, ("\n\n" + words(400)).getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        Files.setLastModifiedTime(path, textTime);
+        try (Passages passages = Passages.open(path)) {
+            assertEquals(3, passages.size());
+        }
+        assertNotEquals(indexTime, Files.getLastModifiedTime(index));
+
+        // the same size, but newer than the index
+        Files.setLastModifiedTime(index, indexTime);
+        Files.write(path, String.join("\n\n", words(200), words(300), words(150), words(248))
+                    .getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(path, FileTime.fromMillis(indexTime.toMillis() + 1000));
+        try (Passages passages = Passages.open(path)) {
+            assertEquals(4, passages.size());
+            assertEquals(words(150), passages.read(2));
+        }
+        assertNotEquals(indexTime, Files.getLastModifiedTime(index));
+    }
+
+    @Test
+    void textWithoutPassagesCantBeOpened() throws IOException {
+        Path path = write("short.txt", "Too short.", "Also too short.");
+        IOException e = assertThrows(IOException.class, () -> Passages.open(path));
+        assertTrue(e.getMessage().contains("doesn't have any passages"), e.getMessage());
+    }
+
+}
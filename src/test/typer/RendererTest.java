@@ -0,0 +1,138 @@
+package typer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+import org.jline.terminal.Size;
+import org.jline.terminal.Terminal;
+import org.jline.terminal.TerminalBuilder;
+import org.junit.jupiter.api.Test;
+
+class RendererTest {
+
+    private static final Theme THEME = new Theme("#FFFFFF", "#888888", "#FF0000", "#000000");
+
+    @Test
+    void flushIsOneWriteAndOnlyWhenSomethingChanged() throws IOException {
+        CountingStream out = new CountingStream();
+        Renderer screen = new Renderer(out, 40, 5, THEME);
+        screen.text(0, 0, "hello there", Theme.UNTYPED);
+        screen.flush();
+        assertEquals(1, out.writes);
+        assertEquals(1, out.flushes);
+
+        for (int i = 0; i < 5; i++) {
+            screen.put(0, i, "hello".charAt(i), Theme.TYPED);
+            screen.moveCursor(0, i + 1);
+            screen.flush();
+        }
+        assertEquals(6, out.writes);
+        assertEquals(6, out.flushes);
+
+        // the same cell again, and the cursor where it already is
+        screen.put(0, 4, 'o', Theme.TYPED);
+        screen.moveCursor(0, 5);
+        screen.flush();
+        assertEquals(6, out.writes);
+        assertEquals(6, out.flushes);
+    }
+
+    @Test
+    void oneWriteAndFlushPerKeyThroughAStreamTerminal() throws IOException {
+        List<String> words = List.of("the", "quick", "brown", "fox", "jumps");
+        byte[] keys = String.join(" ", words).getBytes(StandardCharsets.UTF_8);
+        CountingStream out = new CountingStream();
+        LockstepInput in = new LockstepInput(keys, out);
+        Terminal term = TerminalBuilder.builder().system(false).streams(in, new FrameOutput(out))
+                .size(new Size(100, 30)).type("xterm-256color").build();
+        try {
+            Typer typer = new Typer(words, THEME, term);
+            typer.setEndScreen(false);
+            int[] atReady = new int[2];
+            typer.setOnReady(() -> {
+                atReady[0] = out.writes;
+                atReady[1] = out.flushes;
+            });
+            typer.play();
+
+            // the input ends after the last letter, every key before then changed something on screen
+            assertEquals(keys.length, typer.getState().getCursor());
+            assertEquals(keys.length, typer.getFrameLatency().count());
+            // a frame for each key, then the one that resets the terminal at the end
+            assertEquals(keys.length + 1, out.writes - atReady[0]);
+            assertEquals(keys.length + 1, out.flushes - atReady[1]);
+            assertEquals(out.writes, out.flushes);
+        } finally {
+            term.close();
+        }
+    }
+
+    /**
+     * Counts the calls that would each be a syscall on a real terminal or socket
+     */
+    static class CountingStream extends OutputStream {
+
+        volatile int writes = 0;
+        volatile int flushes = 0;
+
+        @Override
+        public void write(int b) {
+            writes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            writes++;
+        }
+
+        @Override
+        public void flush() {
+            flushes++;
+        }
+
+    }
+
+    /**
+     * Hands out one key per read, and only once the frame for the key before it has been written, so every key is an
+     * input event of its own however fast the game is. It ends after the last key's frame.
+     */
+    static class LockstepInput extends InputStream {
+
+        private final byte[] keys;
+        private final CountingStream out;
+        private int next = 0;
+        private int seen = 0; // the writes when the last key was handed out
+
+        LockstepInput(byte[] keys, CountingStream out) {
+            this.keys = keys;
+            this.out = out;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            long deadline = System.nanoTime() + 5_000_000_000L;
+            while (out.writes == seen) {
+                if (System.nanoTime() > deadline) throw new IOException("the frame never came");
+                LockSupport.parkNanos(100_000);
+            }
+            if (next == keys.length) return -1;
+            seen = out.writes;
+            b[off] = keys[next++];
+            return 1;
+        }
+
+    }
+
+}
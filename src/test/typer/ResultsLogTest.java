@@ -0,0 +1,168 @@
+package typer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ResultsLogTest {
+
+    /**
+     * A result that can be told apart from the others by its word count
+     */
+    private static SessionResult result(int n) {
+        return new SessionResult("user" + n, 1000L * n, 1_000_000_000L * n, n, 5 * n, n % 3, 60 + n, 95,
+                                 List.of("word" + n), List.of("ab"));
+    }
+
+    private static void save(Path folder, int from, int to) throws IOException {
+        try (ResultsLog results = ResultsLog.open(folder, 0)) {
+            for (int i = from; i < to; i++) assertTrue(results.submit(result(i)));
+        }
+    }
+
+    private static List<Integer> numbers(List<SessionResult> results) {
+        ArrayList<Integer> numbers = new ArrayList<Integer>();
+        for (SessionResult result: results) numbers.add(result.getWords());
+        return numbers;
+    }
+
+    private static List<Integer> range(int from, int to) {
+        ArrayList<Integer> numbers = new ArrayList<Integer>();
+        for (int i = from; i < to; i++) numbers.add(i);
+        return numbers;
+    }
+
+    private static void truncate(Path file, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(size);
+        }
+    }
+
+    @Test
+    void resultsAreThereAfterReopening(@TempDir Path folder) throws IOException {
+        save(folder, 0, 10);
+        try (ResultsLog results = ResultsLog.open(folder)) {
+            assertEquals(10, results.size());
+            assertEquals(range(7, 10), numbers(results.last(3)));
+            assertEquals(range(0, 10), numbers(results.last(100)));
+            assertTrue(results.last(0).isEmpty());
+            assertThrows(IllegalArgumentException.class, () -> results.last(-1));
+
+            SessionResult fourth = results.get(4);
+            assertEquals("user4", fourth.getUser());
+            assertEquals(4000, fourth.getTime());
+            assertEquals(List.of("word4"), fourth.getWrongWords());
+            assertEquals(List.of("ab"), fourth.getSlowBigrams());
+        }
+    }
+
+    @Test
+    void tornLastResultIsCutOff(@TempDir Path folder) throws IOException {
+        save(folder, 0, 3);
+        Path log = folder.resolve("results.log");
+        truncate(log, Files.size(log) - 3); // like dying partway through writing the last one
+
+        try (ResultsLog results = ResultsLog.open(folder, 0)) {
+            assertEquals(2, results.size());
+            assertEquals(range(0, 2), numbers(results.last(10)));
+            results.submit(result(5));
+        }
+        try (ResultsLog results = ResultsLog.open(folder)) {
+            assertEquals(List.of(0, 1, 5), numbers(results.last(10)));
+        }
+    }
+
+    @Test
+    void corruptedLastResultFailsItsCrc(@TempDir Path folder) throws IOException {
+        save(folder, 0, 3);
+        Path log = folder.resolve("results.log");
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer last = ByteBuffer.allocate(1);
+            long pos = channel.size() - 1;
+            channel.read(last, pos);
+            last.put(0, (byte) ~last.get(0)).rewind();
+            channel.write(last, pos);
+        }
+        try (ResultsLog results = ResultsLog.open(folder)) {
+            assertEquals(range(0, 2), numbers(results.last(10)));
+        }
+        // and it was cut off, not just skipped
+        try (ResultsLog results = ResultsLog.open(folder)) {
+            assertEquals(2, results.size());
+        }
+    }
+
+    @Test
+    void missingIndexIsRebuilt(@TempDir Path folder) throws IOException {
+        save(folder, 0, 5);
+        Files.delete(folder.resolve("results.idx"));
+        try (ResultsLog results = ResultsLog.open(folder)) {
+            assertEquals(5, results.size());
+            assertEquals(3, results.get(3).getWords());
+        }
+        assertEquals(5 * 8, Files.size(folder.resolve("results.idx")));
+    }
+
+    @Test
+    void indexPastTheEndOfTheLogIsDropped(@TempDir Path folder) throws IOException {
+        save(folder, 0, 4);
+        long twoResults = Files.size(folder.resolve("results.log")) / 4 * 2; // they're all the same size
+        // the index got forced but the last two results didn't
+        truncate(folder.resolve("results.log"), twoResults);
+        try (ResultsLog results = ResultsLog.open(folder)) {
+            assertEquals(range(0, 2), numbers(results.last(10)));
+        }
+        assertEquals(2 * 8, Files.size(folder.resolve("results.idx")));
+    }
+
+    @Test
+    void compactKeepsTheNewest(@TempDir Path folder) throws IOException {
+        save(folder, 0, 10);
+        try (ResultsLog results = ResultsLog.open(folder, 0)) {
+            assertThrows(IllegalArgumentException.class, () -> results.compact(-1));
+            assertEquals(7, results.compact(3));
+            assertEquals(range(7, 10), numbers(results.last(10)));
+            assertEquals(0, results.compact(5));
+            results.submit(result(10));
+        }
+        try (ResultsLog results = ResultsLog.open(folder)) {
+            assertEquals(range(7, 11), numbers(results.last(10)));
+            assertEquals(7, results.get(0).getWords());
+        }
+        assertFalse(Files.exists(folder.resolve("results.log.tmp")));
+    }
+
+    @Test
+    void groupCommitWritesEveryResultInOrder(@TempDir Path folder) throws IOException {
+        CopyOnWriteArrayList<Integer> seen = new CopyOnWriteArrayList<Integer>();
+        // with a long sync interval, so the results only get forced when the log is closed
+        ResultsLog results = ResultsLog.open(folder, 60_000);
+        results.subscribe(r -> seen.add(r.getWords()), false);
+        for (int i = 0; i < 5000; i++) assertTrue(results.submit(result(i)));
+        results.close();
+        assertFalse(results.submit(result(5000)));
+        assertEquals(range(0, 5000), seen);
+
+        CopyOnWriteArrayList<Integer> replayed = new CopyOnWriteArrayList<Integer>();
+        try (ResultsLog reopened = ResultsLog.open(folder)) {
+            reopened.subscribe(r -> replayed.add(r.getWords()), true);
+            assertEquals(5000, reopened.size());
+        }
+        assertEquals(range(0, 5000), replayed);
+    }
+
+}
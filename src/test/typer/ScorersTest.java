@@ -0,0 +1,80 @@
+package typer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class ScorersTest {
+
+    private static final List<String> WORDS = List.of("the", "quick", "brown", "fox");
+    private static final long MS = 1_000_000;
+    private static final long MINUTE = 60_000 * MS;
+
+    private static GameState replay(String keys) {
+        return GameState.replay(WORDS, keys.chars().toArray(), keys.length(), null);
+    }
+
+    /**
+     * A log with a key after each of the gaps
+     */
+    private static KeystrokeLog keys(long... gapsMillis) {
+        KeystrokeLog log = new KeystrokeLog(64);
+        long time = 1000 * MS;
+        log.record('a', 'a', true, time);
+        for (long gap: gapsMillis) {
+            log.record('a', 'a', true, time += gap * MS);
+        }
+        return log;
+    }
+
+    @Test
+    void rawWpmCountsEverythingTyped() {
+        Scorer raw = new Scorers.RawWpm();
+        // 16 letters and 4 spaces is 4 words
+        assertEquals(4, raw.score(replay("the quick brown fox "), null, MINUTE));
+        assertEquals(8, raw.score(replay("the quick brown fox "), null, MINUTE / 2));
+        // a wrong letter still counts
+        assertEquals(4, raw.score(replay("thx quick brown fox "), null, MINUTE));
+    }
+
+    @Test
+    void netWpmTakesOffAWordForEachMistakeLeftIn() {
+        Scorer net = new Scorers.NetWpm();
+        assertEquals(4, net.score(replay("the quick brown fox "), null, MINUTE));
+        assertEquals(3, net.score(replay("thx quick brown fox "), null, MINUTE));
+        // a fixed mistake doesn't count
+        assertEquals(4, net.score(replay("thx\u007fe quick brown fox "), null, MINUTE));
+        // 13 letters and 4 spaces, less the 3 letters of "quick" that were skipped
+        assertEquals(0.4, net.score(replay("the qu brown fox "), null, MINUTE), 1e-9);
+        // never below 0
+        assertEquals(0, net.score(replay("t q b f "), null, MINUTE));
+    }
+
+    @Test
+    void consistencyIsHowEvenTheKeysWere() {
+        Scorer consistency = new Scorers.Consistency();
+        assertEquals(100, consistency.score(null, keys(150, 150, 150, 150), MINUTE));
+        // 100ms and 300ms: the mean is 200 and the spread is 100, so it's half as even as it could be
+        assertEquals(50, consistency.score(null, keys(100, 300, 100, 300), MINUTE));
+        // a spread bigger than the mean is as bad as it gets
+        assertEquals(0, consistency.score(null, keys(10, 10, 10, 1000), MINUTE));
+        // there's nothing to compare with only one time between keys
+        assertEquals(0, consistency.score(null, keys(150), MINUTE));
+    }
+
+    @Test
+    void builtInScorersAreFoundByName() {
+        assertEquals(List.of("net-wpm", "raw-wpm", "consistency"),
+                     Scorers.all().subList(0, 3).stream().map(Scorer::name).toList());
+        assertEquals("consistency", Scorers.get(List.of("consistency")).get(0).name());
+        assertEquals(Scorers.all(), Scorers.get(null));
+        assertThrows(IllegalArgumentException.class, () -> Scorers.get(List.of("nope")));
+        assertEquals(List.of("words", "time", "endless"),
+                     GameModes.all().subList(0, 3).stream().map(GameMode::name).toList());
+        assertThrows(IllegalArgumentException.class, () -> GameModes.get("nope"));
+    }
+
+}
@@ -0,0 +1,68 @@
+package typer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class SessionResultTest {
+
+    @Test
+    void encodeAndDecodeGiveTheSameResult() throws IOException {
+        KeyTrace trace = new KeyTrace(List.of("ab"), 4);
+        trace.record('a', 1_000_000_000L);
+        trace.record('b', 1_100_000_000L);
+        SessionResult result = new SessionResult("amy", 1234, 5_000_000_000L, 10, 50, 2, 120.5, 96.0,
+                                                 List.of("the", "fox"), List.of("th", "_q"), trace.encode());
+        SessionResult decoded = SessionResult.decode(result.encode());
+        assertEquals("amy", decoded.getUser());
+        assertEquals(1234, decoded.getTime());
+        assertEquals(5_000_000_000L, decoded.getDuration());
+        assertEquals(10, decoded.getWords());
+        assertEquals(50, decoded.getChars());
+        assertEquals(2, decoded.getMistakes());
+        assertEquals(120.5, decoded.getWpm());
+        assertEquals(96.0, decoded.getAccuracy());
+        assertEquals(List.of("the", "fox"), decoded.getWrongWords());
+        assertEquals(List.of("th", "_q"), decoded.getSlowBigrams());
+        assertTrue(decoded.hasTrace());
+        assertEquals(100_000_000L, decoded.getTrace().delta(1));
+
+        SessionResult untraced = SessionResult.decode(
+                new SessionResult("", 0, 0, 0, 0, 0, 0, 0, List.of(), List.of()).encode());
+        assertFalse(untraced.hasTrace());
+    }
+
+    @Test
+    void badBytesAreAnError() {
+        byte[] data = new SessionResult("amy", 0, 0, 0, 0, 0, 0, 0, List.of(), List.of()).encode();
+        data[0] = 2;
+        assertThrows(IOException.class, () -> SessionResult.decode(data));
+
+        byte[] traced = new SessionResult("amy", 0, 0, 0, 0, 0, 0, 0, List.of(), List.of(), new byte[40]).encode();
+        assertThrows(IOException.class, () -> SessionResult.decode(Arrays.copyOf(traced, traced.length - 1)));
+    }
+
+    @Test
+    void gameWithNoTimeHasAFiniteWpm() {
+        GameState state = new GameState(List.of("ab"));
+        SessionResult result = SessionResult.of("amy", state, 0, new KeystrokeStats(new KeystrokeLog(8)));
+        assertEquals(0, result.getWpm());
+        assertEquals(0, result.getDuration());
+
+        // a word with no time counts as taking a nanosecond, the same as the scorers do (it used to be infinite,
+        // which Math.round turned into Long.MAX_VALUE)
+        state.press('a');
+        state.press('b');
+        state.press(' ');
+        SessionResult instant = SessionResult.of("amy", state, 0, new KeystrokeStats(new KeystrokeLog(8)));
+        assertEquals(60_000_000_000.0, instant.getWpm());
+    }
+
+}
@@ -0,0 +1,145 @@
+package typer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class StatsEngineTest {
+
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+    private static final LocalDate EPOCH = LocalDate.ofEpochDay(0);
+
+    private static SessionResult result(String user, long time, double wpm, double accuracy, String... wrong) {
+        return new SessionResult(user, time, 1_000_000_000L, 10, 50, wrong.length, wpm, accuracy, List.of(wrong),
+                                 List.of());
+    }
+
+    @Test
+    void daysAddUp() {
+        StatsEngine engine = new StatsEngine(ZoneOffset.UTC);
+        engine.add(result("amy", 0, 60, 90));
+        engine.add(result("bob", DAY - 1, 80, 100)); // still the first day in UTC
+        engine.add(result("amy", 2 * DAY + 5, 100, 95));
+        assertEquals(3, engine.getGames());
+
+        List<StatsEngine.DayStats> days = engine.lastDays(10);
+        assertEquals(2, days.size());
+        assertEquals(EPOCH, days.get(0).getDay());
+        assertEquals(2, days.get(0).getGames());
+        assertEquals(70, days.get(0).getAverageWpm());
+        assertEquals(95, days.get(0).getAverageAccuracy());
+        assertEquals(80, days.get(0).getBestWpm());
+        assertEquals(EPOCH.plusDays(2), days.get(1).getDay());
+        assertEquals(1, days.get(1).getGames());
+
+        // the most recent ones, still oldest first
+        assertEquals(List.of(EPOCH.plusDays(2)), List.of(engine.lastDays(1).get(0).getDay()));
+    }
+
+    @Test
+    void daysAreWorkedOutInTheTimeZone() {
+        StatsEngine engine = new StatsEngine(ZoneOffset.ofHours(-5));
+        engine.add(result("amy", 2 * 60 * 60 * 1000L, 60, 90)); // 2am UTC is still the day before
+        assertEquals(EPOCH.minusDays(1), engine.lastDays(1).get(0).getDay());
+    }
+
+    @Test
+    void oldDaysAreDropped() {
+        StatsEngine engine = new StatsEngine(ZoneOffset.UTC);
+        for (int day = 0; day < StatsEngine.MAX_DAYS + 10; day++) {
+            engine.add(result("amy", day * DAY, day, 100));
+        }
+        List<StatsEngine.DayStats> days = engine.lastDays(Integer.MAX_VALUE);
+        assertEquals(StatsEngine.MAX_DAYS, days.size());
+        assertEquals(EPOCH.plusDays(10), days.get(0).getDay());
+        // but every game still counts for the rest
+        assertEquals(StatsEngine.MAX_DAYS + 10, engine.getGames());
+        assertEquals(StatsEngine.MAX_DAYS + 10, engine.getUser("amy").getGames());
+    }
+
+    @Test
+    void usersHaveARollingWpm() {
+        StatsEngine engine = new StatsEngine(ZoneOffset.UTC);
+        // 10 games at 50, then 10 at 80, with one at 120 in the middle of those
+        for (int i = 0; i < 20; i++) {
+            engine.add(result("amy", i, i < 10 ? 50 : i == 15 ? 120 : 80, 100));
+        }
+        engine.add(result("bob", 0, 90, 100));
+        engine.add(result("bob", 1, 70, 100));
+        engine.add(result("cat", 0, 60, 100));
+
+        StatsEngine.UserStats amy = engine.getUser("amy");
+        assertEquals(20, amy.getGames());
+        assertEquals(120, amy.getBestWpm());
+        assertEquals(84, amy.getRollingWpm(), 1e-9);
+        assertEquals(34, amy.getImprovement(), 1e-9);
+
+        StatsEngine.UserStats bob = engine.getUser("bob");
+        assertEquals(80, bob.getRollingWpm(), 1e-9);
+        assertEquals(0, bob.getImprovement(), 1e-9);
+        assertNull(engine.getUser("dan"));
+
+        List<String> names = new ArrayList<String>();
+        for (StatsEngine.UserStats user: engine.leaderboard(10)) names.add(user.getName());
+        assertEquals(List.of("amy", "bob", "cat"), names);
+        assertEquals(2, engine.leaderboard(2).size());
+    }
+
+    @Test
+    void percentilesAndMissedWordsMatchAnExactCount() {
+        StatsEngine engine = new StatsEngine(ZoneOffset.UTC);
+        SplittableRandom random = new SplittableRandom(1);
+        int n = 20_000;
+        double[] wpms = new double[n];
+        for (int i = 0; i < n; i++) {
+            wpms[i] = 30 + random.nextDouble(60) + random.nextDouble(60);
+            // "the" gets missed in most games, "which" in about half, and lots of others now and then
+            List<String> wrong = new ArrayList<String>();
+            if (random.nextInt(10) < 8) wrong.add("the");
+            if (random.nextInt(10) < 5) wrong.add("which");
+            if (random.nextInt(10) < 2) wrong.add("other");
+            wrong.add("rare" + random.nextInt(5000));
+            engine.add(result("user" + i % 50, i * 1000L, wpms[i], 100, wrong.toArray(new String[0])));
+        }
+        Arrays.sort(wpms);
+        for (double p: new double[] { 1, 10, 50, 90, 99 }) {
+            double exact = wpms[(int) (p / 100 * (n - 1))];
+            assertEquals(exact, engine.wpmPercentile(p), 1, "p" + p);
+        }
+        assertEquals(100, engine.accuracyPercentile(50));
+
+        List<String> missed = new ArrayList<String>();
+        engine.mostMissed(3).forEach(entry -> missed.add(entry.getKey()));
+        assertEquals(List.of("the", "which", "other"), missed);
+        int the = engine.mostMissed(1).get(0).getValue();
+        assertTrue(the > 0.78 * n && the < 0.82 * n, "the was missed " + the + " times");
+    }
+
+    @Test
+    void followsALog(@TempDir Path folder) throws IOException {
+        try (ResultsLog log = ResultsLog.open(folder, 0)) {
+            for (int i = 0; i < 5; i++) assertTrue(log.submit(result("amy", i, 60, 100)));
+        }
+        StatsEngine engine;
+        try (ResultsLog log = ResultsLog.open(folder, 0)) {
+            engine = StatsEngine.follow(log);
+            assertEquals(5, engine.getGames());
+            for (int i = 0; i < 3; i++) assertTrue(log.submit(result("bob", i, 90, 100)));
+        }
+        assertEquals(8, engine.getGames());
+        assertEquals(3, engine.getUser("bob").getGames());
+    }
+
+}
@@ -0,0 +1,103 @@
+package typer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.function.DoubleSupplier;
+
+import org.junit.jupiter.api.Test;
+
+class TDigestTest {
+
+    private static final double[] PERCENTILES = { 0.1, 1, 5, 10, 25, 50, 75, 90, 95, 99, 99.9 };
+
+    /**
+     * Adds a lot of values and checks every percentile against the exact one, by rank: the share of the values at
+     * or below the estimate has to be close to the percentile asked for. That's a lot tighter at the ends.
+     */
+    private static void check(DoubleSupplier values, int n) {
+        TDigest digest = new TDigest();
+        double[] exact = new double[n];
+        for (int i = 0; i < n; i++) {
+            exact[i] = values.getAsDouble();
+            digest.add(exact[i]);
+        }
+        Arrays.sort(exact);
+        assertEquals(n, digest.count());
+        assertEquals(exact[0], digest.min());
+        assertEquals(exact[n - 1], digest.max());
+        assertEquals(exact[0], digest.percentile(0));
+        assertEquals(exact[n - 1], digest.percentile(100));
+        for (double p: PERCENTILES) {
+            double estimate = digest.percentile(p);
+            double rank = 100.0 * rankOf(exact, estimate) / n;
+            // plus one value's worth, for when there aren't many
+            double tolerance = (p < 5 || p > 95 ? 0.2 : 1) + 100.0 / n;
+            assertTrue(Math.abs(rank - p) <= tolerance, "p" + p + " was " + estimate + ", at p" + rank);
+        }
+    }
+
+    /**
+     * How many values are at or below a value
+     */
+    private static int rankOf(double[] sorted, double value) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] <= value) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    @Test
+    void uniformPercentiles() {
+        SplittableRandom random = new SplittableRandom(1);
+        check(() -> random.nextDouble(20, 150), 100_000);
+    }
+
+    @Test
+    void normalPercentiles() {
+        SplittableRandom random = new SplittableRandom(2);
+        // like WPM: a bell around 70, made of a few uniform values added up
+        check(() -> 40 + random.nextDouble(20) + random.nextDouble(20) + random.nextDouble(20), 200_000);
+    }
+
+    @Test
+    void skewedPercentiles() {
+        SplittableRandom random = new SplittableRandom(3);
+        // like accuracy: mostly near 100, with a long tail down
+        check(() -> 100 + 10 * Math.log(1 - random.nextDouble()), 100_000);
+    }
+
+    @Test
+    void sortedInputPercentiles() {
+        int[] next = { 0 };
+        check(() -> next[0]++, 50_000);
+    }
+
+    @Test
+    void fewValuesPercentiles() {
+        // fewer than fill the buffer, so they're only merged when asked for
+        SplittableRandom random = new SplittableRandom(4);
+        check(() -> random.nextInt(1000), 300);
+    }
+
+    @Test
+    void emptyAndSingleValues() {
+        TDigest digest = new TDigest();
+        assertTrue(Double.isNaN(digest.percentile(50)));
+        assertTrue(Double.isNaN(digest.min()));
+        digest.add(Double.NaN);
+        assertEquals(0, digest.count());
+        digest.add(42);
+        assertEquals(42, digest.percentile(0));
+        assertEquals(42, digest.percentile(50));
+        assertEquals(42, digest.percentile(100));
+        assertEquals(1, digest.count());
+    }
+
+}
@@ -0,0 +1,144 @@
+package typer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TelnetInputTest {
+
+    private static final Theme THEME = new Theme("#FFFFFF", "#888888", "#FF0000", "#000000");
+
+    // what a client like netcat-telnet or PuTTY answers to the server's IAC WILL ECHO, IAC WILL SGA
+    private static final byte[] REPLY = bytes(255, 253, 1, 255, 253, 3, 255, 251, 31,
+                                              255, 250, 31, 0, 80, 0, 24, 255, 240);
+
+    private static byte[] bytes(int... values) {
+        byte[] b = new byte[values.length];
+        for (int i = 0; i < b.length; i++) b[i] = (byte) values[i];
+        return b;
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part: parts) out.writeBytes(part);
+        return out.toByteArray();
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buf = new byte[64];
+        int n;
+        while ((n = in.read(buf, 0, buf.length)) != -1) out.write(buf, 0, n);
+        return out.toByteArray();
+    }
+
+    @Test
+    void negotiationIsTakenOut() throws IOException {
+        byte[] in = concat(REPLY, "abc".getBytes(StandardCharsets.US_ASCII), bytes(255, 241, 255, 252, 3), bytes('d'));
+        assertArrayEquals("abcd".getBytes(StandardCharsets.US_ASCII),
+                          readAll(new TelnetInput(new ByteArrayInputStream(in))));
+    }
+
+    @Test
+    void commandsSplitAcrossReadsAreStillTakenOut() throws IOException {
+        byte[] in = concat(bytes('a'), REPLY, bytes('b', 255, 255, 'c'));
+        // one byte per read, so every command is cut up as much as it can be
+        InputStream trickle = new InputStream() {
+            private int next = 0;
+
+            @Override
+            public int read() {
+                return next < in.length ? in[next++] & 0xff : -1;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                int c = read();
+                if (c < 0) return -1;
+                b[off] = (byte) c;
+                return 1;
+            }
+        };
+        TelnetInput telnet = new TelnetInput(trickle);
+        assertEquals('a', telnet.read());
+        // the whole reply is read through before the next key comes back, never a 0
+        assertEquals('b', telnet.read());
+        assertEquals(255, telnet.read());
+        assertEquals('c', telnet.read());
+        assertEquals(-1, telnet.read());
+    }
+
+    @Test
+    void escapedIacStaysAsData() throws IOException {
+        // IAC IAC is a 255, including inside a subnegotiation (where it's dropped with the rest)
+        byte[] in = bytes('x', 255, 255, 255, 250, 31, 255, 255, 1, 255, 240, 'y');
+        assertArrayEquals(bytes('x', 255, 'y'), readAll(new TelnetInput(new ByteArrayInputStream(in))));
+    }
+
+    @Test
+    void nulAfterCrIsTakenOut() throws IOException {
+        byte[] in = bytes('a', '\r', 0, 'b', '\r', '\n', 0);
+        assertArrayEquals(bytes('a', '\r', 'b', '\r', '\n', 0),
+                          readAll(new TelnetInput(new ByteArrayInputStream(in))));
+    }
+
+    @Test
+    void negotiationNeverReachesTheGame(@TempDir Path folder) throws Exception {
+        TyperServer server = new TyperServer(List.of("aaaa"), THEME, 3, 80, 24);
+        ResultsLog results = ResultsLog.open(folder, 0);
+        server.setResultsLog(results);
+        try (ServerSocket socket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            Thread serving = new Thread(() -> {
+                try {
+                    server.serve(socket);
+                } catch (IOException e) {
+                    // the socket got closed at the end of the test
+                }
+            });
+            serving.setDaemon(true);
+            serving.start();
+
+            // a client that answers the options before typing, then presses enter the way telnet sends it
+            try (Socket client = new Socket(socket.getInetAddress(), socket.getLocalPort())) {
+                OutputStream out = client.getOutputStream();
+                out.write(REPLY);
+                out.write("aaaa aaaa aaaa ".getBytes(StandardCharsets.US_ASCII));
+                out.write(bytes('\r', 0));
+                out.flush();
+                client.getInputStream().transferTo(OutputStream.nullOutputStream()); // until the server hangs up
+            }
+            assertEquals(1, server.getFinishedGames());
+
+            // and a few of the load test's clients, which answer the same way
+            LoopbackClient.main(new String[] {
+                "--host", "127.0.0.1", "--port", Integer.toString(socket.getLocalPort()),
+                "--active", "3", "--words", "3", "--rate", "0"
+            });
+            assertEquals(4, server.getFinishedGames());
+            assertEquals(0, server.getFailedSessions());
+        }
+        results.close();
+
+        try (ResultsLog reopened = ResultsLog.open(folder)) {
+            SessionResult first = reopened.last(4).get(0);
+            assertEquals(3, first.getWords());
+            assertEquals(0, first.getMistakes());
+            assertEquals(100.0, first.getAccuracy());
+        }
+    }
+
+}
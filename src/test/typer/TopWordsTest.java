@@ -0,0 +1,94 @@
+package typer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+class TopWordsTest {
+
+    /**
+     * Counts a stream of words where the r-th most common one comes up about 1/r as often (like real mistakes), both
+     * with the sketch and exactly
+     */
+    private static Map<String, Integer> zipf(TopWords top, int distinct, int n, long seed) {
+        double[] cumulative = new double[distinct];
+        double total = 0;
+        for (int r = 0; r < distinct; r++) {
+            total += 1.0 / (r + 1);
+            cumulative[r] = total;
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        HashMap<String, Integer> exact = new HashMap<String, Integer>();
+        for (int i = 0; i < n; i++) {
+            int r = Arrays.binarySearch(cumulative, random.nextDouble(total));
+            String word = "word" + (r < 0 ? -r - 1 : r);
+            top.add(word);
+            exact.merge(word, 1, Integer::sum);
+        }
+        return exact;
+    }
+
+    private static List<String> exactTop(Map<String, Integer> exact, int amount) {
+        List<Map.Entry<String, Integer>> sorted = new ArrayList<Map.Entry<String, Integer>>(exact.entrySet());
+        sorted.sort((a, b) -> Integer.compare(b.getValue(), a.getValue()));
+        List<String> words = new ArrayList<String>();
+        for (int i = 0; i < amount; i++) words.add(sorted.get(i).getKey());
+        return words;
+    }
+
+    private static List<String> words(List<Map.Entry<String, Integer>> entries) {
+        List<String> words = new ArrayList<String>();
+        for (Map.Entry<String, Integer> entry: entries) words.add(entry.getKey());
+        return words;
+    }
+
+    @Test
+    void findsTheHeavyHitters() {
+        TopWords top = new TopWords(20);
+        Map<String, Integer> exact = zipf(top, 5000, 200_000, 1);
+        assertEquals(200_000, top.total());
+        // the top 10 are far enough apart that the order has to be right, not just the set
+        assertEquals(exactTop(exact, 10), words(top.top(10)));
+        List<Map.Entry<String, Integer>> found = top.top(20);
+        assertEquals(20, found.size());
+        for (Map.Entry<String, Integer> entry: found) {
+            assertTrue(entry.getValue() >= exact.get(entry.getKey()), entry.toString());
+        }
+        // only k are ever given out
+        assertEquals(20, top.top(100).size());
+    }
+
+    @Test
+    void estimatesAreNeverTooLowAndNotMuchTooHigh() {
+        int width = 1024;
+        TopWords top = new TopWords(10, width);
+        Map<String, Integer> exact = zipf(top, 20_000, 100_000, 2);
+        double error = 100_000.0 / width * Math.E;
+        int over = 0;
+        for (Map.Entry<String, Integer> entry: exact.entrySet()) {
+            int estimate = top.estimate(entry.getKey());
+            assertTrue(estimate >= entry.getValue(), entry + " was " + estimate);
+            if (estimate - entry.getValue() > error) over++;
+        }
+        // the bound is only for most of them (1 - 1/e^depth), not every one
+        assertTrue(over < exact.size() / 50, over + " over by more than " + error);
+    }
+
+    @Test
+    void aWordThatShowsUpLateStillGetsIn() {
+        TopWords top = new TopWords(5);
+        for (int i = 0; i < 10_000; i++) top.add("filler" + (i % 2000));
+        for (int i = 0; i < 100; i++) top.add("late");
+        assertEquals("late", top.top(1).get(0).getKey());
+        assertTrue(top.top(1).get(0).getValue() >= 100);
+    }
+
+}
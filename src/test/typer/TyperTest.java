@@ -0,0 +1,221 @@
+package typer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.jline.terminal.Size;
+import org.jline.terminal.Terminal;
+import org.jline.terminal.TerminalBuilder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.sun.management.ThreadMXBean;
+
+class TyperTest {
+
+    private static final Theme THEME = new Theme("#FFFFFF", "#888888", "#FF0000", "#000000");
+    private static final long MS = 1_000_000;
+
+    /**
+     * Plays a game with input that comes in chunks, each one after a pause
+     */
+    private static GameResult play(List<String> words, long pauseMillis, String... chunks) throws IOException {
+        Terminal term = TerminalBuilder.builder().system(false)
+                .streams(new PausingInput(pauseMillis, chunks), OutputStream.nullOutputStream())
+                .size(new Size(80, 24)).type("xterm-256color").build();
+        try {
+            Typer typer = new Typer(words, THEME, term);
+            typer.setEndScreen(false);
+            return typer.play();
+        } finally {
+            term.close();
+        }
+    }
+
+    @Test
+    void keysThatDontCountDontStartTheClock() throws IOException {
+        // an arrow, a paste, and a ctrl key, each followed by a long pause, then the game typed all at once
+        GameResult result = play(List.of("ab", "cd"), 300,
+                                 "\033[A", "\033[200~ab cd\033[201~", "\u0001", "ab cd ");
+        assertTrue(result.isFinished());
+        assertEquals(0, result.getSession().getMistakes());
+        assertTrue(result.getSession().getDuration() < 250 * MS,
+                   "took " + result.getSession().getDuration() / MS + "ms");
+    }
+
+    @Test
+    void clockStartsOnTheFirstTypedKey() throws IOException {
+        GameResult result = play(List.of("ab", "cd"), 200, "a", "b cd ");
+        assertTrue(result.isFinished());
+        assertTrue(result.getSession().getDuration() >= 150 * MS,
+                   "took " + result.getSession().getDuration() / MS + "ms");
+    }
+
+    @Test
+    void keysPastTheEndOfAWordAreCountedAsExtra() throws IOException {
+        Terminal term = TerminalBuilder.builder().system(false)
+                .streams(new PausingInput(0, "abxx cdy "), OutputStream.nullOutputStream())
+                .size(new Size(80, 24)).type("xterm-256color").build();
+        try {
+            Typer typer = new Typer(List.of("ab", "cd"), THEME, term);
+            typer.setEndScreen(false);
+            assertTrue(typer.play().isFinished());
+            assertEquals(3, typer.getState().getExtra());
+            assertEquals(0, typer.getState().getMistakes());
+            assertEquals(4, typer.getState().getCorrect());
+        } finally {
+            term.close();
+        }
+    }
+
+    @Test
+    void noKeyIsTakenAfterTheGame() throws IOException {
+        // the next key comes in after the game is over, so it's the host's (like a second game on the same terminal)
+        Terminal term = TerminalBuilder.builder().system(false)
+                .streams(new PausingInput(300, "ab cd ", "x"), OutputStream.nullOutputStream())
+                .size(new Size(80, 24)).type("xterm-256color").build();
+        try {
+            Typer typer = new Typer(List.of("ab", "cd"), THEME, term);
+            typer.setEndScreen(false);
+            assertTrue(typer.play().isFinished());
+            assertEquals('x', term.reader().read(5000));
+            for (Thread thread: Thread.getAllStackTraces().keySet()) {
+                assertFalse(thread.getName().equals("typer-input"), "the input thread is still running");
+            }
+        } finally {
+            term.close();
+        }
+    }
+
+    @Test
+    void quoteModeKeepsCapitalsAndLeavesOutWhatCantBeShown(@TempDir Path dir) throws IOException {
+        String text = "The Quick Brown Fox jumps over the lazy Dog, then it Runs far Away into the Woods to find its"
+                      + " Home again.";
+        Path path = dir.resolve("quote.txt");
+        Files.write(path, text.getBytes(StandardCharsets.UTF_8));
+        try (Passages passages = Passages.open(path)) {
+            // typed as it is, with an emoji that doesn't count as a key at all
+            GameState state = playQuote(passages, "The \ud83d\ude00Quick" + text.substring(9) + " ");
+            assertEquals(0, state.getMistakes());
+            assertEquals(0, state.getExtra());
+
+            // and the capitals count, where a wordlist game would have lowercased them
+            state = playQuote(passages, text.toLowerCase() + " ");
+            assertEquals(text.chars().filter(Character::isUpperCase).count(), state.getMistakes());
+        }
+    }
+
+    private static GameState playQuote(Passages passages, String keys) throws IOException {
+        Terminal term = TerminalBuilder.builder().system(false)
+                .streams(new PausingInput(0, keys), OutputStream.nullOutputStream())
+                .encoding(StandardCharsets.UTF_8).size(new Size(120, 24)).type("xterm-256color").build();
+        try {
+            Typer typer = new Typer(passages, 0, THEME, term);
+            typer.setEndScreen(false);
+            assertTrue(typer.play().isFinished());
+            return typer.getState();
+        } finally {
+            term.close();
+        }
+    }
+
+    private static String status(int width, long seconds, long wpm, long accuracy, int word, int words) {
+        char[] status = new char[width];
+        Arrays.fill(status, '#'); // so anything left over from before would show
+        Typer.formatStatus(status, seconds, wpm, accuracy, word, words);
+        return new String(status);
+    }
+
+    private static String padded(String text) {
+        return text + " ".repeat(40 - text.length());
+    }
+
+    @Test
+    void statusLineIsFilledInPlace() {
+        assertEquals(padded("0s   0 wpm   100%   0/50 words"), status(40, 0, 0, 100, 0, 50));
+        assertEquals(padded("12s   64 wpm   97%   20/50 words"), status(40, 12, 64, 97, 20, 50));
+        assertEquals(padded("3600s   180 wpm   100%   1234/1234 words"), status(40, 3600, 180, 100, 1234, 1234));
+        // an endless game has no amount of words
+        assertEquals(padded("7s   88 wpm   90%   31 words"), status(40, 7, 88, 90, 31, -1));
+    }
+
+    @Test
+    void statusLineCutsOffWhatDoesntFit() {
+        assertEquals("12s   64 wpm   97%   ", status(21, 12, 64, 97, 20, 50));
+        // a number that doesn't fit is left out instead of cut in half
+        assertEquals("12s   64 wpm   97%   /", status(22, 12, 64, 97, 12345, 50));
+        assertEquals("12s   64 wpm   97%   20/ ", status(25, 12, 64, 97, 20, 50_000));
+    }
+
+    @Test
+    void statusLineDoesntAllocate() {
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        char[] status = new char[40];
+        long allocated = 0;
+        // the first round warms up (the JVM allocates a little the first time through a loop), the second counts
+        for (int round = 0; round < 2; round++) {
+            long before = threads.getCurrentThreadAllocatedBytes();
+            for (int i = 0; i < 10_000; i++) {
+                Typer.formatStatus(status, i / 2, 40 + i % 90, 100 - i % 30, i / 3, 5000);
+            }
+            allocated = threads.getCurrentThreadAllocatedBytes() - before;
+        }
+        assertEquals(0, allocated);
+    }
+
+    /**
+     * Gives out each chunk in one read, pausing before every one after the first, then ends
+     */
+    static class PausingInput extends InputStream {
+
+        private final long pauseMillis;
+        private final byte[][] chunks;
+        private int next = 0;
+        private int at = 0; // how much of the current chunk has been read
+
+        PausingInput(long pauseMillis, String... chunks) {
+            this.pauseMillis = pauseMillis;
+            this.chunks = new byte[chunks.length][];
+            for (int i = 0; i < chunks.length; i++) this.chunks[i] = chunks[i].getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (next == chunks.length) return -1;
+            if (at == 0 && next > 0) {
+                try {
+                    Thread.sleep(pauseMillis);
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+            }
+            int n = Math.min(len, chunks[next].length - at);
+            System.arraycopy(chunks[next], at, b, off, n);
+            at += n;
+            if (at == chunks[next].length) {
+                next++;
+                at = 0;
+            }
+            return n;
+        }
+
+    }
+
+}
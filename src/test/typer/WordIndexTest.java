@@ -0,0 +1,212 @@
+package typer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.jupiter.api.Test;
+
+class WordIndexTest {
+
+    private static final List<String> WORDS = Utils.getWordlist("1000en.txt");
+    private static final WordIndex INDEX = new WordIndex(WORDS);
+
+    @Test
+    void lengthQueriesMatchAScan() {
+        check(new Spec().length(1, 1));
+        check(new Spec().length(5, 5));
+        check(new Spec().length(3, 7)); // lots of slices to merge back into rank order
+        check(new Spec().length(10, Integer.MAX_VALUE));
+        check(new Spec().length(40, 50));
+    }
+
+    @Test
+    void letterQueriesMatchAScan() {
+        check(new Spec().letters(WordIndex.HOME_ROW));
+        check(new Spec().letters("etaoin")); // few letters, so every subset gets looked up
+        check(new Spec().letters("abcdefghijklmnopqrst")); // too many for that, so every group gets scanned
+        check(new Spec().letters("ETAOIN"));
+        check(new Spec().letters("x"));
+    }
+
+    @Test
+    void containingQueriesMatchAScan() {
+        check(new Spec().containing("th"));
+        check(new Spec().containing("TH"));
+        check(new Spec().containing("ing"));
+        check(new Spec().containing("e")); // no pair of letters to start from
+        check(new Spec().containing("zzz"));
+    }
+
+    @Test
+    void topQueriesMatchAScan() {
+        check(new Spec().top(0));
+        check(new Spec().top(100));
+        check(new Spec().top(WORDS.size() + 10));
+    }
+
+    @Test
+    void combinedQueriesMatchAScan() {
+        check(new Spec().length(2, 5).letters(WordIndex.HOME_ROW));
+        check(new Spec().length(4, 8).containing("th").top(500));
+        check(new Spec().letters("etaoinshrd").containing("in"));
+        check(new Spec().length(3, 6).letters("abcdefghijklmnopqrst").containing("e").top(300));
+        check(new Spec().length(1, 3).top(50));
+    }
+
+    @Test
+    void limitGivesTheMostCommonMatches() {
+        for (Spec spec: List.of(new Spec().length(3, 7), new Spec().letters(WordIndex.HOME_ROW),
+                                new Spec().containing("th"), new Spec().length(2, 6).letters("etaoinshrd"))) {
+            List<String> expected = spec.scan(WORDS);
+            for (int limit: new int[] { 0, 1, 5, 20 }) {
+                assertEquals(expected.subList(0, Math.min(limit, expected.size())), INDEX.find(spec.query(), limit),
+                             spec + " limit " + limit);
+            }
+        }
+    }
+
+    @Test
+    void longWordsShareABucketButStillGetChecked() {
+        List<String> words = new ArrayList<String>();
+        for (int length: new int[] { 5, 31, 32, 33, 34, 40, 60 }) {
+            words.add("a".repeat(length));
+        }
+        words.add("b".repeat(34));
+        WordIndex index = new WordIndex(words);
+        checkAgainst(index, words, new Spec().length(33, 35));
+        checkAgainst(index, words, new Spec().length(32, 32));
+        checkAgainst(index, words, new Spec().length(31, 32));
+        checkAgainst(index, words, new Spec().length(34, 34).letters("b"));
+        checkAgainst(index, words, new Spec().length(35, Integer.MAX_VALUE));
+        assertEquals(List.of("a".repeat(33), "a".repeat(34), "b".repeat(34)),
+                     index.find(new WordIndex.Query().length(33, 35), 10));
+    }
+
+    @Test
+    void drillPicksMatchesAndNeverTheSameTwiceInARow() {
+        Spec spec = new Spec().length(2, 5).letters(WordIndex.HOME_ROW);
+        List<String> matching = spec.scan(WORDS);
+        assertTrue(matching.size() > 1);
+        for (int round = 0; round < 20; round++) {
+            List<String> picked = INDEX.drill(spec.query(), 200);
+            assertEquals(200, picked.size());
+            for (int i = 0; i < picked.size(); i++) {
+                assertTrue(matching.contains(picked.get(i)), picked.get(i));
+                if (i > 0) assertNotEquals(picked.get(i - 1), picked.get(i), "at " + i);
+            }
+        }
+    }
+
+    @Test
+    void drillFindsRareMatchesTheSlowWay() {
+        // two words with a q in thousands, and a single letter has no pair of letters to narrow it down, so guessing
+        // runs out of tries and it has to find all the matches instead
+        List<String> words = new ArrayList<String>();
+        for (int i = 0; i < 5000; i++) {
+            words.add("word" + i);
+        }
+        words.add(1234, "quick");
+        words.add(4321, "queen");
+        WordIndex index = new WordIndex(words);
+        List<String> picked = index.drill(new WordIndex.Query().containing("q"), 100);
+        assertEquals(100, picked.size());
+        for (int i = 0; i < picked.size(); i++) {
+            assertTrue(picked.get(i).equals("quick") || picked.get(i).equals("queen"), picked.get(i));
+            if (i > 0) assertNotEquals(picked.get(i - 1), picked.get(i), "at " + i);
+        }
+    }
+
+    @Test
+    void drillRepeatsTheOnlyMatchAndGivesNothingForNoMatch() {
+        List<String> words = List.of("the", "of", "and", "zebra");
+        WordIndex index = new WordIndex(words);
+        assertEquals(List.of("zebra", "zebra", "zebra"), index.drill(new WordIndex.Query().containing("zeb"), 3));
+        assertTrue(index.drill(new WordIndex.Query().containing("xyz"), 3).isEmpty());
+        assertTrue(INDEX.drill(new Spec().length(40, 50).query(), 10).isEmpty());
+        assertFalse(INDEX.drill(new WordIndex.Query(), 10).isEmpty());
+    }
+
+    private static void check(Spec spec) {
+        checkAgainst(INDEX, WORDS, spec);
+    }
+
+    private static void checkAgainst(WordIndex index, List<String> words, Spec spec) {
+        List<String> expected = spec.scan(words);
+        assertEquals(expected, index.find(spec.query(), Integer.MAX_VALUE), spec.toString());
+        assertEquals(expected.size(), index.count(spec.query()), spec.toString());
+    }
+
+    /**
+     * A query, kept so it can be done the slow way too: looking at every word in order
+     */
+    private static class Spec {
+
+        int minLength = 0;
+        int maxLength = Integer.MAX_VALUE;
+        String letters = null;
+        String containing = null;
+        int top = Integer.MAX_VALUE;
+
+        Spec length(int min, int max) {
+            minLength = min;
+            maxLength = max;
+            return this;
+        }
+
+        Spec letters(String letters) {
+            this.letters = letters;
+            return this;
+        }
+
+        Spec containing(String text) {
+            containing = text;
+            return this;
+        }
+
+        Spec top(int n) {
+            top = n;
+            return this;
+        }
+
+        WordIndex.Query query() {
+            WordIndex.Query query = new WordIndex.Query();
+            if (minLength > 0 || maxLength < Integer.MAX_VALUE) query.length(minLength, maxLength);
+            if (letters != null) query.letters(letters);
+            if (containing != null) query.containing(containing);
+            if (top < Integer.MAX_VALUE) query.top(top);
+            return query;
+        }
+
+        List<String> scan(List<String> words) {
+            List<String> found = new ArrayList<String>();
+            String allowed = letters == null ? null : letters.toLowerCase(Locale.ROOT);
+            for (int i = 0; i < words.size() && i < top; i++) {
+                String word = words.get(i);
+                if (word.length() < minLength || word.length() > maxLength) continue;
+                if (allowed != null && !word.toLowerCase(Locale.ROOT).chars().allMatch(c -> allowed.indexOf(c) >= 0)) {
+                    continue;
+                }
+                if (containing != null
+                    && !word.toLowerCase(Locale.ROOT).contains(containing.toLowerCase(Locale.ROOT))) {
+                    continue;
+                }
+                found.add(word);
+            }
+            return found;
+        }
+
+        @Override
+        public String toString() {
+            return "length " + minLength + "-" + maxLength + " letters " + letters + " containing " + containing
+                   + " top " + top;
+        }
+
+    }
+
+}
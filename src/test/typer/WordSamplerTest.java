@@ -0,0 +1,86 @@
+package typer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class WordSamplerTest {
+
+    private static List<String> words(int n) {
+        ArrayList<String> words = new ArrayList<String>(n);
+        for (int i = 0; i < n; i++) words.add("w" + i);
+        return words;
+    }
+
+    @Test
+    void sampleHasNoDuplicates() {
+        List<String> list = words(1000);
+        WordSampler sampler = new WordSampler(1);
+        for (int round = 0; round < 20; round++) {
+            ArrayList<String> picked = sampler.sample(list, 50);
+            assertEquals(50, picked.size());
+            assertEquals(50, new HashSet<String>(picked).size());
+            assertTrue(list.containsAll(picked));
+        }
+    }
+
+    @Test
+    void sameSeedPicksTheSameWords() {
+        List<String> list = words(1000);
+        WordSampler a = new WordSampler(42);
+        WordSampler b = new WordSampler(42);
+        for (int round = 0; round < 5; round++) {
+            assertEquals(a.sample(list, 30), b.sample(list, 30));
+            assertEquals(a.sampleWithReplacement(list, 30), b.sampleWithReplacement(list, 30));
+            assertEquals(a.reservoir(list.iterator(), 30), b.reservoir(list.iterator(), 30));
+        }
+        assertNotEquals(new WordSampler(1).sample(list, 30), new WordSampler(2).sample(list, 30));
+    }
+
+    @Test
+    void moreThanTheListGoesThroughEveryWordBeforeRepeating() {
+        List<String> list = words(10);
+        ArrayList<String> picked = new WordSampler(3).sample(list, 25);
+        assertEquals(25, picked.size());
+        assertEquals(10, new HashSet<String>(picked.subList(0, 10)).size());
+        assertEquals(10, new HashSet<String>(picked.subList(10, 20)).size());
+        assertEquals(5, new HashSet<String>(picked.subList(20, 25)).size());
+    }
+
+    @Test
+    void emptyListGivesNothing() {
+        WordSampler sampler = new WordSampler(4);
+        assertTrue(sampler.sample(List.of(), 5).isEmpty());
+        assertTrue(sampler.sampleWithReplacement(List.of(), 5).isEmpty());
+        assertTrue(sampler.reservoir(List.<String>of().iterator(), 5).isEmpty());
+    }
+
+    @Test
+    void reservoirIsUniformEnough() {
+        // 100 words, 10 picked 20,000 times: every word should come up about 2,000 times
+        List<String> list = words(100);
+        WordSampler sampler = new WordSampler(5);
+        int[] counts = new int[100];
+        for (int round = 0; round < 20_000; round++) {
+            ArrayList<String> picked = sampler.reservoir(list.iterator(), 10);
+            assertEquals(10, new HashSet<String>(picked).size());
+            for (String word: picked) counts[Integer.parseInt(word.substring(1))]++;
+        }
+        for (int i = 0; i < counts.length; i++) {
+            assertTrue(counts[i] > 1700 && counts[i] < 2300, "w" + i + " came up " + counts[i] + " times");
+        }
+    }
+
+    @Test
+    void reservoirWithFewerWordsReturnsThemAll() {
+        ArrayList<String> picked = new WordSampler(6).reservoir(words(7).iterator(), 10);
+        assertEquals(7, new HashSet<String>(picked).size());
+    }
+
+}
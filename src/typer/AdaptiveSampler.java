@@ -0,0 +1,300 @@
+package typer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Picks words for practice drills, favouring the words the player keeps getting wrong and the words with the letter
+ * transitions (bigrams) they're slowest at. A drill is a mix of three kinds of picks:
+ * <pre>
+ *   ERRORS    a word picked by how often (and how recently) it was wrong, from a Fenwick tree of weights
+ *   BIGRAMS   a slow bigram picked by its weight, then any word that has it in
+ *   the rest  any word from the list, so there's still some variety
+ * </pre>
+ * If there's no history for one of the first two yet, those picks come from the whole list instead.
+ *
+ * Each pick is O(log n) (the tree), or O(log 729) plus O(1) (the bigram, then a word from that bigram's list), so
+ * making a drill doesn't depend on how big the wordlist is. Adding a game only touches the words and bigrams in it.
+ *
+ * Older games count for less: instead of shrinking every weight after each game, the amount added for a new game
+ * grows by GROWTH each time, which works out the same, since only the weights compared to each other matter. When
+ * that amount gets huge everything is scaled back down (the only O(n) step, once every few thousand games).
+ *
+ * All the methods are synchronized, so it can be fed from a ResultsLog's writer thread with subscribe(), which is what
+ * AdaptiveSampler.follow(log, user, words) does.
+ */
+public class AdaptiveSampler {
+
+    public static final double ERRORS = 0.4; // the share of picks that come from missed words
+    public static final double BIGRAMS = 0.3; // the share of picks that come from slow bigrams
+    private static final double GROWTH = 1.05; // each game counts this much more than the one before it
+    private static final double RESCALE = 1e200; // when the increment gets this big, scale everything back down
+
+    private static final int SYMBOLS = 27; // a-z and space, the same as KeystrokeStats
+    private static final int SPACE = 26;
+
+    private final List<String> words;
+    private final SplittableRandom random;
+    private HashMap<String, Integer> indexOf = null; // made the first time a game is added
+
+    // missed words, tree[i] holds the sum of the weights in a range ending at word i - 1 (a Fenwick tree)
+    private final double[] tree;
+    private final double[] weights;
+    private double errorTotal = 0;
+
+    // slow bigrams, and the words that have each one in (from bigramWords[bigramStart[b]] up to
+    // bigramWords[bigramStart[b + 1]])
+    private final double[] bigramWeights = new double[SYMBOLS * SYMBOLS];
+    private final int[] bigramStart = new int[SYMBOLS * SYMBOLS + 1];
+    private final int[] bigramWords;
+
+    private double increment = 1; // how much a miss in the next game adds
+    private long games = 0;
+
+    /**
+     * Creates a sampler with a random seed
+     *
+     * @param words     The words to pick from, should be quick to index (like an ArrayList or MappedWordlist)
+     */
+    public AdaptiveSampler(List<String> words) {
+        this(words, new SplittableRandom());
+    }
+
+    /**
+     * Creates a sampler that always picks the same words for the same history
+     *
+     * @param words     The words to pick from
+     * @param seed      The seed for the random number generator
+     */
+    public AdaptiveSampler(List<String> words, long seed) {
+        this(words, new SplittableRandom(seed));
+    }
+
+    private AdaptiveSampler(List<String> words, SplittableRandom random) {
+        this.words = words;
+        this.random = random;
+        int n = words.size();
+        this.tree = new double[n + 1];
+        this.weights = new double[n];
+
+        // which words have each bigram, counted first so it all fits in one array. A word that has a bigram twice is
+        // only listed once for it
+        int[] seen = new int[SYMBOLS * SYMBOLS];
+        Arrays.fill(seen, -1);
+        for (int i = 0; i < n; i++) {
+            String word = words.get(i);
+            for (int j = 0; j <= word.length(); j++) {
+                int b = bigram(word, j);
+                if (b != -1 && seen[b] != i) {
+                    seen[b] = i;
+                    bigramStart[b + 1]++;
+                }
+            }
+        }
+        for (int b = 0; b < SYMBOLS * SYMBOLS; b++) {
+            bigramStart[b + 1] += bigramStart[b];
+        }
+        this.bigramWords = new int[bigramStart[SYMBOLS * SYMBOLS]];
+        int[] fill = Arrays.copyOf(bigramStart, SYMBOLS * SYMBOLS);
+        Arrays.fill(seen, -1);
+        for (int i = 0; i < n; i++) {
+            String word = words.get(i);
+            for (int j = 0; j <= word.length(); j++) {
+                int b = bigram(word, j);
+                if (b != -1 && seen[b] != i) {
+                    seen[b] = i;
+                    bigramWords[fill[b]++] = i;
+                }
+            }
+        }
+    }
+
+    /**
+     * Builds a sampler from one player's games in a log, and keeps it up to date with the games they play after that.
+     * The log can have other people's games in it too (like the server's), and those are left out.
+     *
+     * @param log       The results log
+     * @param user      The player whose mistakes count
+     * @param words     The words to pick from
+     * @return          The sampler
+     * @throws IOException if the log can't be read
+     */
+    public static AdaptiveSampler follow(ResultsLog log, String user, List<String> words) throws IOException {
+        AdaptiveSampler sampler = new AdaptiveSampler(words);
+        log.subscribe(result -> {
+            if (user.equals(result.getUser())) sampler.add(result);
+        }, true);
+        return sampler;
+    }
+
+    /**
+     * Adds a finished game: each word that was wrong and each of the slowest bigrams gets more likely to come up.
+     * Words that aren't in this sampler's list are ignored.
+     *
+     * @param result    The game's results
+     */
+    public synchronized void add(SessionResult result) {
+        if (indexOf == null) {
+            indexOf = new HashMap<String, Integer>(words.size() * 2);
+            for (int i = 0; i < words.size(); i++) {
+                indexOf.putIfAbsent(words.get(i), i);
+            }
+        }
+
+        for (String word: result.getWrongWords()) {
+            Integer i = indexOf.get(word);
+            if (i == null) continue;
+            weights[i] += increment;
+            errorTotal += increment;
+            for (int j = i + 1; j < tree.length; j += j & -j) {
+                tree[j] += increment;
+            }
+        }
+        for (String pair: result.getSlowBigrams()) {
+            if (pair.length() != 2) continue;
+            int a = symbol(pair.charAt(0) == '_' ? ' ' : pair.charAt(0));
+            int b = symbol(pair.charAt(1) == '_' ? ' ' : pair.charAt(1));
+            if (a != -1 && b != -1) bigramWeights[a * SYMBOLS + b] += increment;
+        }
+
+        games++;
+        increment *= GROWTH;
+        if (increment > RESCALE) rescale();
+    }
+
+    /**
+     * Picks words for a drill. The same word can come up more than once, but never twice in a row (unless the
+     * list only has one word).
+     *
+     * @param amount    How many words to pick
+     * @return          The picked words
+     */
+    public synchronized ArrayList<String> drill(int amount) {
+        ArrayList<String> picked = new ArrayList<String>(amount);
+        int n = words.size();
+        if (n == 0) return picked;
+
+        // the running total of the bigram weights (only the ones some word has), so one can be picked by
+        // binary search
+        double[] cumulative = new double[SYMBOLS * SYMBOLS];
+        double bigramTotal = 0;
+        for (int b = 0; b < cumulative.length; b++) {
+            if (bigramStart[b + 1] > bigramStart[b]) bigramTotal += bigramWeights[b];
+            cumulative[b] = bigramTotal;
+        }
+
+        int last = -1;
+        for (int i = 0; i < amount; i++) {
+            int word = pick(cumulative, bigramTotal);
+            for (int tries = 0; word == last && tries < 3; tries++) {
+                word = pick(cumulative, bigramTotal);
+            }
+            if (word == last && n > 1) word = (word + 1 + random.nextInt(n - 1)) % n;
+            picked.add(words.get(word));
+            last = word;
+        }
+        return picked;
+    }
+
+    /**
+     * @return  How many games have been added
+     */
+    public synchronized long getGames() {
+        return games;
+    }
+
+    /**
+     * Gets how likely a word is to be picked by the missed words part of a drill
+     *
+     * @param word      The word's index in the list
+     * @return          Its share of the missed word weights, from 0 to 1
+     */
+    public synchronized double errorShare(int word) {
+        return errorTotal == 0 ? 0 : weights[word] / errorTotal;
+    }
+
+    /**
+     * Picks one word, by its index in the list
+     */
+    private int pick(double[] cumulative, double bigramTotal) {
+        double r = random.nextDouble();
+        if (r < ERRORS && errorTotal > 0) {
+            return findWeight(random.nextDouble() * errorTotal);
+        }
+        if (r < ERRORS + BIGRAMS && bigramTotal > 0) {
+            // the first bigram with a running total past the target, which always has some words since the ones
+            // without any don't add to the total
+            double target = random.nextDouble() * bigramTotal;
+            int low = 0;
+            int high = cumulative.length - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (cumulative[mid] <= target) low = mid + 1;
+                else high = mid;
+            }
+            int count = bigramStart[low + 1] - bigramStart[low];
+            if (count > 0) return bigramWords[bigramStart[low] + random.nextInt(count)];
+        }
+        return random.nextInt(words.size());
+    }
+
+    /**
+     * Walks down the Fenwick tree to find the word where the running total of the weights passes a target
+     */
+    private int findWeight(double target) {
+        int pos = 0;
+        for (int step = Integer.highestOneBit(weights.length); step > 0; step >>= 1) {
+            int next = pos + step;
+            if (next < tree.length && tree[next] <= target) {
+                pos = next;
+                target -= tree[next];
+            }
+        }
+        // rounding can leave it just past the last word with any weight
+        return Math.min(pos, weights.length - 1);
+    }
+
+    /**
+     * Scales every weight down so the increment is back to 1, and rebuilds the tree (which also gets rid of any
+     * rounding errors that built up in it)
+     */
+    private void rescale() {
+        double scale = 1 / increment;
+        increment = 1;
+        errorTotal = 0;
+        Arrays.fill(tree, 0);
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] *= scale;
+            errorTotal += weights[i];
+            tree[i + 1] += weights[i];
+            int parent = i + 1 + ((i + 1) & -(i + 1));
+            if (parent < tree.length) tree[parent] += tree[i + 1];
+        }
+        for (int b = 0; b < bigramWeights.length; b++) {
+            bigramWeights[b] *= scale;
+        }
+    }
+
+    /**
+     * Gets the bigram ending at a position in a word, where the spots before and after the word count as a space
+     *
+     * @return  The bigram's index, or -1 if it has a character that isn't a letter
+     */
+    private static int bigram(String word, int end) {
+        int a = end == 0 ? SPACE : symbol(word.charAt(end - 1));
+        int b = end == word.length() ? SPACE : symbol(word.charAt(end));
+        if (a == -1 || b == -1) return -1;
+        return a * SYMBOLS + b;
+    }
+
+    private static int symbol(char ch) {
+        if (ch >= 'a' && ch <= 'z') return ch - 'a';
+        if (ch == ' ') return SPACE;
+        return -1;
+    }
+
+}
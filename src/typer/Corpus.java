@@ -0,0 +1,307 @@
+package typer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps wordlists loaded so lots of games (or lots of server sessions) don't each read their own copy. Each list is
+ * loaded once, and then handed out to everyone who asks for it:
+ * <pre>
+ *   pool      every word from every loaded list, once. A word that's in ten lists (like "a" or "ok") is one String,
+ *             and it's counted by how many lists have it, so it goes when the last of them does
+ *   lists     the loaded lists, least recently used first. When the estimated heap for the pool and the lists
+ *             goes over the limit, the least recently used ones are dropped until it fits
+ * </pre>
+ * If two threads ask for a list that isn't loaded, only the first one loads it and the other waits for it. Loading
+ * happens outside the lock, so asking for a list that's already loaded never waits for a different one to load.
+ *
+ * Compiled .twl lists (see Utils.openWordlist) are memory mapped and decode words when they're asked for, so there's
+ * nothing to pool for those, and they only count for their header.
+ *
+ * A dropped list stays in memory for as long as a game still has it, it just isn't handed out any more, and the next
+ * get() loads it again.
+ *
+ * Run it with: java typer.Corpus [wordlist ...], to see how much memory some lists take
+ */
+public class Corpus {
+
+    public static final long DEFAULT_LIMIT = 64L << 20; // bytes of heap for the shared corpus
+    private static final long ENTRY_BYTES = 64; // the pool's map node, its slot in the table, and the Pooled, about
+
+    private static final Corpus SHARED = new Corpus(DEFAULT_LIMIT);
+
+    private final long limit;
+    private final ConcurrentHashMap<String, Pooled> pool = new ConcurrentHashMap<String, Pooled>();
+    private final AtomicLong poolBytes = new AtomicLong();
+
+    // guarded by this
+    private final LinkedHashMap<String, Entry> lists = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+    private long listBytes = 0; // the arrays and indexes of the loaded lists (the words are in poolBytes)
+    private long loads = 0;
+    private long evictions = 0;
+
+    /**
+     * Creates an empty corpus
+     *
+     * @param limit     About how many bytes of heap the pool and the lists can use before lists get dropped
+     */
+    public Corpus(long limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * @return  The corpus everything in this process shares, with a limit of DEFAULT_LIMIT
+     */
+    public static Corpus shared() {
+        return SHARED;
+    }
+
+    /**
+     * Gets a wordlist from the words folder, loading it if it isn't already
+     *
+     * @param filename  The name of the file in the words folder, like "1000en.txt"
+     * @return          The words, which can't be changed
+     */
+    public List<String> get(String filename) {
+        Entry entry;
+        boolean load = false;
+        synchronized (this) {
+            entry = lists.get(filename);
+            if (entry == null) {
+                entry = new Entry();
+                lists.put(filename, entry);
+                load = true;
+            }
+        }
+
+        if (load) {
+            try {
+                List<String> words = load(filename, entry);
+                synchronized (this) {
+                    loads++;
+                    listBytes += entry.bytes;
+                    evict(entry);
+                }
+                entry.words.complete(words);
+            } catch (RuntimeException e) {
+                // let the next get() try again
+                synchronized (this) {
+                    lists.remove(filename, entry);
+                }
+                entry.words.completeExceptionally(e);
+            }
+        }
+
+        try {
+            return entry.words.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted waiting for " + filename + " to load", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("couldn't load " + filename, e.getCause());
+        }
+    }
+
+    /**
+     * Gets the index for a wordlist, loading the list and making the index if they aren't already. The index is kept
+     * with the list (and counts towards the limit), and goes when the list does.
+     *
+     * @param filename  The name of the file in the words folder
+     * @return          The index
+     */
+    public WordIndex index(String filename) {
+        List<String> words = get(filename);
+        Entry entry;
+        synchronized (this) {
+            entry = lists.get(filename);
+        }
+        if (entry == null) return new WordIndex(words); // already dropped again, so there's nowhere to keep it
+
+        // only one thread makes it, the same as loading the list
+        synchronized (entry) {
+            if (entry.index == null) {
+                entry.index = new WordIndex(words);
+                synchronized (this) {
+                    if (lists.get(filename) == entry) {
+                        entry.bytes += entry.index.getBytes();
+                        listBytes += entry.index.getBytes();
+                        evict(entry);
+                    }
+                }
+            }
+            return entry.index;
+        }
+    }
+
+    /**
+     * Reads a list and puts its words in the pool. A list that can't be read (or has no words) throws, so it isn't
+     * kept and handed out empty to every game after
+     */
+    private List<String> load(String filename, Entry entry) {
+        List<String> opened;
+        try {
+            opened = Utils.openWordlist(filename);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (opened.isEmpty()) throw new IllegalStateException(filename + " has no words");
+        if (opened instanceof MappedWordlist) {
+            entry.bytes = WordlistCompiler.HEADER_SIZE;
+            return opened;
+        }
+
+        String[] words = new String[opened.size()];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = intern(opened.get(i));
+        }
+        entry.pooled = words;
+        entry.bytes = 16 + 4L * words.length; // the array, with compressed references
+        return Collections.unmodifiableList(Arrays.asList(words));
+    }
+
+    /**
+     * Gets the pooled copy of a word, adding it if it's new, and counts one more list as having it
+     */
+    private String intern(String word) {
+        Pooled pooled = pool.compute(word, (key, existing) -> {
+            if (existing == null) {
+                poolBytes.addAndGet(ENTRY_BYTES + stringBytes(key));
+                return new Pooled(key);
+            }
+            existing.lists++;
+            return existing;
+        });
+        return pooled.word;
+    }
+
+    /**
+     * Counts one less list as having a word, and takes it out of the pool if that was the last one
+     */
+    private void release(String word) {
+        pool.computeIfPresent(word, (key, existing) -> {
+            if (--existing.lists > 0) return existing;
+            poolBytes.addAndGet(-ENTRY_BYTES - stringBytes(key));
+            return null;
+        });
+    }
+
+    /**
+     * Drops the least recently used lists until the corpus fits in its limit again. Lists that are still loading
+     * are skipped, and so is the one that was just loaded (a single list that's bigger than the limit stays until
+     * another one is loaded).
+     */
+    private void evict(Entry keep) {
+        Iterator<Map.Entry<String, Entry>> it = lists.entrySet().iterator();
+        while (listBytes + poolBytes.get() > limit && it.hasNext()) {
+            Entry entry = it.next().getValue();
+            if (entry == keep || !entry.words.isDone()) continue;
+            it.remove();
+            listBytes -= entry.bytes;
+            evictions++;
+            if (entry.pooled != null) {
+                for (String word: entry.pooled) {
+                    release(word);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return  The estimated heap used by the pool and the loaded lists, in bytes
+     */
+    public synchronized long getBytes() {
+        return listBytes + poolBytes.get();
+    }
+
+    /**
+     * @return  How many different words are in the pool
+     */
+    public int getPoolSize() {
+        return pool.size();
+    }
+
+    /**
+     * @return  The names of the loaded lists, least recently used first
+     */
+    public synchronized List<String> getLoaded() {
+        return new ArrayList<String>(lists.keySet());
+    }
+
+    /**
+     * @return  How many times a list has been loaded (more than once if it was dropped and asked for again)
+     */
+    public synchronized long getLoads() {
+        return loads;
+    }
+
+    /**
+     * @return  How many lists have been dropped to stay under the limit
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Estimates the heap a String takes with compressed references: the object, and its byte[] (one byte per char
+     * for Latin-1 strings, two for anything else), each rounded up to 8 bytes
+     */
+    static long stringBytes(String word) {
+        boolean latin1 = true;
+        for (int i = 0; i < word.length() && latin1; i++) {
+            latin1 = word.charAt(i) < 256;
+        }
+        long array = 16 + (long) word.length() * (latin1 ? 1 : 2);
+        return 24 + ((array + 7) & ~7L);
+    }
+
+    /**
+     * A word in the pool, and how many loaded lists have it
+     */
+    private static class Pooled {
+
+        final String word;
+        int lists = 1;
+
+        Pooled(String word) {
+            this.word = word;
+        }
+
+    }
+
+    /**
+     * A list that's loaded, or being loaded
+     */
+    private static class Entry {
+
+        final CompletableFuture<List<String>> words = new CompletableFuture<List<String>>();
+        String[] pooled = null; // the words, if they're in the pool (not a mapped list)
+        WordIndex index = null; // made the first time it's asked for, guarded by the entry
+        long bytes = 0; // the list's array and its index, guarded by the corpus
+
+    }
+
+    public static void main(String[] args) {
+        Corpus corpus = new Corpus(Long.MAX_VALUE);
+        long start = System.nanoTime();
+        long words = 0;
+        for (String name: args.length > 0 ? args : new String[] { Utils.DEFAULT_WORDLIST }) {
+            words += corpus.get(name).size();
+        }
+        System.out.println("lists:      " + corpus.getLoaded().size() + " (" + words + " words, read in "
+                           + (System.nanoTime() - start) / 1_000_000 + "ms)");
+        System.out.println("pool:       " + corpus.getPoolSize() + " different words");
+        System.out.println("heap:       about " + corpus.getBytes() / 1024 + "KB");
+    }
+
+}
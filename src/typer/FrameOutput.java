@@ -0,0 +1,59 @@
+package typer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Goes between a terminal made from streams and the stream it writes to, so each frame is still one write. JLine's
+ * stream terminals (TerminalBuilder.builder().system(false).streams(in, out)) put every byte through their output
+ * processing and write it to the stream by itself, then flush twice, so without this a frame from the Renderer would
+ * be a write per byte (a packet per byte on a socket with TCP_NODELAY). This keeps the bytes until a flush, then
+ * writes them all at once and flushes, and a flush with nothing new does nothing.
+ */
+public class FrameOutput extends OutputStream {
+
+    private final OutputStream out;
+    private byte[] buf = new byte[8192]; // grows to the biggest frame, which is a whole screen at most
+    private int len = 0;
+
+    /**
+     * @param out   The stream the frames go to, like a socket's
+     */
+    public FrameOutput(OutputStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void write(int b) {
+        if (len == buf.length) grow(1);
+        buf[len++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int length) {
+        if (len + length > buf.length) grow(length);
+        System.arraycopy(b, off, buf, len, length);
+        len += length;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (len == 0) return;
+        out.write(buf, 0, len);
+        len = 0;
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        out.close();
+    }
+
+    private void grow(int extra) {
+        byte[] bigger = new byte[Math.max(buf.length * 2, len + extra)];
+        System.arraycopy(buf, 0, bigger, 0, len);
+        buf = bigger;
+    }
+
+}
@@ -0,0 +1,40 @@
+package typer;
+
+import java.util.List;
+
+/**
+ * A way of playing, like a set amount of words or a time limit. Modes are plugins, the same way scorers are: any
+ * class listed in a META-INF/services/typer.GameMode file gets found by ServiceLoader (see GameModes), and
+ * GameOptions picks one by name.
+ *
+ * A mode only sets the game up, before it starts. Once it has, the game runs the same way whatever the mode is, so the
+ * per-key path never calls into one.
+ */
+public interface GameMode {
+
+    /**
+     * @return  What GameOptions picks it by, like "words"
+     */
+    String name();
+
+    /**
+     * Picks the words the game starts with
+     *
+     * @param wordlist  The wordlist from the options
+     * @param options   The options
+     * @param sampler   What to pick them with, it's seeded if the options have a seed
+     * @return          The words, in the order they have to be typed
+     */
+    List<String> words(List<String> wordlist, GameOptions options, WordSampler sampler);
+
+    /**
+     * Sets anything else the mode needs on the game, like a time limit. Streaming modes keep picking words from the
+     * wordlist with the same sampler.
+     *
+     * @param game      The game, which hasn't started yet
+     * @param options   The options
+     */
+    default void configure(Typer game, GameOptions options) {
+    }
+
+}
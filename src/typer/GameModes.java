@@ -0,0 +1,110 @@
+package typer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.ServiceLoader;
+
+/**
+ * Finds the game modes, and has the built-in ones ("words", "time" and "endless"). Like Scorers, the built-in ones
+ * are registered in META-INF/services/typer.GameMode, and added anyway if they weren't found.
+ */
+public class GameModes {
+
+    private static List<GameMode> all = null; // loaded the first time they're asked for
+
+    private GameModes() {
+    }
+
+    /**
+     * @return  Every mode there is, the built-in ones first
+     */
+    public static synchronized List<GameMode> all() {
+        if (all == null) {
+            ArrayList<GameMode> found = new ArrayList<GameMode>();
+            for (GameMode mode: ServiceLoader.load(GameMode.class)) {
+                if (find(found, mode.name()) == null) found.add(mode);
+            }
+            GameMode[] builtIn = { new Words(), new Time(), new Endless() };
+            for (int i = builtIn.length - 1; i >= 0; i--) {
+                if (find(found, builtIn[i].name()) == null) found.add(0, builtIn[i]);
+            }
+            all = Collections.unmodifiableList(found);
+        }
+        return all;
+    }
+
+    /**
+     * Picks a mode by name
+     *
+     * @param name      The name
+     * @return          The mode
+     * @throws IllegalArgumentException if there isn't one called that
+     */
+    public static GameMode get(String name) {
+        GameMode mode = find(all(), name);
+        if (mode == null) throw new IllegalArgumentException("there's no game mode called " + name);
+        return mode;
+    }
+
+    private static GameMode find(List<GameMode> modes, String name) {
+        for (GameMode mode: modes) {
+            if (mode.name().equals(name)) return mode;
+        }
+        return null;
+    }
+
+    /**
+     * A set amount of words, the game's over once they're all typed
+     */
+    public static class Words implements GameMode {
+
+        public String name() {
+            return "words";
+        }
+
+        public List<String> words(List<String> wordlist, GameOptions options, WordSampler sampler) {
+            return sampler.sample(wordlist, options.getWords());
+        }
+
+    }
+
+    /**
+     * Plays until the time limit runs out (30 seconds if the options don't have one)
+     */
+    public static class Time implements GameMode {
+
+        public String name() {
+            return "time";
+        }
+
+        public List<String> words(List<String> wordlist, GameOptions options, WordSampler sampler) {
+            return sampler.sample(wordlist, options.getWords());
+        }
+
+        public void configure(Typer game, GameOptions options) {
+            game.setTimeLimit(options.getTimeLimit() > 0 ? options.getTimeLimit() : 30);
+        }
+
+    }
+
+    /**
+     * Keeps going until escape is pressed
+     */
+    public static class Endless implements GameMode {
+
+        public String name() {
+            return "endless";
+        }
+
+        public List<String> words(List<String> wordlist, GameOptions options, WordSampler sampler) {
+            return sampler.sample(wordlist, options.getWords());
+        }
+
+        public void configure(Typer game, GameOptions options) {
+            game.setEndless(true);
+        }
+
+    }
+
+}
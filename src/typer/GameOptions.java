@@ -0,0 +1,204 @@
+package typer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Everything about how a game is set up, for making one with Typer.builder(). It can't be changed once it's built,
+ * so one can be shared by lots of games.
+ *
+ * <pre>
+ *   GameOptions options = GameOptions.builder().words(25).seed(42).scorers("net-wpm", "consistency").build();
+ * </pre>
+ */
+public class GameOptions {
+
+    private final String mode;
+    private final int words;
+    private final int timeLimit;
+    private final String wordlist;
+    private final Theme theme;
+    private final Long seed;
+    private final List<String> scorers;
+    private final boolean endScreen;
+
+    private GameOptions(Builder builder) {
+        this.mode = builder.mode != null ? builder.mode : builder.timeLimit > 0 ? "time" : "words";
+        this.words = builder.words;
+        this.timeLimit = builder.timeLimit;
+        this.wordlist = builder.wordlist;
+        this.theme = builder.theme;
+        this.seed = builder.seed;
+        this.scorers = builder.scorers != null ? Collections.unmodifiableList(new ArrayList<String>(builder.scorers))
+                       : null;
+        this.endScreen = builder.endScreen;
+    }
+
+    /**
+     * @return  A builder with the defaults: 50 words from the default wordlist, a random built-in theme, no seed,
+     *          every scorer, and the end screen
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return  The name of the GameMode, "words" unless it was set (or "time" if there's a time limit)
+     */
+    public String getMode() {
+        return mode;
+    }
+
+    /**
+     * @return  How many words a game has (for modes that have a set amount)
+     */
+    public int getWords() {
+        return words;
+    }
+
+    /**
+     * @return  How long a timed game lasts in seconds, 0 if there's no limit
+     */
+    public int getTimeLimit() {
+        return timeLimit;
+    }
+
+    /**
+     * @return  The name of the wordlist in the words folder
+     */
+    public String getWordlist() {
+        return wordlist;
+    }
+
+    /**
+     * @return  The colors, or null for a random built-in theme
+     */
+    public Theme getTheme() {
+        return theme;
+    }
+
+    /**
+     * @return  Whether the words are picked from a seed, so the same seed always gets the same words
+     */
+    public boolean hasSeed() {
+        return seed != null;
+    }
+
+    /**
+     * @return  The seed, only used if hasSeed()
+     */
+    public long getSeed() {
+        return seed != null ? seed : 0;
+    }
+
+    /**
+     * @return  The names of the scorers to run at the end, or null for every one there is
+     */
+    public List<String> getScorers() {
+        return scorers;
+    }
+
+    /**
+     * @return  Whether the results get shown at the end (and wait for enter), instead of just being returned
+     */
+    public boolean hasEndScreen() {
+        return endScreen;
+    }
+
+    public static class Builder {
+
+        private String mode = null;
+        private int words = 50;
+        private int timeLimit = 0;
+        private String wordlist = Utils.DEFAULT_WORDLIST;
+        private Theme theme = null;
+        private Long seed = null;
+        private List<String> scorers = null;
+        private boolean endScreen = true;
+
+        private Builder() {
+        }
+
+        /**
+         * @param mode  The name of a GameMode, like "words", "time" or "endless"
+         * @return      This builder
+         */
+        public Builder mode(String mode) {
+            this.mode = mode;
+            return this;
+        }
+
+        /**
+         * @param words     How many words a game has
+         * @return          This builder
+         */
+        public Builder words(int words) {
+            if (words < 1) throw new IllegalArgumentException("a game needs at least one word, not " + words);
+            this.words = words;
+            return this;
+        }
+
+        /**
+         * @param seconds   How long a timed game lasts (this makes the mode "time", unless it's set to something else)
+         * @return          This builder
+         */
+        public Builder timeLimit(int seconds) {
+            if (seconds < 0) throw new IllegalArgumentException("the time limit can't be negative");
+            this.timeLimit = seconds;
+            return this;
+        }
+
+        /**
+         * @param wordlist  The name of a wordlist in the words folder
+         * @return          This builder
+         */
+        public Builder wordlist(String wordlist) {
+            this.wordlist = wordlist;
+            return this;
+        }
+
+        /**
+         * @param theme     The colors, or null for a random built-in theme
+         * @return          This builder
+         */
+        public Builder theme(Theme theme) {
+            this.theme = theme;
+            return this;
+        }
+
+        /**
+         * @param seed      What to pick the words from, so the same seed always gets the same words
+         * @return          This builder
+         */
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * @param names     The names of the scorers to run at the end, in the order to show them (none for no scores)
+         * @return          This builder
+         */
+        public Builder scorers(String... names) {
+            this.scorers = List.of(names);
+            return this;
+        }
+
+        /**
+         * @param endScreen     Whether to show the results at the end and wait for enter, turn it off when the
+         *                      results are shown somewhere else
+         * @return              This builder
+         */
+        public Builder endScreen(boolean endScreen) {
+            this.endScreen = endScreen;
+            return this;
+        }
+
+        public GameOptions build() {
+            return new GameOptions(this);
+        }
+
+    }
+
+}
@@ -0,0 +1,66 @@
+package typer;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * What a game played with play() returns: the same result that gets saved to the ResultsLog, whether the game was
+ * played to the end, and the score from each of the scorers in the options.
+ */
+public class GameResult {
+
+    private final SessionResult session;
+    private final boolean finished;
+    private final Map<String, Double> scores; // by scorer name, in the order the scorers were picked
+
+    /**
+     * Creates a result
+     *
+     * @param session   The result that gets saved
+     * @param finished  Whether the game was played to the end
+     * @param scores    The scores by scorer name
+     */
+    public GameResult(SessionResult session, boolean finished, Map<String, Double> scores) {
+        this.session = session;
+        this.finished = finished;
+        this.scores = Collections.unmodifiableMap(new LinkedHashMap<String, Double>(scores));
+    }
+
+    /**
+     * @return  The result that gets saved, with the WPM, accuracy, mistakes and so on
+     */
+    public SessionResult getSession() {
+        return session;
+    }
+
+    /**
+     * @return  Whether the game was played to the end: every word typed, the time ran out, or an endless game was
+     *          stopped with some words typed
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * @return  Every score, by scorer name
+     */
+    public Map<String, Double> getScores() {
+        return scores;
+    }
+
+    /**
+     * @param scorer    The scorer's name, like "net-wpm"
+     * @return          Its score, or NaN if it didn't run
+     */
+    public double getScore(String scorer) {
+        Double score = scores.get(scorer);
+        return score != null ? score : Double.NaN;
+    }
+
+    @Override
+    public String toString() {
+        return session + (finished ? "" : "  (not finished)") + (scores.isEmpty() ? "" : "  " + scores);
+    }
+
+}
@@ -0,0 +1,492 @@
+package typer;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * The state of one typing test, separate from the terminal. The words are kept as one flat char[] (joined by single
+ * spaces), with a cursor into it, and every key updates a few counters and array slots instead of rebuilding any
+ * strings. Nothing in here knows about drawing, so it can be tested or replayed from a list of keys by itself.
+ *
+ * After each key, getDirtyStart() and getDirtyEnd() say which characters changed, so only those need redrawing.
+ *
+ * Words can be added to the end with append() while the game is going, and the ones that are done with can be
+ * dropped with discard(), so timed and endless games only keep the words around the cursor. The arrays are rings
+ * indexed by position (or word) modulo their size, so positions keep counting up from the start of the game, and
+ * nothing gets copied unless there are more words kept at once than there's room for.
+ */
+public class GameState {
+
+    // what's happened to each character of the text
+    public static final byte UNTYPED = 0;
+    public static final byte CORRECT = 1;
+    public static final byte WRONG = 2; // typed, but the wrong character
+    public static final byte MISSED = 3; // skipped over by pressing space early
+
+    private char[] expected; // all the words, joined by spaces
+    private char[] typed; // the character that was typed at each position
+    private byte[] states; // the state of each position
+    private int charMask; // the size of those three - 1, always a power of two minus one
+    private int[] wordStarts; // where each word starts in the text, with one extra at the end (the text length + 1)
+    private boolean[] wordWrong; // whether each word has had a mistake, a ring like wordStarts
+    private int wordMask;
+    private int wordCount = 0;
+    private int oldest = 0; // the first word that's still kept, anything before it has been discarded
+
+    // wrong words that have been discarded, the ones still kept are only strings once getWrongWords() is called
+    private final LinkedHashSet<String> discardedWrong = new LinkedHashSet<String>();
+    private int wrongWordCount = 0; // counting the same word again if it came up twice
+
+    private int word = 0; // the current word
+    private int typedInWord = 0; // how many characters of the current word have been typed
+
+    private int correct = 0; // characters currently typed correctly
+    private int incorrect = 0; // characters currently typed wrong
+    private int extra = 0; // keys pressed after the end of a word (these get ignored)
+    private int missed = 0; // characters skipped over with space
+    private int mistakes = 0; // every wrong key ever pressed, even if it was fixed after, plus missed characters
+
+    private int dirtyStart = 0; // the characters changed by the last key
+    private int dirtyEnd = 0;
+
+    /**
+     * Creates the state for a test
+     *
+     * @param words     The words that have to be typed
+     */
+    public GameState(List<String> words) {
+        int length = 0;
+        for (int i = 0; i < words.size(); i++) {
+            length += words.get(i).length() + 1;
+        }
+        allocate(length, words.size() + 1);
+        append(words);
+    }
+
+    /**
+     * Creates the state for a test with no words yet, for adding them with append() as they're needed
+     *
+     * @param chars     How many characters to make room for at first (it grows if more are kept at once)
+     * @param words     How many words to make room for at first
+     */
+    public GameState(int chars, int words) {
+        allocate(chars, words);
+    }
+
+    private void allocate(int chars, int words) {
+        int charSize = Integer.highestOneBit(Math.max(chars, 2) - 1) << 1;
+        int wordSize = Integer.highestOneBit(Math.max(words, 2) - 1) << 1;
+        expected = new char[charSize];
+        typed = new char[charSize];
+        states = new byte[charSize];
+        charMask = charSize - 1;
+        wordStarts = new int[wordSize];
+        wordWrong = new boolean[wordSize];
+        wordMask = wordSize - 1;
+    }
+
+    /**
+     * Adds words to the end of the test
+     *
+     * @param words     The words
+     */
+    public void append(List<String> words) {
+        int end = wordStarts[wordCount & wordMask]; // where the next word starts
+        int chars = 0;
+        for (int i = 0; i < words.size(); i++) {
+            chars += words.get(i).length() + 1;
+        }
+        ensureRoom(end + chars - wordStarts[oldest & wordMask], wordCount + words.size() + 1 - oldest);
+
+        if (wordCount > 0 && !words.isEmpty()) {
+            // the last word didn't have a space after it, now it does
+            expected[(end - 1) & charMask] = ' ';
+            states[(end - 1) & charMask] = UNTYPED;
+        }
+        for (int i = 0; i < words.size(); i++) {
+            String w = words.get(i);
+            for (int j = 0; j < w.length(); j++) {
+                expected[(end + j) & charMask] = w.charAt(j);
+                states[(end + j) & charMask] = UNTYPED;
+            }
+            if (i + 1 < words.size()) {
+                expected[(end + w.length()) & charMask] = ' ';
+                states[(end + w.length()) & charMask] = UNTYPED;
+            }
+            wordWrong[wordCount & wordMask] = false;
+            wordStarts[wordCount++ & wordMask] = end;
+            end += w.length() + 1;
+        }
+        wordStarts[wordCount & wordMask] = end;
+    }
+
+    /**
+     * Forgets the words before a word, so their room can be reused. Nothing at or after the cursor's word is ever
+     * forgotten. Wrong words get made into strings here, since they can't be once they're gone (so that's once a
+     * line at most, never on a key).
+     *
+     * @param word      The first word to keep
+     */
+    public void discard(int word) {
+        int keep = Math.max(oldest, Math.min(word, this.word));
+        for (int i = oldest; i < keep; i++) {
+            if (wordWrong[i & wordMask]) discardedWrong.add(word(i));
+        }
+        oldest = keep;
+    }
+
+    /**
+     * Makes the rings bigger if they can't fit the given amount, keeping everything from the oldest word on at the
+     * same positions
+     */
+    private void ensureRoom(int chars, int words) {
+        if (chars > expected.length) {
+            int size = Integer.highestOneBit(chars - 1) << 1;
+            char[] newExpected = new char[size];
+            char[] newTyped = new char[size];
+            byte[] newStates = new byte[size];
+            int start = wordStarts[oldest & wordMask];
+            int end = wordStarts[wordCount & wordMask];
+            for (int pos = start; pos < end; pos++) {
+                newExpected[pos & (size - 1)] = expected[pos & charMask];
+                newTyped[pos & (size - 1)] = typed[pos & charMask];
+                newStates[pos & (size - 1)] = states[pos & charMask];
+            }
+            expected = newExpected;
+            typed = newTyped;
+            states = newStates;
+            charMask = size - 1;
+        }
+        if (words > wordStarts.length) {
+            int size = Integer.highestOneBit(words - 1) << 1;
+            int[] newStarts = new int[size];
+            boolean[] newWrong = new boolean[size];
+            for (int i = oldest; i <= wordCount; i++) {
+                newStarts[i & (size - 1)] = wordStarts[i & wordMask];
+                newWrong[i & (size - 1)] = wordWrong[i & wordMask];
+            }
+            wordStarts = newStarts;
+            wordWrong = newWrong;
+            wordMask = size - 1;
+        }
+    }
+
+    /**
+     * Plays a list of keys from the start of a test, without a terminal
+     *
+     * @param words     The words of the test
+     * @param keys      The keys that were pressed, like the ones in a KeystrokeLog
+     * @param count     How many of the keys to use
+     * @param layout    The layout the keys were typed with, for enter (which only works at the end of a line), or
+     *                  null to ignore enter
+     * @return          The state after all the keys
+     */
+    public static GameState replay(List<String> words, int[] keys, int count, LineLayout layout) {
+        GameState state = new GameState(words);
+        for (int i = 0; i < count && !state.isFinished(); i++) {
+            char ch = (char) keys[i];
+            if (ch == '\r' || ch == '\n') {
+                if (layout != null && state.isLastOnLine(layout)) state.nextWord();
+            } else {
+                state.press(ch);
+            }
+        }
+        return state;
+    }
+
+    /**
+     * Handles a normal key: backspace (7f, or 8f on Windows), ctrl + backspace (17), space, or any other character
+     * gets typed
+     *
+     * @param ch    The key
+     * @return      Whether it changed anything
+     */
+    public boolean press(char ch) {
+        if (ch == '\u007f' || ch == '\u008f') return backspace();
+        if (ch == '\u0017') return deleteWord();
+        if (ch == ' ') return space();
+        return type(ch);
+    }
+
+    /**
+     * Types a character at the cursor
+     *
+     * @param ch    The character
+     * @return      Whether it was typed, false if the game is over or the word is already fully typed
+     */
+    public boolean type(char ch) {
+        if (isFinished()) return false;
+        if (typedInWord >= wordLength(word)) {
+            extra++;
+            return false;
+        }
+
+        int pos = wordStart(word) + typedInWord;
+        typed[pos & charMask] = ch;
+        if (ch == expected[pos & charMask]) {
+            states[pos & charMask] = CORRECT;
+            correct++;
+        } else {
+            states[pos & charMask] = WRONG;
+            incorrect++;
+            mistakes++;
+            markWrong();
+        }
+        typedInWord++;
+        setDirty(pos, pos + 1);
+        return true;
+    }
+
+    /**
+     * Ends the current word like space does, but only if something has been typed in it
+     *
+     * @return      Whether it did anything, false if nothing has been typed in the word yet
+     */
+    public boolean space() {
+        if (typedInWord == 0) return false;
+        return nextWord();
+    }
+
+    /**
+     * Ends the current word and moves to the next one, anything that wasn't typed yet is marked as missed
+     *
+     * @return      Whether it did anything, false if the game is over
+     */
+    public boolean nextWord() {
+        if (isFinished()) return false;
+
+        int start = wordStart(word) + typedInWord;
+        int end = wordStart(word) + wordLength(word);
+        for (int pos = start; pos < end; pos++) {
+            states[pos & charMask] = MISSED;
+        }
+        if (end > start) {
+            missed += end - start;
+            mistakes += end - start;
+            markWrong();
+        }
+        setDirty(start, end);
+
+        word++;
+        typedInWord = 0;
+        return true;
+    }
+
+    /**
+     * Remembers that the current word had a mistake, which is just a flag (the word isn't made into a string here)
+     */
+    private void markWrong() {
+        if (wordWrong[word & wordMask]) return;
+        wordWrong[word & wordMask] = true;
+        wrongWordCount++;
+    }
+
+    /**
+     * Deletes the last character typed in the current word
+     *
+     * @return      Whether it did anything, false if at the start of the word
+     */
+    public boolean backspace() {
+        if (isFinished() || typedInWord == 0) return false;
+        typedInWord--;
+        int pos = wordStart(word) + typedInWord;
+        untype(pos);
+        setDirty(pos, pos + 1);
+        return true;
+    }
+
+    /**
+     * Deletes everything typed in the current word
+     *
+     * @return      Whether it did anything, false if at the start of the word
+     */
+    public boolean deleteWord() {
+        if (isFinished() || typedInWord == 0) return false;
+        int start = wordStart(word);
+        for (int pos = start; pos < start + typedInWord; pos++) {
+            untype(pos);
+        }
+        setDirty(start, start + typedInWord);
+        typedInWord = 0;
+        return true;
+    }
+
+    private void untype(int pos) {
+        if (states[pos & charMask] == CORRECT) correct--;
+        if (states[pos & charMask] == WRONG) incorrect--;
+        states[pos & charMask] = UNTYPED;
+    }
+
+    private void setDirty(int start, int end) {
+        dirtyStart = start;
+        dirtyEnd = end;
+    }
+
+    /**
+     * Checks if the current word is the last one on its line, which is when enter acts like space
+     *
+     * @param layout    The layout the words are shown in
+     * @return          Whether the cursor is in the last word of a line, not counting the last line
+     */
+    public boolean isLastOnLine(LineLayout layout) {
+        int line = layout.lineOf(word);
+        return word + 1 == layout.lineEnd(line) && line + 1 < layout.lineCount();
+    }
+
+    public boolean isFinished() {
+        return word >= wordCount;
+    }
+
+    /**
+     * @return  The character at the cursor that should be typed next, or 0 if the word is fully typed (or the game
+     *          is over)
+     */
+    public char expectedAtCursor() {
+        if (isFinished() || typedInWord >= wordLength(word)) return 0;
+        return expected[(wordStart(word) + typedInWord) & charMask];
+    }
+
+    /**
+     * @return  Whether every character of the current word has been typed
+     */
+    public boolean isWordTyped() {
+        return !isFinished() && typedInWord == wordLength(word);
+    }
+
+    /**
+     * @return  The position of the cursor in the text
+     */
+    public int getCursor() {
+        return isFinished() ? textLength() : wordStart(word) + typedInWord;
+    }
+
+    public int getWord() {
+        return word;
+    }
+
+    public int getTypedInWord() {
+        return typedInWord;
+    }
+
+    /**
+     * @return  How many words have been added to the test
+     */
+    public int getWordCount() {
+        return wordCount;
+    }
+
+    /**
+     * @return  The first word that hasn't been discarded
+     */
+    public int getOldest() {
+        return oldest;
+    }
+
+    public int wordStart(int word) {
+        return wordStarts[word & wordMask];
+    }
+
+    public int wordLength(int word) {
+        return wordStarts[(word + 1) & wordMask] - wordStarts[word & wordMask] - 1;
+    }
+
+    /**
+     * @param word  The index of the word, which can't have been discarded
+     * @return      The word as a string
+     */
+    public String word(int word) {
+        int start = wordStart(word);
+        char[] chars = new char[wordLength(word)];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = expected[(start + i) & charMask];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Finds which word a position in the text is in (a space counts as part of the word before it)
+     *
+     * @param pos   The position in the text
+     * @return      The index of the word
+     */
+    public int wordAt(int pos) {
+        int lo = oldest;
+        int hi = wordCount - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (wordStart(mid) <= pos) lo = mid;
+            else hi = mid - 1;
+        }
+        return lo;
+    }
+
+    /**
+     * @return  The length of all the words that have been added, with the spaces between them
+     */
+    public int textLength() {
+        return Math.max(wordStarts[wordCount & wordMask] - 1, 0);
+    }
+
+    public char expected(int pos) {
+        return expected[pos & charMask];
+    }
+
+    public char typed(int pos) {
+        return typed[pos & charMask];
+    }
+
+    public byte state(int pos) {
+        return states[pos & charMask];
+    }
+
+    public int getDirtyStart() {
+        return dirtyStart;
+    }
+
+    public int getDirtyEnd() {
+        return dirtyEnd;
+    }
+
+    public int getCorrect() {
+        return correct;
+    }
+
+    public int getIncorrect() {
+        return incorrect;
+    }
+
+    public int getExtra() {
+        return extra;
+    }
+
+    public int getMissed() {
+        return missed;
+    }
+
+    public int getMistakes() {
+        return mistakes;
+    }
+
+    /**
+     * @return  The number of words that had a mistake in them
+     */
+    public int wrongWordCount() {
+        return wrongWordCount;
+    }
+
+    /**
+     * Gets the words that had a mistake in them
+     *
+     * @return  The words (each one only once), in the order they came up
+     */
+    public ArrayList<String> getWrongWords() {
+        // the same word can come up more than once, the set keeps the first
+        LinkedHashSet<String> wrong = new LinkedHashSet<String>(discardedWrong);
+        for (int i = oldest; i <= word && i < wordCount; i++) {
+            if (wordWrong[i & wordMask]) wrong.add(word(i));
+        }
+        return new ArrayList<String>(wrong);
+    }
+
+}
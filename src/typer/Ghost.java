@@ -0,0 +1,103 @@
+package typer;
+
+import java.io.IOException;
+
+/**
+ * Plays back a recorded game (a KeyTrace) at the speed it was typed, so it can be raced against. It has its own
+ * GameState for the same words, and plays each key into it once its time comes, so where its cursor is always matches
+ * what the recorded player had typed by then.
+ *
+ * It doesn't have a thread or a timer of its own. The game asks nextKeyAt() for when the next key is due and waits
+ * for keys until then (the key ring parks for exactly that many nanoseconds), and calls advance() when it wakes up.
+ * So the ghost moves on time to within the scheduler's wakeup latency, without polling, and its moves get drawn in
+ * the same frames as the player's keys.
+ */
+public class Ghost {
+
+    private final KeyTrace trace;
+    private final GameState state;
+    private int next = 0; // the next key to play
+    private long nextAt = 0; // when it's due, in nanoseconds from the first key
+
+    /**
+     * Creates a ghost at the start of a recorded game
+     *
+     * @param trace     The recorded game
+     */
+    public Ghost(KeyTrace trace) {
+        this.trace = trace;
+        this.state = new GameState(trace.getWords());
+    }
+
+    /**
+     * Plays every key that's due
+     *
+     * @param elapsed   The nanoseconds since the game started (the first key)
+     * @return          Whether the ghost's cursor moved
+     */
+    public boolean advance(long elapsed) {
+        int before = state.getCursor();
+        while (next < trace.size() && nextAt <= elapsed) {
+            char key = trace.key(next);
+            if (key == '\r') {
+                state.nextWord();
+            } else {
+                state.press(key);
+            }
+            next++;
+            if (next < trace.size()) nextAt += trace.delta(next);
+        }
+        return state.getCursor() != before;
+    }
+
+    /**
+     * @return  When the next key is due, in nanoseconds from the start of the game, or Long.MAX_VALUE if there
+     *          aren't any left
+     */
+    public long nextKeyAt() {
+        return next < trace.size() ? nextAt : Long.MAX_VALUE;
+    }
+
+    /**
+     * @return  Where the ghost's cursor is in the text
+     */
+    public int getCursor() {
+        return state.getCursor();
+    }
+
+    /**
+     * @return  How many words the ghost has gotten through
+     */
+    public int getWord() {
+        return state.getWord();
+    }
+
+    /**
+     * @return  How long the recorded game took, from the first key to the last, in nanoseconds
+     */
+    public long getDuration() {
+        return trace.getDuration();
+    }
+
+    /**
+     * Finds a saved game to race against. The log is read backward a result at a time, so the most recent game stops
+     * at the first one of the user's with a trace, and only the best one so far is kept while looking for the best.
+     *
+     * @param results   The log to look in
+     * @param user      Whose games to look at
+     * @param best      Whether to pick the one with the best WPM, instead of the most recent one
+     * @return          The game's trace, or null if none of the user's saved games have one
+     * @throws IOException if the log can't be read
+     */
+    public static KeyTrace find(ResultsLog results, String user, boolean best) throws IOException {
+        SessionResult found = null;
+        for (int i = results.size() - 1; i >= 0; i--) {
+            SessionResult result = results.get(i);
+            if (!result.hasTrace() || !result.getUser().equals(user)) continue;
+            if (found == null || (best && result.getWpm() > found.getWpm())) found = result;
+            if (!best) break;
+        }
+        return found == null ? null : found.getTrace();
+    }
+
+}
@@ -0,0 +1,250 @@
+package typer;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.LockSupport;
+
+import org.jline.terminal.Size;
+import org.jline.terminal.Terminal;
+import org.jline.terminal.TerminalBuilder;
+
+/**
+ * Runs games without a person or a real terminal, for benchmarking. Keys come from a synthetic typist (or a file of
+ * recorded keys) and go through the whole game: JLine, the InputDecoder, the GameState and the Renderer, into an
+ * in-memory terminal whose output is just counted and thrown away. At the end it prints how many keys per second got
+ * through, and how long it took from each key being read to the screen being updated.
+ *
+ * Run it with: java typer.Headless [options]
+ * <pre>
+ *   --games n        How many games to play (default 10)
+ *   --words n        Words per game (default 50)
+ *   --rate n         Keys per second for the synthetic typist, 0 for as fast as possible (default 0)
+ *   --errors n       Chance of a typo before each character, which then gets backspaced (default 0.05)
+ *   --seed n         Seed for the words and the synthetic typist, so runs can be repeated
+ *   --size WxH       Size of the fake terminal (default 100x30)
+ *   --keys file      Play the raw key bytes in a file instead of the synthetic typist (the same keys and the same
+ *                    words every game)
+ *   --wordlist file  The wordlist to use (default 1000en.txt)
+ * </pre>
+ */
+public class Headless {
+
+    // a fixed theme, so every run draws the same bytes (a random one changes how long the color codes are)
+    private static final Theme THEME = new Theme("#FFFFFF", "#888888", "#FF0000", "#000000");
+
+    private int games = 10;
+    private int words = 50;
+    private int rate = 0;
+    private double errors = 0.05;
+    private long seed = System.nanoTime();
+    private int width = 100;
+    private int height = 30;
+    private byte[] recorded = null; // the keys from --keys, or null for the synthetic typist
+    private String wordlist = Utils.DEFAULT_WORDLIST;
+
+    private long keys = 0; // keys sent over all the games
+    private long bytesWritten = 0; // bytes the games drew over all the games
+    private LatencyHistogram latency = new LatencyHistogram();
+
+    /**
+     * Plays one game in an in-memory terminal
+     *
+     * @param words     The words of the game
+     * @param random    Where the synthetic typist gets its typos from
+     * @throws IOException
+     */
+    private void playGame(List<String> words, SplittableRandom random) throws IOException {
+        CountingOutput out = new CountingOutput();
+        KeyStream in = new KeyStream(rate);
+
+        Terminal term = TerminalBuilder.builder().system(false).streams(in, new FrameOutput(out))
+                .size(new Size(width, height)).type("xterm-256color").build();
+        try {
+            Typer typer = new Typer(words, THEME, term);
+            if (recorded != null) {
+                in.setKeys(recorded);
+            } else {
+                in.setKeys(typeWords(typer.getWords(), random));
+            }
+
+            typer.start();
+            keys += in.getSent();
+            bytesWritten += out.count;
+            latency.add(typer.getFrameLatency());
+        } finally {
+            term.close();
+        }
+    }
+
+    /**
+     * Makes up the keys a person would type for some words, with the odd typo that gets fixed with backspace. It
+     * ends with enter, to get past the end screen.
+     *
+     * @param words     The words to type
+     * @param random    Where to get the typos from
+     * @return          The keys, as UTF-8 bytes
+     */
+    private byte[] typeWords(List<String> words, SplittableRandom random) {
+        StringBuilder keys = new StringBuilder();
+        for (String word: words) {
+            for (int i = 0; i < word.length(); i++) {
+                if (random.nextDouble() < errors) {
+                    keys.append((char) ('a' + random.nextInt(26))).append('\u007f');
+                }
+                keys.append(word.charAt(i));
+            }
+            keys.append(' ');
+        }
+        keys.append('\r');
+        return keys.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Plays all the games and prints the results
+     *
+     * @throws IOException
+     */
+    public void run() throws IOException {
+        List<String> list = Corpus.shared().get(wordlist);
+        SplittableRandom random = new SplittableRandom(seed);
+        WordSampler sampler = new WordSampler(seed);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < games; i++) {
+            // recorded keys were typed for one set of words, so every game gets those
+            if (recorded != null) sampler = new WordSampler(seed);
+            playGame(sampler.sample(list, words), random);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        double seconds = elapsed / 1e9;
+        System.out.println("games:      " + games + " (" + words + " words, " + width + "x" + height + ", seed " + seed + ")");
+        System.out.println("keys:       " + keys + " in " + String.format("%.3f", seconds) + "s");
+        System.out.println("throughput: " + String.format("%.0f", keys / seconds) + " keys/s");
+        System.out.println("output:     " + bytesWritten + " bytes (" + String.format("%.1f", (double) bytesWritten / Math.max(keys, 1)) + " per key)");
+        System.out.println("latency:    p50 " + micros(latency.percentile(50)) + "  p99 " + micros(latency.percentile(99))
+                           + "  p99.9 " + micros(latency.percentile(99.9)) + "  max " + micros(latency.max()));
+    }
+
+    private static String micros(long nanos) {
+        return String.format("%.1fus", nanos / 1000.0);
+    }
+
+    public static void main(String[] args) throws IOException {
+        Headless headless = new Headless();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException(arg + " needs a value");
+            }
+            String value = args[++i];
+            switch (arg) {
+                case "--games":
+                    headless.games = Integer.parseInt(value);
+                    break;
+                case "--words":
+                    headless.words = Integer.parseInt(value);
+                    break;
+                case "--rate":
+                    headless.rate = Integer.parseInt(value);
+                    break;
+                case "--errors":
+                    headless.errors = Double.parseDouble(value);
+                    break;
+                case "--seed":
+                    headless.seed = Long.parseLong(value);
+                    break;
+                case "--size":
+                    String[] size = value.split("x");
+                    headless.width = Integer.parseInt(size[0]);
+                    headless.height = Integer.parseInt(size[1]);
+                    break;
+                case "--keys":
+                    headless.recorded = Files.readAllBytes(Paths.get(value));
+                    break;
+                case "--wordlist":
+                    headless.wordlist = value;
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown option " + arg);
+            }
+        }
+        headless.run();
+    }
+
+    /**
+     * The terminal's input. It blocks until the keys are set (the words aren't known until the game is made), then
+     * hands them out, spaced out to the rate if there is one.
+     */
+    static class KeyStream extends InputStream {
+
+        private final long interval; // nanoseconds between keys, 0 for no waiting
+        private volatile InputStream keys = null;
+        private long next = 0; // when the next key is due
+        private long sent = 0;
+
+        KeyStream(int rate) {
+            this.interval = rate > 0 ? 1_000_000_000L / rate : 0;
+        }
+
+        void setKeys(byte[] bytes) {
+            keys = new ByteArrayInputStream(bytes);
+        }
+
+        long getSent() {
+            return sent;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            while (keys == null) {
+                LockSupport.parkNanos(1_000_000);
+            }
+            if (interval > 0) {
+                // one key at a time, like a person typing
+                long now = System.nanoTime();
+                if (next == 0) next = now;
+                if (next > now) LockSupport.parkNanos(next - now);
+                next += interval;
+                len = Math.min(len, 1);
+            }
+            int n = keys.read(b, off, len);
+            if (n > 0) sent += n;
+            return n;
+        }
+
+    }
+
+    /**
+     * The terminal's output, which only counts the bytes
+     */
+    static class CountingOutput extends OutputStream {
+
+        long count = 0;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+
+    }
+
+}
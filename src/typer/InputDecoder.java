@@ -0,0 +1,275 @@
+package typer;
+
+import java.io.IOException;
+
+import org.jline.utils.NonBlockingReader;
+
+/**
+ * Reads keys from the terminal and turns them into events, each one a key code and the System.nanoTime() of when it
+ * was read. The events go into arrays that get reused for every poll, so reading a key doesn't allocate anything.
+ *
+ * Normal characters are their own key code (the terminal's reader already decodes the UTF-8 for us, and surrogate
+ * pairs are joined back into one code point). Special keys like the arrow keys come in as escape sequences
+ * (CSI "\033[" or SS3 "\033O"), and get turned into the negative KEY_ constants. A lone ESC only waits a few
+ * milliseconds for the rest of a sequence before it's reported as KEY_ESCAPE, so it can never stall the input.
+ */
+public class InputDecoder {
+
+    public static final int KEY_ESCAPE = -2;
+    public static final int KEY_UP = -3;
+    public static final int KEY_DOWN = -4;
+    public static final int KEY_RIGHT = -5;
+    public static final int KEY_LEFT = -6;
+    public static final int KEY_HOME = -7;
+    public static final int KEY_END = -8;
+    public static final int KEY_INSERT = -9;
+    public static final int KEY_DELETE = -10;
+    public static final int KEY_PAGE_UP = -11;
+    public static final int KEY_PAGE_DOWN = -12;
+    public static final int KEY_UNKNOWN = -13; // an escape sequence we don't care about
+
+    public static final byte FLAG_PASTE = 1; // the key was part of a bracketed paste
+    public static final byte FLAG_ALT = 2; // the key was pressed with alt (sent as ESC + key)
+
+    public static final int EOF = -1; // returned by poll() when the input is closed
+
+    private static final int MAX_PARAMS = 4;
+
+    private final NonBlockingReader reader;
+    private final long escTimeout; // how long to wait for the rest of an escape sequence, in milliseconds
+
+    private final int[] keys;
+    private final long[] times;
+    private final byte[] flags;
+    private int count = 0;
+
+    private final int[] params = new int[MAX_PARAMS]; // numbers in the current CSI sequence
+    private boolean pasting = false; // whether we're in between the start and end of a bracketed paste
+
+    /**
+     * Creates an input decoder with room for 64 events per poll, and a 25ms escape timeout
+     *
+     * @param reader    The reader to get characters from, usually Terminal.reader()
+     */
+    public InputDecoder(NonBlockingReader reader) {
+        this(reader, 64, 25);
+    }
+
+    /**
+     * Creates an input decoder
+     *
+     * @param reader        The reader to get characters from, usually Terminal.reader()
+     * @param capacity      The most events one poll can return
+     * @param escTimeout    How long to wait after an ESC for the rest of an escape sequence, in milliseconds
+     */
+    public InputDecoder(NonBlockingReader reader, int capacity, long escTimeout) {
+        this.reader = reader;
+        this.escTimeout = escTimeout;
+        this.keys = new int[capacity];
+        this.times = new long[capacity];
+        this.flags = new byte[capacity];
+    }
+
+    /**
+     * Waits for input and decodes it into events. Returns as soon as at least one key has been read, also
+     * decoding anything else that's already waiting (as long as the reader can say so without blocking).
+     *
+     * @param timeout   How long to wait for the first key in milliseconds, 0 waits forever
+     * @return          The number of events read, 0 if the timeout ran out (or all that came in was the start or
+     *                  end of a paste), or EOF if the input was closed
+     * @throws IOException
+     */
+    public int poll(long timeout) throws IOException {
+        count = 0;
+        int ch = reader.read(timeout);
+        if (ch == NonBlockingReader.READ_EXPIRED) return 0;
+        if (ch == NonBlockingReader.EOF) return EOF;
+
+        decode(ch, System.nanoTime());
+        while (count < keys.length && reader.ready()) {
+            ch = reader.read(escTimeout);
+            if (ch < 0) break;
+            decode(ch, System.nanoTime());
+        }
+        return count;
+    }
+
+    /**
+     * Waits for input without reading any of it, so whatever comes in is still there for the next poll (or for
+     * someone else reading the terminal, if nothing polls again)
+     *
+     * @param timeout   How long to wait in milliseconds, 0 waits forever
+     * @return          1 if there's input waiting, 0 if the timeout ran out, or EOF if the input was closed
+     * @throws IOException
+     */
+    public int waitForInput(long timeout) throws IOException {
+        int ch = reader.peek(timeout);
+        if (ch == NonBlockingReader.READ_EXPIRED) return 0;
+        if (ch == NonBlockingReader.EOF) return EOF;
+        return 1;
+    }
+
+    /**
+     * Waits until one of the given keys is pressed
+     *
+     * @param wanted    The key codes to wait for
+     * @return          The key that was pressed, or EOF if the input was closed
+     * @throws IOException
+     */
+    public int waitFor(int... wanted) throws IOException {
+        while (true) {
+            int n = poll(0);
+            if (n == EOF) return EOF;
+            for (int i = 0; i < n; i++) {
+                for (int key: wanted) {
+                    if (keys[i] == key) return key;
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the key code of an event from the last poll
+     *
+     * @param i     The index of the event
+     * @return      The character's code point, or one of the KEY_ constants
+     */
+    public int key(int i) {
+        return keys[i];
+    }
+
+    /**
+     * Gets when an event from the last poll was read
+     *
+     * @param i     The index of the event
+     * @return      The System.nanoTime() the key was read at
+     */
+    public long time(int i) {
+        return times[i];
+    }
+
+    /**
+     * Gets the flags (FLAG_PASTE, FLAG_ALT) of an event from the last poll
+     *
+     * @param i     The index of the event
+     * @return      The flags, OR'd together
+     */
+    public byte flags(int i) {
+        return flags[i];
+    }
+
+    /**
+     * Decodes one key, starting with a character that's already been read
+     */
+    private void decode(int ch, long time) throws IOException {
+        byte flag = pasting ? FLAG_PASTE : 0;
+
+        if (ch == 27) {
+            int next = reader.read(escTimeout);
+            if (next < 0) {
+                add(KEY_ESCAPE, time, flag); // lone ESC
+            } else if (next == '[') {
+                decodeCsi(time, flag);
+            } else if (next == 'O') {
+                decodeSs3(time, flag);
+            } else if (next == 27) {
+                add(KEY_ESCAPE, time, flag);
+                decode(next, time);
+            } else {
+                add(readCodePoint(next), time, (byte) (flag | FLAG_ALT));
+            }
+            return;
+        }
+
+        add(readCodePoint(ch), time, flag);
+    }
+
+    /**
+     * Decodes the rest of a CSI sequence (after "\033["), like "A" for up or "3~" for delete
+     */
+    private void decodeCsi(long time, byte flag) throws IOException {
+        int numParams = 0;
+        int param = 0;
+        boolean hasDigits = false;
+        int ch;
+        while (true) {
+            ch = reader.read(escTimeout);
+            if (ch < 0) {
+                add(KEY_UNKNOWN, time, flag); // cut off partway through
+                return;
+            }
+            if (ch >= '0' && ch <= '9') {
+                param = param * 10 + (ch - '0');
+                hasDigits = true;
+            } else if (ch == ';') {
+                if (numParams < MAX_PARAMS) params[numParams++] = param;
+                param = 0;
+                hasDigits = false;
+            } else if (ch >= 0x40 && ch <= 0x7E) {
+                break; // final character
+            }
+            // anything else (like the ? in private sequences) is ignored
+        }
+        if (hasDigits && numParams < MAX_PARAMS) params[numParams++] = param;
+        int first = numParams > 0 ? params[0] : 0;
+
+        switch (ch) {
+            case 'A': add(KEY_UP, time, flag); break;
+            case 'B': add(KEY_DOWN, time, flag); break;
+            case 'C': add(KEY_RIGHT, time, flag); break;
+            case 'D': add(KEY_LEFT, time, flag); break;
+            case 'H': add(KEY_HOME, time, flag); break;
+            case 'F': add(KEY_END, time, flag); break;
+            case '~':
+                switch (first) {
+                    case 1: case 7: add(KEY_HOME, time, flag); break;
+                    case 4: case 8: add(KEY_END, time, flag); break;
+                    case 2: add(KEY_INSERT, time, flag); break;
+                    case 3: add(KEY_DELETE, time, flag); break;
+                    case 5: add(KEY_PAGE_UP, time, flag); break;
+                    case 6: add(KEY_PAGE_DOWN, time, flag); break;
+                    case 200: pasting = true; break; // start of a bracketed paste, not a key
+                    case 201: pasting = false; break; // end of a bracketed paste
+                    default: add(KEY_UNKNOWN, time, flag);
+                }
+                break;
+            default:
+                add(KEY_UNKNOWN, time, flag);
+        }
+    }
+
+    /**
+     * Decodes the rest of an SS3 sequence (after "\033O"), which some terminals use for arrow keys
+     */
+    private void decodeSs3(long time, byte flag) throws IOException {
+        int ch = reader.read(escTimeout);
+        switch (ch) {
+            case 'A': add(KEY_UP, time, flag); break;
+            case 'B': add(KEY_DOWN, time, flag); break;
+            case 'C': add(KEY_RIGHT, time, flag); break;
+            case 'D': add(KEY_LEFT, time, flag); break;
+            case 'H': add(KEY_HOME, time, flag); break;
+            case 'F': add(KEY_END, time, flag); break;
+            default: add(KEY_UNKNOWN, time, flag);
+        }
+    }
+
+    /**
+     * Joins a surrogate pair into one code point, if the character is the first half of one
+     */
+    private int readCodePoint(int ch) throws IOException {
+        if (!Character.isHighSurrogate((char) ch)) return ch;
+        int low = reader.read(escTimeout);
+        if (low < 0 || !Character.isLowSurrogate((char) low)) return ch; // broken pair, keep what we have
+        return Character.toCodePoint((char) ch, (char) low);
+    }
+
+    private void add(int key, long time, byte flag) {
+        if (count == keys.length) return; // only happens if one character turned into too many events
+        keys[count] = key;
+        times[count] = time;
+        flags[count] = flag;
+        count++;
+    }
+
+}
@@ -0,0 +1,151 @@
+package typer;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Passes key events from the thread that reads the terminal to the thread that runs the game, without locks. There's
+ * exactly one thread putting events in (put) and one taking them out (poll), so each side only ever writes its own
+ * counter: the producer moves the tail after filling a slot, and the consumer moves the head after it's done with
+ * the slots it got. The events are kept in primitive arrays, like InputDecoder, so nothing is allocated per key.
+ *
+ * When the ring is empty the consumer parks, and the producer unparks it after putting an event in. The producer
+ * checks for a parked consumer after moving the tail, and the consumer checks the tail after saying it's parked,
+ * so a wakeup can't get lost between the two (both are volatile).
+ */
+public class KeyRing {
+
+    public static final int EOF = -1; // returned by poll() once the producer has closed the ring and it's empty
+
+    private final int[] keys;
+    private final long[] times;
+    private final byte[] flags;
+    private final int mask;
+
+    private final AtomicLong head = new AtomicLong(); // the next event to take, only the consumer moves it
+    private final AtomicLong tail = new AtomicLong(); // the next slot to fill, only the producer moves it
+    private volatile Thread waiting = null; // the consumer, while it's parked
+    private volatile boolean closed = false;
+
+    private long batch = 0; // where the events from the last poll start
+    private int count = 0; // how many events the last poll gave
+
+    /**
+     * Creates a ring
+     *
+     * @param capacity  How many events it can hold, rounded up to a power of two
+     */
+    public KeyRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        keys = new int[size];
+        times = new long[size];
+        flags = new byte[size];
+        mask = size - 1;
+    }
+
+    /**
+     * Puts an event in, waiting for room if the ring is full (which only happens if the consumer falls a whole ring
+     * behind). Only the producer thread can call this.
+     *
+     * @param key       The key code
+     * @param time      When it was read, from System.nanoTime()
+     * @param flag      The InputDecoder flags for the key
+     */
+    public void put(int key, long time, byte flag) {
+        long t = tail.get();
+        while (t - head.get() > mask) {
+            wake();
+            LockSupport.parkNanos(100_000);
+        }
+        int i = (int) t & mask;
+        keys[i] = key;
+        times[i] = time;
+        flags[i] = flag;
+        tail.set(t + 1); // publishes the slot
+        wake();
+    }
+
+    /**
+     * Says no more events are coming, the consumer gets EOF once it's taken the rest. Only the producer thread can
+     * call this.
+     */
+    public void close() {
+        closed = true;
+        wake();
+    }
+
+    /**
+     * Wakes up the consumer if it's waiting, like when something other than a key needs handling (a resize)
+     */
+    public void wake() {
+        Thread t = waiting;
+        if (t != null) LockSupport.unpark(t);
+    }
+
+    /**
+     * Lets go of the events from the last poll, and waits for more. Only the consumer thread can call this.
+     *
+     * @param timeout   How long to wait for an event in nanoseconds, 0 waits forever
+     * @return          The number of events, 0 if the timeout ran out (or wake() was called), or EOF
+     */
+    public int poll(long timeout) {
+        head.set(batch + count);
+        batch += count;
+        count = 0;
+
+        long available = tail.get() - batch;
+        if (available == 0) {
+            if (closed) {
+                // the producer could have put the last events in just before closing
+                available = tail.get() - batch;
+                if (available == 0) return EOF;
+            } else {
+                waiting = Thread.currentThread();
+                available = tail.get() - batch;
+                if (available == 0 && !closed) {
+                    if (timeout == 0) LockSupport.park(this);
+                    else LockSupport.parkNanos(this, timeout);
+                    available = tail.get() - batch;
+                }
+                waiting = null;
+            }
+        }
+        count = (int) available;
+        return count;
+    }
+
+    /**
+     * Gives back the events from the last poll starting at an index, so the next poll gets them again (like the
+     * keys after the last one of a game, which are for the end screen)
+     *
+     * @param from  The index of the first event to give back
+     */
+    public void unread(int from) {
+        count = Math.max(0, Math.min(from, count));
+    }
+
+    /**
+     * @param i     The index of the event, from 0 to what poll() returned
+     * @return      The key code, the same as InputDecoder.key()
+     */
+    public int key(int i) {
+        return keys[(int) (batch + i) & mask];
+    }
+
+    /**
+     * @param i     The index of the event
+     * @return      When the producer read the key, from System.nanoTime()
+     */
+    public long time(int i) {
+        return times[(int) (batch + i) & mask];
+    }
+
+    /**
+     * @param i     The index of the event
+     * @return      The InputDecoder flags for the key
+     */
+    public byte flags(int i) {
+        return flags[(int) (batch + i) & mask];
+    }
+
+}
@@ -0,0 +1,235 @@
+package typer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Every key of a game and when it was pressed, with the words it was typed on, so the game can be played back (see
+ * Ghost). Recording a key is two array stores, and the arrays only grow (doubling) if the game goes on for longer
+ * than expected.
+ *
+ * Only the keys that did something are kept (a space at the start of a word, or a key after the end of one, doesn't
+ * change the game, so it isn't recorded), and enter is kept as '\r', so playing them back gets exactly the same game.
+ *
+ * encode() packs it with varints (7 bits a byte, the top bit set on every byte but the last), which is what keeps it
+ * small: a key is one byte unless it's outside ASCII, and the time since the key before is in nanoseconds, which is
+ * four bytes for anything from 2ms to 268ms. A 50 word game is about 1.5KB, so thousands of them fit in a few MB.
+ * <pre>
+ *   varint  version
+ *   varint  number of words
+ *   each    varint UTF-8 length, then the bytes
+ *   varint  number of keys
+ *   each    varint key, varint nanoseconds since the key before (0 for the first)
+ * </pre>
+ */
+public class KeyTrace {
+
+    private static final int VERSION = 1;
+
+    private final List<String> words;
+    private char[] keys;
+    private long[] deltas;
+    private int count = 0;
+    private long lastTime = 0; // System.nanoTime() of the last key, 0 before the first
+    private long duration = 0; // from the first key to the last
+
+    /**
+     * Creates an empty trace for a game
+     *
+     * @param words     The words of the game, in order
+     * @param capacity  How many keys to make room for at first
+     */
+    public KeyTrace(List<String> words, int capacity) {
+        this.words = Collections.unmodifiableList(new ArrayList<String>(words));
+        keys = new char[Math.max(capacity, 16)];
+        deltas = new long[keys.length];
+    }
+
+    /**
+     * Records a key
+     *
+     * @param key       The key, '\r' for enter
+     * @param time      The System.nanoTime() it was pressed at
+     */
+    public void record(char key, long time) {
+        if (count == keys.length) {
+            keys = Arrays.copyOf(keys, count * 2);
+            deltas = Arrays.copyOf(deltas, count * 2);
+        }
+        long delta = lastTime == 0 ? 0 : Math.max(0, time - lastTime);
+        keys[count] = key;
+        deltas[count++] = delta;
+        duration += delta;
+        lastTime = time;
+    }
+
+    /**
+     * @return  The words of the game
+     */
+    public List<String> getWords() {
+        return words;
+    }
+
+    /**
+     * @return  How many keys there are
+     */
+    public int size() {
+        return count;
+    }
+
+    public char key(int i) {
+        return keys[i];
+    }
+
+    /**
+     * @param i     The index of the key
+     * @return      The nanoseconds since the key before it, 0 for the first one
+     */
+    public long delta(int i) {
+        return deltas[i];
+    }
+
+    /**
+     * @return  The nanoseconds from the first key to the last
+     */
+    public long getDuration() {
+        return duration;
+    }
+
+    /**
+     * Packs the trace into bytes
+     *
+     * @return  The encoded trace
+     */
+    public byte[] encode() {
+        Output out = new Output(16 + 8 * words.size() + 5 * count);
+        out.varint(VERSION);
+        out.varint(words.size());
+        for (String word: words) {
+            byte[] bytes = word.getBytes(StandardCharsets.UTF_8);
+            out.varint(bytes.length);
+            out.bytes(bytes);
+        }
+        out.varint(count);
+        for (int i = 0; i < count; i++) {
+            out.varint(keys[i]);
+            out.varint(deltas[i]);
+        }
+        return Arrays.copyOf(out.buf, out.len);
+    }
+
+    /**
+     * Reads a trace that was made with encode()
+     *
+     * @param data      The bytes
+     * @return          The trace
+     * @throws IOException if the bytes aren't a trace this version can read
+     */
+    public static KeyTrace decode(byte[] data) throws IOException {
+        Input in = new Input(data);
+        int version = (int) in.varint();
+        if (version != VERSION) {
+            throw new IOException("unknown trace version " + version);
+        }
+        int wordCount = in.count();
+        ArrayList<String> words = new ArrayList<String>(wordCount);
+        for (int i = 0; i < wordCount; i++) {
+            int length = in.count();
+            words.add(new String(data, in.take(length), length, StandardCharsets.UTF_8));
+        }
+        int keyCount = in.count();
+        KeyTrace trace = new KeyTrace(words, keyCount);
+        for (int i = 0; i < keyCount; i++) {
+            trace.keys[i] = (char) in.varint();
+            trace.deltas[i] = in.varint();
+            trace.duration += trace.deltas[i];
+        }
+        trace.count = keyCount;
+        return trace;
+    }
+
+    /**
+     * A byte array that varints get added to
+     */
+    private static class Output {
+
+        byte[] buf;
+        int len = 0;
+
+        Output(int size) {
+            buf = new byte[size];
+        }
+
+        void varint(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buf[len++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buf[len++] = (byte) value;
+        }
+
+        void bytes(byte[] bytes) {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buf, len, bytes.length);
+            len += bytes.length;
+        }
+
+        private void ensure(int extra) {
+            if (len + extra > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, len + extra));
+            }
+        }
+
+    }
+
+    /**
+     * Reads varints from a byte array, checking that nothing runs off the end
+     */
+    private static class Input {
+
+        private final byte[] data;
+        private int pos = 0;
+
+        Input(byte[] data) {
+            this.data = data;
+        }
+
+        long varint() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (pos >= data.length) throw new IOException("trace is truncated");
+                byte b = data[pos++];
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) return value;
+            }
+            throw new IOException("trace has a varint that's too long");
+        }
+
+        /**
+         * Reads a count of things that are each at least a byte, so a corrupt one can't make a huge array
+         */
+        int count() throws IOException {
+            long value = varint();
+            if (value > data.length - pos) throw new IOException("trace is truncated or corrupt");
+            return (int) value;
+        }
+
+        /**
+         * Skips over some bytes
+         *
+         * @return  Where they start
+         */
+        int take(int length) throws IOException {
+            if (length > data.length - pos) throw new IOException("trace is truncated");
+            pos += length;
+            return pos - length;
+        }
+
+    }
+
+}
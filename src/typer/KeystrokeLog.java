@@ -0,0 +1,110 @@
+package typer;
+
+/**
+ * Records every keystroke of a game into a ring buffer made of primitive arrays, so recording a key is just a few
+ * array stores (no objects are created). Each entry has the key that was pressed, the character that was expected,
+ * whether it was correct, and how many nanoseconds it came after the key before it.
+ *
+ * If more keys are recorded than the log has room for, the oldest ones get overwritten.
+ */
+public class KeystrokeLog {
+
+    private final int[] keys;
+    private final char[] expected;
+    private final boolean[] correct;
+    private final long[] deltas;
+    private final int mask; // capacity - 1, the capacity is always a power of two
+
+    private long total = 0; // how many keys have ever been recorded
+    private long lastTime = 0; // System.nanoTime() of the last key, 0 before the first
+
+    /**
+     * Creates a keystroke log
+     *
+     * @param capacity  The minimum number of keys to keep, rounded up to a power of two
+     */
+    public KeystrokeLog(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        keys = new int[size];
+        expected = new char[size];
+        correct = new boolean[size];
+        deltas = new long[size];
+        mask = size - 1;
+    }
+
+    /**
+     * Records a keystroke
+     *
+     * @param key       The key code that was pressed
+     * @param expected  The character that should have been typed, or 0 if there wasn't one (like for backspace)
+     * @param correct   Whether the key was right
+     * @param time      The System.nanoTime() the key was pressed at
+     */
+    public void record(int key, char expected, boolean correct, long time) {
+        int i = (int) total & mask;
+        keys[i] = key;
+        this.expected[i] = expected;
+        this.correct[i] = correct;
+        deltas[i] = lastTime == 0 ? 0 : time - lastTime;
+        lastTime = time;
+        total++;
+    }
+
+    /**
+     * Forgets everything that was recorded
+     */
+    public void clear() {
+        total = 0;
+        lastTime = 0;
+    }
+
+    /**
+     * @return  The number of keys that can be read back, at most the capacity
+     */
+    public int size() {
+        return (int) Math.min(total, keys.length);
+    }
+
+    /**
+     * @return  The number of keys recorded in total, including ones that have been overwritten
+     */
+    public long total() {
+        return total;
+    }
+
+    /**
+     * @return  The System.nanoTime() of the most recent key, or 0 if nothing has been recorded
+     */
+    public long lastTime() {
+        return lastTime;
+    }
+
+    // the getters below take an index from 0 (the oldest key still kept) to size() - 1 (the newest)
+
+    public int key(int i) {
+        return keys[slot(i)];
+    }
+
+    public char expected(int i) {
+        return expected[slot(i)];
+    }
+
+    public boolean correct(int i) {
+        return correct[slot(i)];
+    }
+
+    /**
+     * Gets the time between a key and the one before it
+     *
+     * @param i     The index of the key, 0 being the oldest kept
+     * @return      The time in nanoseconds, 0 for the very first key of the game
+     */
+    public long delta(int i) {
+        return deltas[slot(i)];
+    }
+
+    private int slot(int i) {
+        return (int) (total - size() + i) & mask;
+    }
+
+}
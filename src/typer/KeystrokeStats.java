@@ -0,0 +1,155 @@
+package typer;
+
+/**
+ * Works out timing statistics from a KeystrokeLog at the end of a game: the distribution of time between keys,
+ * how long each transition between two letters (a bigram) takes on average, and a burst WPM vs raw WPM curve with
+ * one point per word.
+ */
+public class KeystrokeStats {
+
+    private static final int SYMBOLS = 27; // a-z and space
+    private static final int SPACE = 26;
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final long[] bigramTime = new long[SYMBOLS * SYMBOLS]; // total nanoseconds for each transition
+    private final int[] bigramCount = new int[SYMBOLS * SYMBOLS];
+    private double[] burstWpm; // the speed each word was typed at
+    private double[] rawWpm; // the overall speed (counting every key) at the end of each word
+
+    /**
+     * Analyzes a game's keystrokes
+     *
+     * @param log   The keystrokes to look at
+     */
+    public KeystrokeStats(KeystrokeLog log) {
+        int n = log.size();
+
+        // time between keys, and bigram transitions (only between two correct keys, since a mistake throws off
+        // the timing of whatever comes after it)
+        for (int i = 1; i < n; i++) {
+            latency.record(log.delta(i));
+            int from = symbol(log.key(i - 1));
+            int to = symbol(log.key(i));
+            if (from != -1 && to != -1 && log.correct(i - 1) && log.correct(i)) {
+                bigramTime[from * SYMBOLS + to] += log.delta(i);
+                bigramCount[from * SYMBOLS + to]++;
+            }
+        }
+
+        // one point per word, a word ends when space is pressed
+        int words = 0;
+        for (int i = 0; i < n; i++) {
+            if (log.key(i) == ' ') words++;
+        }
+        burstWpm = new double[words];
+        rawWpm = new double[words];
+
+        long elapsed = 0; // since the first key
+        long wordTime = 0; // since the space before the current word (or the first key)
+        int keys = 0; // every key pressed so far, including mistakes and backspaces
+        int wordChars = 0; // characters in the current word
+        int word = 0;
+        for (int i = 0; i < n; i++) {
+            long delta = log.delta(i);
+            elapsed += delta;
+            wordTime += delta;
+            keys++;
+            wordChars++;
+            if (log.key(i) == ' ') {
+                burstWpm[word] = wpm(wordChars, wordTime);
+                rawWpm[word] = wpm(keys, elapsed);
+                word++;
+                wordTime = 0;
+                wordChars = 0;
+            }
+        }
+    }
+
+    /**
+     * @return  The distribution of time between keys, in nanoseconds
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * Gets the average time of a transition between two keys
+     *
+     * @param from  The first key
+     * @param to    The second key
+     * @return      The average time in nanoseconds, or -1 if that transition was never typed correctly
+     */
+    public long bigramAverage(char from, char to) {
+        int a = symbol(from);
+        int b = symbol(to);
+        if (a == -1 || b == -1 || bigramCount[a * SYMBOLS + b] == 0) return -1;
+        return bigramTime[a * SYMBOLS + b] / bigramCount[a * SYMBOLS + b];
+    }
+
+    /**
+     * Finds the transitions that took the longest on average
+     *
+     * @param amount    How many to find
+     * @param minCount  How many times a transition has to have been typed to count
+     * @return          The bigrams as two-character strings, slowest first (fewer if there aren't enough)
+     */
+    public String[] slowestBigrams(int amount, int minCount) {
+        int[] best = new int[amount];
+        long[] bestTime = new long[amount];
+        int found = 0;
+        for (int i = 0; i < bigramCount.length; i++) {
+            if (bigramCount[i] < minCount) continue;
+            long avg = bigramTime[i] / bigramCount[i];
+            // insertion into the small sorted top list
+            int pos = found;
+            while (pos > 0 && bestTime[pos - 1] < avg) pos--;
+            if (pos >= amount) continue;
+            int end = Math.min(found, amount - 1);
+            System.arraycopy(best, pos, best, pos + 1, end - pos);
+            System.arraycopy(bestTime, pos, bestTime, pos + 1, end - pos);
+            best[pos] = i;
+            bestTime[pos] = avg;
+            if (found < amount) found++;
+        }
+
+        String[] out = new String[found];
+        for (int i = 0; i < found; i++) {
+            out[i] = "" + letter(best[i] / SYMBOLS) + letter(best[i] % SYMBOLS);
+        }
+        return out;
+    }
+
+    /**
+     * @return  The WPM each word was typed at, from the space before it to the space after it
+     */
+    public double[] getBurstWpm() {
+        return burstWpm;
+    }
+
+    /**
+     * @return  The overall WPM (counting every key pressed) at the end of each word
+     */
+    public double[] getRawWpm() {
+        return rawWpm;
+    }
+
+    /**
+     * Calculates words per minute, a word being 5 characters
+     */
+    private static double wpm(int chars, long nanos) {
+        if (nanos <= 0) return 0;
+        return (chars / 5.0) / (nanos / 60_000_000_000.0);
+    }
+
+    private static int symbol(int key) {
+        if (key >= 'a' && key <= 'z') return key - 'a';
+        if (key >= 'A' && key <= 'Z') return key - 'A'; // from quote mode, which isn't lowercased
+        if (key == ' ') return SPACE;
+        return -1;
+    }
+
+    private static char letter(int symbol) {
+        return symbol == SPACE ? '_' : (char) ('a' + symbol);
+    }
+
+}
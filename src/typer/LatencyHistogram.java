@@ -0,0 +1,118 @@
+package typer;
+
+import java.util.Arrays;
+
+/**
+ * A histogram for latencies in nanoseconds, laid out like HdrHistogram: values are bucketed by their highest bit
+ * (powers of two), and each of those is split into a fixed number of equal sub-buckets. That keeps the relative
+ * error under 1 / SUB_BUCKETS (about 1.6%) for any value, with a fixed amount of memory and no allocation when
+ * recording.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS; // 64 sub-buckets per power of two
+
+    private final long[] counts = new long[(64 - SUB_BITS + 1) * SUB_BUCKETS];
+    private long count = 0;
+    private long sum = 0;
+    private long min = Long.MAX_VALUE;
+    private long max = 0;
+
+    /**
+     * Adds a value to the histogram
+     *
+     * @param value     The value, negative values count as 0
+     */
+    public void record(long value) {
+        if (value < 0) value = 0;
+        counts[index(value)]++;
+        count++;
+        sum += value;
+        if (value < min) min = value;
+        if (value > max) max = value;
+    }
+
+    /**
+     * Gets the value at a percentile, this is the highest value that could be in the bucket it lands in (the same
+     * way HdrHistogram reports it), but never more than the biggest value recorded
+     *
+     * @param percentile    The percentile, from 0 to 100
+     * @return              The value, or 0 if nothing was recorded
+     */
+    public long percentile(double percentile) {
+        if (count == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) return Math.min(highestValue(i), max);
+        }
+        return max;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public long min() {
+        return count == 0 ? 0 : min;
+    }
+
+    public long max() {
+        return max;
+    }
+
+    public double mean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * Adds everything recorded in another histogram to this one, like when combining the results of several runs
+     *
+     * @param other     The histogram to add
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Empties the histogram so it can be used again
+     */
+    public void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        sum = 0;
+        min = Long.MAX_VALUE;
+        max = 0;
+    }
+
+    /**
+     * Finds the bucket for a value. Values under SUB_BUCKETS get a bucket each, after that each power of two gets
+     * SUB_BUCKETS buckets.
+     */
+    private static int index(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int bits = 64 - Long.numberOfLeadingZeros(value); // bits > SUB_BITS here
+        int shift = bits - SUB_BITS - 1;
+        int sub = (int) (value >>> shift) - SUB_BUCKETS; // the top SUB_BITS bits under the highest one
+        return (shift + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * The largest value that would land in a bucket
+     */
+    private static long highestValue(int index) {
+        if (index < SUB_BUCKETS) return index;
+        int shift = index / SUB_BUCKETS - 1;
+        long sub = index % SUB_BUCKETS + SUB_BUCKETS;
+        return ((sub + 1) << shift) - 1;
+    }
+
+}
@@ -0,0 +1,139 @@
+package typer;
+
+import java.util.Arrays;
+
+/**
+ * Works out where the lines break in a list of words, in one pass over the word lengths. The result is just an
+ * int[] with the index of the first word on each line, so nothing gets built out of strings.
+ *
+ * A word goes on the current line if it fits (with a space before it, unless it's the first word on the line).
+ * A word that's longer than the whole width gets a line to itself.
+ *
+ * The words don't have to start at 0: a layout can cover just the words that are on screen in a long game, and the
+ * word indexes it takes and gives back are still the game's.
+ */
+public class LineLayout {
+
+    private final int[] wordLengths;
+    private final int firstWord; // the index of the word whose length is wordLengths[0]
+    private final int wordCount;
+    private int width;
+    private int[] lineStarts = new int[16]; // the first word of each line, lineStarts[lineCount] is wordCount
+    private int lineCount = 0;
+
+    /**
+     * Lays out words into lines
+     *
+     * @param wordLengths   The length of each word
+     * @param wordCount     How many words there are (the array can be bigger)
+     * @param width         The maximum characters per line
+     */
+    public LineLayout(int[] wordLengths, int wordCount, int width) {
+        this(wordLengths, 0, wordCount, width);
+    }
+
+    /**
+     * Lays out some of a game's words into lines
+     *
+     * @param wordLengths   The length of each word, starting with firstWord
+     * @param firstWord     The index of the first word
+     * @param wordCount     How many words there are (the array can be bigger)
+     * @param width         The maximum characters per line
+     */
+    public LineLayout(int[] wordLengths, int firstWord, int wordCount, int width) {
+        this.wordLengths = wordLengths;
+        this.firstWord = firstWord;
+        this.wordCount = wordCount;
+        this.width = Math.max(width, 1);
+        layOut();
+    }
+
+    /**
+     * Changes the width and lays everything out again, like when the terminal gets resized
+     *
+     * @param width     The new maximum characters per line
+     */
+    public void setWidth(int width) {
+        width = Math.max(width, 1);
+        if (width == this.width) return;
+        this.width = width;
+        layOut();
+    }
+
+    /**
+     * Lays out all of the lines, from the first word
+     */
+    private void layOut() {
+        int end = firstWord + wordCount;
+        int word = firstWord;
+        lineCount = 0;
+
+        while (word < end) {
+            ensureLines(lineCount + 2);
+            lineStarts[lineCount++] = word;
+
+            int length = wordLengths[word++ - firstWord]; // the first word always goes on the line
+            while (word < end && length + 1 + wordLengths[word - firstWord] <= width) {
+                length += 1 + wordLengths[word++ - firstWord];
+            }
+        }
+        ensureLines(lineCount + 1);
+        lineStarts[lineCount] = end;
+    }
+
+    public int lineCount() {
+        return lineCount;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @param line  The line
+     * @return      The index of the first word on the line
+     */
+    public int lineStart(int line) {
+        return lineStarts[line];
+    }
+
+    /**
+     * @param line  The line
+     * @return      The index after the last word on the line
+     */
+    public int lineEnd(int line) {
+        return lineStarts[line + 1];
+    }
+
+    /**
+     * Gets the length of a line, including the spaces between words
+     *
+     * @param line  The line
+     * @return      The number of characters on the line
+     */
+    public int lineLength(int line) {
+        int length = -1;
+        for (int i = lineStarts[line]; i < lineStarts[line + 1]; i++) {
+            length += wordLengths[i - firstWord] + 1;
+        }
+        return Math.max(length, 0);
+    }
+
+    /**
+     * Finds which line a word is on, with a binary search
+     *
+     * @param word  The index of the word
+     * @return      The line it's on
+     */
+    public int lineOf(int word) {
+        int i = Arrays.binarySearch(lineStarts, 0, lineCount, word);
+        return i >= 0 ? i : -i - 2;
+    }
+
+    private void ensureLines(int size) {
+        if (size > lineStarts.length) {
+            lineStarts = Arrays.copyOf(lineStarts, Math.max(size, lineStarts.length * 2));
+        }
+    }
+
+}
@@ -0,0 +1,197 @@
+package typer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Simulates lots of users connected to a TyperServer, to see how many sessions it can handle. Idle users connect and
+ * never type, active users answer the server's telnet options like a real client would, type made-up words (5 random
+ * letters each, so they're mostly wrong, which doesn't matter here) at a steady rate, press enter on the end screen,
+ * then connect again for another game.
+ *
+ * Run it with: java typer.LoopbackClient [options]
+ * <pre>
+ *   --host name      The server (default 127.0.0.1)
+ *   --port n         The server's port (default 4000)
+ *   --idle n         Users that connect and do nothing (default 0)
+ *   --active n       Users that play games (default 10)
+ *   --games n        Games each active user plays (default 1)
+ *   --words n        Words per game, has to match the server (default 50)
+ *   --rate n         Keys per second for each active user, 0 for as fast as possible (default 10)
+ * </pre>
+ */
+public class LoopbackClient {
+
+    // what a telnet client sends back when the server asks for character mode: IAC DO ECHO, IAC DO SGA, then
+    // IAC WILL NAWS and its window size (80x24) in IAC SB NAWS ... IAC SE
+    private static final byte[] TELNET_REPLY = {
+        (byte) 255, (byte) 253, 1, (byte) 255, (byte) 253, 3,
+        (byte) 255, (byte) 251, 31, (byte) 255, (byte) 250, 31, 0, 80, 0, 24, (byte) 255, (byte) 240
+    };
+
+    private String host = "127.0.0.1";
+    private int port = 4000;
+    private int idle = 0;
+    private int active = 10;
+    private int games = 1;
+    private int words = 50;
+    private int rate = 10;
+
+    private final AtomicLong played = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong keys = new AtomicLong();
+    private final AtomicLong received = new AtomicLong(); // bytes the server sent
+    private final LatencyHistogram gameTimes = new LatencyHistogram(); // only touched while holding its lock
+
+    /**
+     * Plays one game: types the words, presses enter, and reads until the server hangs up
+     *
+     * @param random    Where to get the letters from
+     * @throws IOException
+     */
+    private void playGame(SplittableRandom random) throws IOException {
+        long start = System.nanoTime();
+        try (Socket socket = new Socket(host, port)) {
+            socket.setTcpNoDelay(true);
+            OutputStream out = socket.getOutputStream();
+            InputStream in = socket.getInputStream();
+
+            // read the screen in the background, so the server never blocks on a full socket buffer
+            Thread reader = new Thread(() -> drain(in));
+            reader.setDaemon(true);
+            reader.start();
+            out.write(TELNET_REPLY);
+
+            long interval = rate > 0 ? 1_000_000_000L / rate : 0;
+            long next = System.nanoTime();
+            for (int w = 0; w <= words; w++) {
+                int length = w < words ? 6 : 1;
+                for (int i = 0; i < length; i++) {
+                    if (interval > 0) {
+                        long now = System.nanoTime();
+                        if (next > now) LockSupport.parkNanos(next - now);
+                        next += interval;
+                    }
+                    if (w == words) out.write(new byte[] { '\r', 0 }); // telnet sends enter as CR NUL
+                    else out.write(i < 5 ? 'a' + random.nextInt(26) : ' ');
+                    keys.incrementAndGet();
+                }
+            }
+            out.flush();
+            reader.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (gameTimes) {
+            gameTimes.record(System.nanoTime() - start);
+        }
+        played.incrementAndGet();
+    }
+
+    private void drain(InputStream in) {
+        byte[] buf = new byte[8192];
+        try {
+            int n;
+            while ((n = in.read(buf)) != -1) {
+                received.addAndGet(n);
+            }
+        } catch (IOException e) {
+            // the socket got closed, that's the end of the game either way
+        }
+    }
+
+    /**
+     * Connects all the users, waits for the active ones to finish their games, then prints the results
+     *
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    public void run() throws IOException, InterruptedException {
+        // idle users only need a socket, there's nothing for them to do
+        ArrayList<Socket> idleSockets = new ArrayList<Socket>(idle);
+        for (int i = 0; i < idle; i++) {
+            idleSockets.add(new Socket(host, port));
+        }
+        System.out.println(idle + " idle users connected");
+
+        long start = System.nanoTime();
+        ExecutorService users = TyperServer.newSessionExecutor("typer-user-");
+        for (int u = 0; u < active; u++) {
+            long seed = u;
+            users.execute(() -> {
+                SplittableRandom random = new SplittableRandom(seed);
+                for (int g = 0; g < games; g++) {
+                    try {
+                        playGame(random);
+                    } catch (IOException e) {
+                        failed.incrementAndGet();
+                    }
+                }
+            });
+        }
+        users.shutdown();
+        users.awaitTermination(1, TimeUnit.DAYS);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        for (Socket socket: idleSockets) {
+            socket.close();
+        }
+
+        System.out.println("games:      " + played.get() + " played, " + failed.get() + " failed, in "
+                           + String.format("%.2f", seconds) + "s");
+        System.out.println("keys:       " + keys.get() + " (" + String.format("%.0f", keys.get() / seconds) + "/s)");
+        System.out.println("received:   " + received.get() + " bytes");
+        System.out.println("game time:  p50 " + toMillis(gameTimes.percentile(50)) + "ms  p99 "
+                           + toMillis(gameTimes.percentile(99)) + "ms  max " + toMillis(gameTimes.max()) + "ms");
+    }
+
+    private static long toMillis(long nanos) {
+        return nanos / 1_000_000;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        LoopbackClient client = new LoopbackClient();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException(arg + " needs a value");
+            }
+            String value = args[++i];
+            switch (arg) {
+                case "--host":
+                    client.host = value;
+                    break;
+                case "--port":
+                    client.port = Integer.parseInt(value);
+                    break;
+                case "--idle":
+                    client.idle = Integer.parseInt(value);
+                    break;
+                case "--active":
+                    client.active = Integer.parseInt(value);
+                    break;
+                case "--games":
+                    client.games = Integer.parseInt(value);
+                    break;
+                case "--words":
+                    client.words = Integer.parseInt(value);
+                    break;
+                case "--rate":
+                    client.rate = Integer.parseInt(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown option " + arg);
+            }
+        }
+        client.run();
+    }
+
+}
@@ -0,0 +1,108 @@
+package typer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * A wordlist read straight out of a memory mapped .twl file (see WordlistCompiler for the format). Opening it only
+ * reads the header, and words are decoded from the file when they're asked for, so it takes about the same time
+ * and heap to open a 500k word list as a 1k word one.
+ *
+ * It's a List<String>, so it can be passed anywhere a wordlist is used. It's read-only.
+ */
+public class MappedWordlist extends AbstractList<String> implements RandomAccess {
+
+    private final ByteBuffer data;
+    private final int count;
+    private final int offsetsStart;
+    private final int masksStart;
+    private final int lengthsStart;
+    private final int blobStart;
+
+    private MappedWordlist(ByteBuffer data) throws IOException {
+        this.data = data;
+        if (data.capacity() < WordlistCompiler.HEADER_SIZE || data.getInt(0) != WordlistCompiler.MAGIC) {
+            throw new IOException("not a compiled wordlist (bad header)");
+        }
+        count = data.getInt(4);
+        int blobLength = data.getInt(8);
+        offsetsStart = WordlistCompiler.HEADER_SIZE;
+        masksStart = offsetsStart + 4 * (count + 1);
+        lengthsStart = masksStart + 4 * count;
+        blobStart = lengthsStart + 2 * count;
+        if (count < 0 || blobLength < 0 || (long) blobStart + blobLength > data.capacity()) {
+            throw new IOException("compiled wordlist is truncated or corrupt");
+        }
+    }
+
+    /**
+     * Memory maps a compiled wordlist
+     *
+     * @param path  The path of the .twl file
+     * @return      The wordlist
+     * @throws IOException if the file can't be read or isn't a compiled wordlist
+     */
+    public static MappedWordlist open(Path path) throws IOException {
+        // the mapping stays valid after the channel is closed
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            try {
+                return new MappedWordlist(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            } catch (IOException e) {
+                throw new IOException(path + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Decodes a word from the file. A new String is made each time, so hold on to it if it's needed again.
+     */
+    @Override
+    public String get(int index) {
+        checkIndex(index);
+        int start = data.getInt(offsetsStart + 4 * index);
+        int end = data.getInt(offsetsStart + 4 * (index + 1));
+        byte[] bytes = new byte[end - start];
+        data.get(blobStart + start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Gets the length of a word without decoding it
+     *
+     * @param index     The index of the word
+     * @return          The length in chars
+     */
+    public int length(int index) {
+        checkIndex(index);
+        return data.getShort(lengthsStart + 2 * index);
+    }
+
+    /**
+     * Gets which letters a word uses without decoding it
+     *
+     * @param index     The index of the word
+     * @return          The letter mask, see WordlistCompiler.letterMask
+     */
+    public int letterMask(int index) {
+        checkIndex(index);
+        return data.getInt(masksStart + 4 * index);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + count);
+        }
+    }
+
+}
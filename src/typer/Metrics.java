@@ -0,0 +1,230 @@
+package typer;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counters for every game running in this process, for watching a server (or anything else that runs lots of games)
+ * while it's going. There's only one, from Metrics.get().
+ *
+ * Games don't touch it for every key: each Typer counts its own keys and render latencies, and hands them over a
+ * batch at a time (on its status line tick, and at the end), so lots of sessions don't all fight over the same
+ * counters. The latency percentiles are for the last interval between snapshots, not all time.
+ *
+ * start() registers it as a JMX MBean (typer:type=Metrics) and takes a snapshot every interval, writing it to a file
+ * in the Prometheus text format if one is given (for node_exporter's textfile collector, or anything that can read
+ * a file). The file is written to a temporary file and then moved over the old one, so it's never half written.
+ */
+public class Metrics implements MetricsMBean {
+
+    private static final Metrics INSTANCE = new Metrics();
+
+    private final AtomicInteger active = new AtomicInteger(); // games running right now
+    private final LongAdder started = new LongAdder();
+    private final LongAdder finished = new LongAdder();
+    private final LongAdder keys = new LongAdder();
+
+    // guarded by this
+    private final LatencyHistogram window = new LatencyHistogram(); // render latencies since the last snapshot
+    private final LatencyHistogram lastWindow = new LatencyHistogram(); // the ones from the interval before that
+    private long snapshotKeys = 0;
+    private long snapshotTime = System.nanoTime();
+    private double keysPerSecond = 0;
+    private Thread exporter = null;
+
+    private Metrics() {
+    }
+
+    /**
+     * @return  The metrics for this process
+     */
+    public static Metrics get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Registers the MBean, and starts a daemon thread that takes a snapshot every interval. Calling it again does
+     * nothing.
+     *
+     * @param file          Where to write the Prometheus text after each snapshot, or null to not write anything
+     * @param intervalMillis How often to take a snapshot
+     * @throws IOException if the MBean can't be registered
+     */
+    public synchronized void start(Path file, long intervalMillis) throws IOException {
+        if (exporter != null) return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName("typer:type=Metrics"));
+        } catch (JMException e) {
+            throw new IOException("couldn't register the metrics MBean", e);
+        }
+
+        exporter = new Thread(() -> {
+            while (true) {
+                try {
+                    Thread.sleep(intervalMillis);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                snapshot();
+                if (file != null) {
+                    try {
+                        write(file);
+                    } catch (IOException e) {
+                        // keep going, the next snapshot might work (like if the folder was missing for a bit)
+                    }
+                }
+            }
+        }, "typer-metrics");
+        exporter.setDaemon(true);
+        exporter.start();
+    }
+
+    void gameStarted() {
+        active.incrementAndGet();
+        started.increment();
+    }
+
+    void gameEnded(boolean wasFinished) {
+        active.decrementAndGet();
+        if (wasFinished) finished.increment();
+    }
+
+    /**
+     * Adds a batch of a game's keys and render latencies
+     *
+     * @param keyCount      How many keys were handled
+     * @param latencies     The time from reading keys to them being on screen, in nanoseconds
+     * @param count         How many of the latencies to use
+     */
+    void add(int keyCount, long[] latencies, int count) {
+        keys.add(keyCount);
+        if (count == 0) return;
+        synchronized (this) {
+            for (int i = 0; i < count; i++) {
+                window.record(latencies[i]);
+            }
+        }
+    }
+
+    /**
+     * Ends the current interval: works out the keys per second since the last snapshot, and keeps the render
+     * latencies from it for the percentiles
+     */
+    public synchronized void snapshot() {
+        long now = System.nanoTime();
+        long total = keys.sum();
+        keysPerSecond = (total - snapshotKeys) * 1e9 / Math.max(1, now - snapshotTime);
+        snapshotKeys = total;
+        snapshotTime = now;
+        lastWindow.reset();
+        lastWindow.add(window);
+        window.reset();
+    }
+
+    /**
+     * Writes the metrics in the Prometheus text format
+     *
+     * @param file      The file, it's replaced in one go
+     * @throws IOException if it can't be written
+     */
+    public void write(Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temp, prometheus().getBytes(StandardCharsets.UTF_8));
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return  The metrics in the Prometheus text format
+     */
+    public synchronized String prometheus() {
+        StringBuilder out = new StringBuilder(1024);
+        metric(out, "typer_active_sessions", "gauge", "Games running right now", getActiveSessions());
+        metric(out, "typer_games_started_total", "counter", "Games started", getGamesStarted());
+        metric(out, "typer_games_finished_total", "counter", "Games played to the end", getGamesFinished());
+        metric(out, "typer_keys_total", "counter", "Keys handled", getKeysTotal());
+        metric(out, "typer_keys_per_second", "gauge", "Keys handled per second over the last interval",
+               getKeysPerSecond());
+        out.append("# HELP typer_render_latency_seconds Time from reading a key to it being on screen, over the last "
+                   + "interval\n");
+        out.append("# TYPE typer_render_latency_seconds summary\n");
+        out.append("typer_render_latency_seconds{quantile=\"0.5\"} ").append(lastWindow.percentile(50) / 1e9)
+           .append('\n');
+        out.append("typer_render_latency_seconds{quantile=\"0.99\"} ").append(lastWindow.percentile(99) / 1e9)
+           .append('\n');
+        out.append("typer_render_latency_seconds_count ").append(lastWindow.count()).append('\n');
+        metric(out, "typer_gc_pause_seconds_total", "counter", "Time spent in garbage collection",
+               getGcPauseMillis() / 1000.0);
+        metric(out, "typer_gc_collections_total", "counter", "Garbage collections", getGcCount());
+        return out.toString();
+    }
+
+    private static void metric(StringBuilder out, String name, String type, String help, Object value) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        out.append(name).append(' ').append(value).append('\n');
+    }
+
+    @Override
+    public int getActiveSessions() {
+        return active.get();
+    }
+
+    @Override
+    public long getGamesStarted() {
+        return started.sum();
+    }
+
+    @Override
+    public long getGamesFinished() {
+        return finished.sum();
+    }
+
+    @Override
+    public long getKeysTotal() {
+        return keys.sum();
+    }
+
+    @Override
+    public synchronized double getKeysPerSecond() {
+        return keysPerSecond;
+    }
+
+    @Override
+    public synchronized long getRenderLatencyP50Micros() {
+        return lastWindow.percentile(50) / 1000;
+    }
+
+    @Override
+    public synchronized long getRenderLatencyP99Micros() {
+        return lastWindow.percentile(99) / 1000;
+    }
+
+    @Override
+    public long getGcPauseMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc: ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+
+    @Override
+    public long getGcCount() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc: ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionCount());
+        }
+        return total;
+    }
+
+}
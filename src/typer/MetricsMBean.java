@@ -0,0 +1,26 @@
+package typer;
+
+/**
+ * What Metrics shows over JMX (in JConsole or VisualVM, under typer:type=Metrics)
+ */
+public interface MetricsMBean {
+
+    int getActiveSessions();
+
+    long getGamesStarted();
+
+    long getGamesFinished();
+
+    long getKeysTotal();
+
+    double getKeysPerSecond();
+
+    long getRenderLatencyP50Micros();
+
+    long getRenderLatencyP99Micros();
+
+    long getGcPauseMillis();
+
+    long getGcCount();
+
+}
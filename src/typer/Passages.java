@@ -0,0 +1,384 @@
+package typer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Passages of real text for quote mode, read out of a big text file (like a dump of books, which can be gigabytes)
+ * without ever reading the whole thing into memory. A passage is a paragraph, or a few sentences of a long one.
+ *
+ * The first time a text file is opened, it's scanned once to find where every passage starts and ends, and that's
+ * saved next to it as a .tpi file (books.txt gets books.tpi), which is used again as long as it's at least as new
+ * as the text. The .tpi file is memory mapped, and a passage is read from the text with one positional read of just
+ * its bytes, so opening a huge file and picking a passage from it both take about as long as for a small one.
+ * <pre>
+ *   int     magic ("TPI1")
+ *   int     number of passages (n)
+ *   long    the size of the text file it was made from
+ *   n x     long    where the passage starts in the text file, in bytes
+ *           int     how many bytes it is
+ * </pre>
+ * Everything is big endian.
+ *
+ * The text has to be UTF-8. Passages only ever start and end at ASCII characters, so they never cut a character in
+ * half. When a passage is read, its whitespace (line breaks and all) turns into single spaces between words, curly
+ * quotes, dashes and ellipses become the ones on a keyboard, and anything that can't be shown in one cell of the
+ * screen (control characters, and characters that take two UTF-16 units, like emoji) is left out. Everything else
+ * stays as it is: capitals, punctuation and digits all have to be typed.
+ *
+ * Any number of threads can read passages at once.
+ *
+ * Run it with: java typer.Passages file.txt, to make (or check) the index and show a random passage
+ */
+public class Passages implements Closeable {
+
+    public static final int MAGIC = 0x54504931; // "TPI1"
+    public static final int HEADER_SIZE = 16;
+    private static final int ENTRY_SIZE = 12;
+
+    static final int MIN_BYTES = 100; // shorter paragraphs (titles, headings, "CHAPTER IV") aren't passages
+    static final int MAX_BYTES = 600; // longer ones are split at the end of a sentence, or skipped if there isn't one
+
+    private final FileChannel text;
+    private final ByteBuffer index;
+    private final int count;
+
+    private Passages(FileChannel text, ByteBuffer index) throws IOException {
+        this.text = text;
+        this.index = index;
+        if (index.capacity() < HEADER_SIZE || index.getInt(0) != MAGIC) {
+            throw new IOException("not a passage index (bad header)");
+        }
+        count = index.getInt(4);
+        if (count < 0 || HEADER_SIZE + (long) count * ENTRY_SIZE > index.capacity()) {
+            throw new IOException("passage index is truncated or corrupt");
+        }
+    }
+
+    /**
+     * Opens a text file for reading passages, making its index first if there isn't an up to date one
+     *
+     * @param path  The text file, in UTF-8
+     * @return      The passages
+     * @throws IOException if the file can't be read, or the index can't be written
+     */
+    public static Passages open(Path path) throws IOException {
+        Path indexPath = indexPath(path);
+        if (!isUpToDate(path, indexPath)) {
+            build(path, indexPath);
+        }
+
+        FileChannel text = FileChannel.open(path, StandardOpenOption.READ);
+        try (FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.READ)) {
+            // the mapping stays valid after the channel is closed
+            Passages passages = new Passages(text, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            if (passages.count == 0) throw new IOException(path + " doesn't have any passages in it");
+            return passages;
+        } catch (IOException | RuntimeException e) {
+            text.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return  Where the index for a text file goes: next to it, with .tpi instead of its extension
+     */
+    static Path indexPath(Path path) {
+        String name = path.getFileName().toString().replaceFirst("\\.[^.]*$", "") + ".tpi";
+        return path.resolveSibling(name);
+    }
+
+    private static boolean isUpToDate(Path path, Path indexPath) throws IOException {
+        if (!Files.isRegularFile(indexPath)
+                || Files.getLastModifiedTime(indexPath).compareTo(Files.getLastModifiedTime(path)) < 0) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header) != -1) {
+                // keep reading
+            }
+            return !header.hasRemaining() && header.getInt(0) == MAGIC && header.getLong(8) == Files.size(path);
+        }
+    }
+
+    /**
+     * Scans a text file for passages and writes the index. It only keeps one buffer of the text in memory, and the
+     * passages are written as they're found, so it takes the same memory for any size of file. The index is written
+     * to a temporary file and moved over the old one at the end, so a scan that fails partway doesn't leave a broken
+     * index behind.
+     *
+     * @param path          The text file
+     * @param indexPath     Where to write the index
+     * @return              The number of passages found
+     * @throws IOException if the text can't be read or the index can't be written
+     */
+    public static int build(Path path, Path indexPath) throws IOException {
+        Path temp = indexPath.resolveSibling(indexPath.getFileName() + ".tmp");
+        try {
+            int count;
+            try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ);
+                 FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                Scanner scanner = new Scanner(out);
+                ByteBuffer buffer = ByteBuffer.allocate(1 << 20);
+                long offset = 0;
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    scanner.scan(buffer.array(), read, offset);
+                    offset += read;
+                    buffer.clear();
+                }
+                scanner.finish();
+                count = scanner.count;
+
+                // the header goes in last, once the count is known
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(MAGIC).putInt(count).putLong(offset).flip();
+                out.write(header, 0);
+            }
+            Files.move(temp, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return count;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * @return  The number of passages
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * @return  A random passage's number
+     */
+    public int random() {
+        return ThreadLocalRandom.current().nextInt(count);
+    }
+
+    /**
+     * Reads a passage from the text file, tidied up for typing (see the class comment)
+     *
+     * @param passage   The passage's number, which wraps around, so passage + 1 is always the one after it
+     * @return          The text, with single spaces between the words
+     * @throws IOException if the text file can't be read
+     */
+    public String read(int passage) throws IOException {
+        int i = Math.floorMod(passage, count);
+        long start = index.getLong(HEADER_SIZE + i * ENTRY_SIZE);
+        int length = index.getInt(HEADER_SIZE + i * ENTRY_SIZE + 8);
+        ByteBuffer bytes = ByteBuffer.allocate(length);
+        while (bytes.hasRemaining()) {
+            if (text.read(bytes, start + bytes.position()) == -1) {
+                throw new IOException("the text file is shorter than its index says, it was changed after indexing");
+            }
+        }
+        return tidy(new String(bytes.array(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads a passage and splits it into words, for a game
+     *
+     * @param passage   The passage's number, which wraps around
+     * @return          The words, which still have their punctuation on them
+     * @throws IOException if the text file can't be read
+     */
+    public ArrayList<String> words(int passage) throws IOException {
+        String passageText = read(passage);
+        ArrayList<String> words = new ArrayList<String>(passageText.length() / 5 + 1);
+        int start = 0;
+        for (int i = 0; i <= passageText.length(); i++) {
+            if (i == passageText.length() || passageText.charAt(i) == ' ') {
+                if (i > start) words.add(passageText.substring(start, i));
+                start = i + 1;
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Makes text typeable: single spaces between words, keyboard punctuation, and nothing that takes more than one
+     * cell or char
+     */
+    static String tidy(CharSequence raw) {
+        StringBuilder out = new StringBuilder(raw.length());
+        boolean space = false;
+        for (int i = 0; i < raw.length(); i++) {
+            char ch = raw.charAt(i);
+            switch (ch) {
+                case '\u2018': case '\u2019': case '\u201a': case '\u2032':
+                    ch = '\'';
+                    break;
+                case '\u201c': case '\u201d': case '\u201e': case '\u2033':
+                    ch = '"';
+                    break;
+                case '\u2010': case '\u2011': case '\u2012': case '\u2013': case '\u2014': case '\u2015':
+                    ch = '-';
+                    break;
+                case '\u00a0': case '\u2002': case '\u2003': case '\u2009':
+                    ch = ' ';
+                    break;
+                case '\u2026':
+                    // one char that's three on a keyboard
+                    if (space && out.length() > 0) out.append(' ');
+                    space = false;
+                    out.append("...");
+                    continue;
+                default:
+                    break;
+            }
+            if (Character.isWhitespace(ch) || Character.isISOControl(ch)) {
+                space = true;
+            } else if (!Character.isSurrogate(ch) && ch != '\ufeff') {
+                if (space && out.length() > 0) out.append(' ');
+                space = false;
+                out.append(ch);
+            }
+        }
+        return out.toString();
+    }
+
+    @Override
+    public void close() throws IOException {
+        text.close();
+    }
+
+    /**
+     * Finds the passages in a text, a buffer at a time. A paragraph is everything between blank lines, so a book
+     * that's wrapped at 70 columns still gets whole paragraphs. Only ASCII bytes are ever looked at to decide where
+     * things start and end, and in UTF-8 those are never part of a bigger character.
+     */
+    private static class Scanner {
+
+        private final FileChannel out;
+        private final ByteBuffer entries = ByteBuffer.allocate(ENTRY_SIZE * 4096);
+        private long written = HEADER_SIZE;
+        int count = 0;
+
+        private long start = -1; // where the current passage starts, -1 if it hasn't yet
+        private long textEnd = 0; // after the last character that isn't whitespace
+        private long sentenceEnd = -1; // after the last end of a sentence in the current passage
+        private long afterSentence = -1; // where the next sentence starts after that
+        private boolean blankLine = true; // nothing but whitespace so far on this line
+        private boolean skipping = false; // the current paragraph was too long without a sentence end to split it
+        private int last = '\n'; // the last two bytes that weren't a space or a line break
+        private int beforeLast = '\n';
+
+        Scanner(FileChannel out) {
+            this.out = out;
+        }
+
+        void scan(byte[] buffer, int length, long offset) throws IOException {
+            for (int i = 0; i < length; i++) {
+                int b = buffer[i] & 0xFF;
+                long pos = offset + i;
+                if (b == '\n') {
+                    if (blankLine) {
+                        endParagraph();
+                    } else {
+                        endWord(pos);
+                    }
+                    blankLine = true;
+                } else if (b == ' ' || b == '\t' || b == '\r') {
+                    endWord(pos);
+                } else {
+                    blankLine = false;
+                    if (start == -1 && !skipping) start = pos;
+                    if (sentenceEnd != -1 && afterSentence == -1) afterSentence = pos;
+                    textEnd = pos + 1;
+                    beforeLast = last;
+                    last = b;
+                    if (start != -1 && textEnd - start > MAX_BYTES) split();
+                }
+            }
+        }
+
+        /**
+         * Whitespace after a word, which ends a sentence if the word did (like "end." or "end!" or "end.\"")
+         */
+        private void endWord(long pos) {
+            if (start == -1 || textEnd != pos) return; // only the first whitespace after the word
+            boolean quoted = last == '"' || last == '\'' || last == ')';
+            int end = quoted ? beforeLast : last;
+            if (end == '.' || end == '!' || end == '?') {
+                sentenceEnd = pos;
+                afterSentence = -1;
+            }
+        }
+
+        /**
+         * The passage has gotten too long: it ends at the last sentence, and the rest starts the next one
+         */
+        private void split() throws IOException {
+            if (sentenceEnd != -1 && afterSentence != -1) {
+                add(start, sentenceEnd);
+                start = afterSentence;
+                sentenceEnd = -1;
+                afterSentence = -1;
+                if (textEnd - start <= MAX_BYTES) return;
+            }
+            // one sentence on its own is too long (or it's not prose, like a table), so skip to the next paragraph
+            skipping = true;
+            start = -1;
+            sentenceEnd = -1;
+            afterSentence = -1;
+        }
+
+        private void endParagraph() throws IOException {
+            if (start != -1) add(start, textEnd);
+            start = -1;
+            sentenceEnd = -1;
+            afterSentence = -1;
+            skipping = false;
+        }
+
+        private void add(long from, long to) throws IOException {
+            if (to - from < MIN_BYTES) return;
+            entries.putLong(from).putInt((int) (to - from));
+            count++;
+            if (!entries.hasRemaining()) flush();
+        }
+
+        private void flush() throws IOException {
+            entries.flip();
+            while (entries.hasRemaining()) {
+                written += out.write(entries, written);
+            }
+            entries.clear();
+        }
+
+        void finish() throws IOException {
+            endParagraph();
+            flush();
+        }
+
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.out.println("Usage: java typer.Passages <file.txt>");
+            return;
+        }
+        long start = System.nanoTime();
+        try (Passages passages = open(Paths.get(args[0]))) {
+            System.out.println(passages.size() + " passages, opened in " + (System.nanoTime() - start) / 1_000_000
+                               + "ms");
+            start = System.nanoTime();
+            String passage = passages.read(passages.random());
+            System.out.println("read one in " + (System.nanoTime() - start) / 1000 + "us:\n\n" + passage);
+        }
+    }
+
+}
@@ -0,0 +1,276 @@
+package typer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Keeps a copy of what's on the screen in memory, and only sends the cells that changed since the last frame.
+ * Everything for one frame is collected into a single byte buffer, which gets written and flushed once, so
+ * there's one write per keystroke instead of one per System.out.print call.
+ */
+public class Renderer {
+
+    private static final byte ESC = 27;
+    private static final byte[] NO_UNDERLINE = { ESC, '[', '2', '4', 'm' }; // after the ghost's color
+
+    private final OutputStream out;
+    private final byte[][] fgCodes; // escape sequence for each foreground color index
+    private final byte[] bgCode; // escape sequence for the background color
+
+    private int width;
+    private int height;
+    private char[] shown; // what's currently on the terminal
+    private byte[] shownColor;
+    private char[] wanted; // what the next frame should look like
+    private byte[] wantedColor;
+    private int[] dirtyStart; // first changed column for each row, or width if the row is clean
+    private int[] dirtyEnd; // one past the last changed column for each row
+
+    private byte[] buf = new byte[4096]; // escape sequences for the current frame
+    private int len = 0;
+
+    private int cursorRow = 0; // where the cursor should be after the frame
+    private int cursorCol = 0;
+    private int termRow = 0; // where the terminal's cursor actually is, -1 if unknown
+    private int termCol = 0;
+    private int termColor = -1; // the foreground color the terminal is set to, -1 if unknown (the ghost's color
+                                // is the only one that's underlined, so that gets turned off when it changes)
+
+    /**
+     * Creates a renderer that draws onto a terminal's output stream
+     *
+     * @param out       The stream to write frames to, usually Terminal.output()
+     * @param width     The width of the terminal in columns
+     * @param height    The height of the terminal in rows
+     * @param theme     The colors to draw with, its cached escape codes get written directly
+     */
+    public Renderer(OutputStream out, int width, int height, Theme theme) {
+        this.out = out;
+        this.fgCodes = theme.getFgCodes();
+        this.bgCode = theme.getBgCode();
+        resize(width, height);
+    }
+
+    /**
+     * Changes the size of the grid. The next flush will clear and redraw the whole screen.
+     *
+     * @param width     The new width in columns
+     * @param height    The new height in rows
+     */
+    public void resize(int width, int height) {
+        this.width = Math.max(width, 1);
+        this.height = Math.max(height, 1);
+        int cells = this.width * this.height;
+        shown = new char[cells];
+        shownColor = new byte[cells];
+        wanted = new char[cells];
+        wantedColor = new byte[cells];
+        dirtyStart = new int[this.height];
+        dirtyEnd = new int[this.height];
+        reset();
+    }
+
+    /**
+     * Clears the grid and queues a full terminal clear (with the background color) for the next flush
+     */
+    public void reset() {
+        Arrays.fill(shown, ' ');
+        Arrays.fill(shownColor, (byte) 0);
+        Arrays.fill(wanted, ' ');
+        Arrays.fill(wantedColor, (byte) 0);
+        Arrays.fill(dirtyStart, width);
+        Arrays.fill(dirtyEnd, 0);
+        if (termColor == Theme.GHOST) append(NO_UNDERLINE);
+        append(bgCode);
+        append("\033[2J\033[1;1H");
+        termRow = 0;
+        termCol = 0;
+        termColor = -1;
+        cursorRow = 0;
+        cursorCol = 0;
+    }
+
+    /**
+     * Blanks out every cell, only the cells that had something on them get sent on the next flush
+     */
+    public void clear() {
+        clearRows(0, height);
+    }
+
+    /**
+     * Blanks out some rows, like clear() but only for part of the screen
+     *
+     * @param from      The first row to blank
+     * @param to        The row after the last one to blank
+     */
+    public void clearRows(int from, int to) {
+        for (int row = Math.max(from, 0); row < Math.min(to, height); row++) {
+            for (int col = 0; col < width; col++) {
+                put(row, col, ' ', 0);
+            }
+        }
+    }
+
+    /**
+     * Sets a single cell, nothing is sent until flush() is called
+     *
+     * @param row       The row of the cell, starting at 0
+     * @param col       The column of the cell, starting at 0
+     * @param ch        The character to show
+     * @param color     The foreground color index
+     */
+    public void put(int row, int col, char ch, int color) {
+        if (row < 0 || row >= height || col < 0 || col >= width) return; // off screen
+        // the foreground color of a space doesn't show, so don't send it again for that (an underline does though)
+        if (ch == ' ' && color != Theme.GHOST) color = 0;
+        int i = row * width + col;
+        if (wanted[i] == ch && wantedColor[i] == color) return;
+        wanted[i] = ch;
+        wantedColor[i] = (byte) color;
+        if (col < dirtyStart[row]) dirtyStart[row] = col;
+        if (col + 1 > dirtyEnd[row]) dirtyEnd[row] = col + 1;
+    }
+
+    /**
+     * Writes some text into the grid, starting at a cell and going right
+     *
+     * @param row       The row to write on
+     * @param col       The column of the first character
+     * @param text      The text to write
+     * @param color     The foreground color index
+     */
+    public void text(int row, int col, CharSequence text, int color) {
+        for (int i = 0; i < text.length(); i++) {
+            put(row, col + i, text.charAt(i), color);
+        }
+    }
+
+    /**
+     * Sets where the cursor should be left after the next flush
+     *
+     * @param row       The row, starting at 0
+     * @param col       The column, starting at 0
+     */
+    public void moveCursor(int row, int col) {
+        cursorRow = row;
+        cursorCol = col;
+    }
+
+    /**
+     * Queues a raw escape sequence (cursor style, hiding the cursor, etc.) to go out with the next flush
+     *
+     * @param seq       The escape sequence
+     */
+    public void raw(String seq) {
+        append(seq);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Sends every changed cell to the terminal in one write, then flushes
+     *
+     * @throws IOException
+     */
+    public void flush() throws IOException {
+        for (int row = 0; row < height; row++) {
+            int end = dirtyEnd[row];
+            for (int col = dirtyStart[row]; col < end; col++) {
+                int i = row * width + col;
+                char ch = wanted[i];
+                byte color = wantedColor[i];
+                if (shown[i] == ch && shownColor[i] == color) continue;
+
+                if (termRow != row || termCol != col) moveTo(row, col);
+                // spaces look the same in any color, unless they're underlined
+                if (termColor != color && (ch != ' ' || color == Theme.GHOST || termColor == Theme.GHOST)) {
+                    if (termColor == Theme.GHOST) append(NO_UNDERLINE);
+                    append(fgCodes[color]);
+                    termColor = color;
+                }
+                appendChar(ch);
+                shown[i] = ch;
+                shownColor[i] = color;
+
+                // writing the last column can leave the cursor in a weird "about to wrap" state, so don't
+                // trust where it is after that
+                termCol = col + 1 < width ? col + 1 : -1;
+            }
+            dirtyStart[row] = width;
+            dirtyEnd[row] = 0;
+        }
+
+        if (termRow != cursorRow || termCol != cursorCol) moveTo(cursorRow, cursorCol);
+
+        if (len == 0) return;
+        out.write(buf, 0, len);
+        out.flush();
+        len = 0;
+    }
+
+    /**
+     * Adds a cursor position escape code to the buffer
+     */
+    private void moveTo(int row, int col) {
+        ensure(24);
+        buf[len++] = ESC;
+        buf[len++] = '[';
+        appendInt(row + 1);
+        buf[len++] = ';';
+        appendInt(col + 1);
+        buf[len++] = 'H';
+        termRow = row;
+        termCol = col;
+    }
+
+    private void appendInt(int n) {
+        if (n >= 10) appendInt(n / 10);
+        buf[len++] = (byte) ('0' + n % 10);
+    }
+
+    /**
+     * Adds a character to the buffer as UTF-8
+     */
+    private void appendChar(char ch) {
+        ensure(4);
+        if (ch < 0x80) {
+            buf[len++] = (byte) ch;
+        } else if (ch < 0x800) {
+            buf[len++] = (byte) (0xC0 | (ch >> 6));
+            buf[len++] = (byte) (0x80 | (ch & 0x3F));
+        } else if (Character.isSurrogate(ch)) {
+            buf[len++] = '?'; // a cell only holds one UTF-16 unit
+        } else {
+            buf[len++] = (byte) (0xE0 | (ch >> 12));
+            buf[len++] = (byte) (0x80 | ((ch >> 6) & 0x3F));
+            buf[len++] = (byte) (0x80 | (ch & 0x3F));
+        }
+    }
+
+    private void append(byte[] bytes) {
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buf, len, bytes.length);
+        len += bytes.length;
+    }
+
+    private void append(String s) {
+        ensure(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            buf[len++] = (byte) s.charAt(i); // escape sequences are always ASCII
+        }
+    }
+
+    private void ensure(int extra) {
+        if (len + extra > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, len + extra));
+        }
+    }
+
+}
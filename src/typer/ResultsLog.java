@@ -0,0 +1,447 @@
+package typer;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Saves the results of finished games to an append-only log on disk, without making the game wait for the disk.
+ * submit() just puts the result on a queue, and a background thread writes everything that's queued up in one go
+ * (group commit). The file is only forced to disk (FileChannel.force, which is an fsync) at most once per sync
+ * interval, so lots of results coming in at once (like from the server) only cost one fsync between them.
+ *
+ * There are two files in the log's folder:
+ * <pre>
+ *   results.log     the results, each one is: int length, int CRC32 of the data, then the data (see SessionResult)
+ *   results.idx     a long for each result, with where it starts in results.log, so the last N can be found quickly
+ * </pre>
+ * If the program dies partway through a write, opening the log again cuts off the broken result at the end, and
+ * rebuilds any of the index that's missing. Results that were still in the queue, or written but not forced yet, can
+ * be lost that way, but never more than one sync interval's worth.
+ *
+ * Run it with: java typer.ResultsLog [folder] last n | compact n
+ */
+public class ResultsLog implements AutoCloseable {
+
+    private static final int MAX_BATCH = 1024; // the most results written in one go
+    private static final int HEADER = 8; // length and CRC before each result
+
+    // put on the queue to tell the writer thread to finish up
+    private static final SessionResult CLOSE = new SessionResult("", 0, 0, 0, 0, 0, 0, 0, List.of(), List.of());
+
+    private final Path logPath;
+    private final Path indexPath;
+    private final long syncNanos;
+    private final LinkedBlockingQueue<SessionResult> queue = new LinkedBlockingQueue<SessionResult>();
+    private final Thread writer;
+    private final CopyOnWriteArrayList<Consumer<SessionResult>> listeners =
+            new CopyOnWriteArrayList<Consumer<SessionResult>>();
+
+    // these are only used while holding the lock on this object
+    private FileChannel log;
+    private FileChannel index;
+    private long end; // where the next result goes in the log
+    private int count; // results in the log
+
+    private volatile boolean closed = false;
+    private volatile IOException failure = null; // set if the writer thread stopped because of an error
+
+    private ResultsLog(Path folder, long syncMillis) throws IOException {
+        Files.createDirectories(folder);
+        this.logPath = folder.resolve("results.log");
+        this.indexPath = folder.resolve("results.idx");
+        this.syncNanos = TimeUnit.MILLISECONDS.toNanos(syncMillis);
+        openFiles();
+        recover();
+
+        writer = new Thread(this::writeLoop, "results-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Opens (or creates) a results log, which forces results to disk at most once a second
+     *
+     * @param folder    The folder the log files are in
+     * @return          The log
+     * @throws IOException if the files can't be opened
+     */
+    public static ResultsLog open(Path folder) throws IOException {
+        return new ResultsLog(folder, 1000);
+    }
+
+    /**
+     * Opens (or creates) a results log
+     *
+     * @param folder        The folder the log files are in
+     * @param syncMillis    The most time written results can go without being forced to disk, 0 forces after every
+     *                      batch
+     * @return              The log
+     * @throws IOException if the files can't be opened
+     */
+    public static ResultsLog open(Path folder, long syncMillis) throws IOException {
+        return new ResultsLog(folder, syncMillis);
+    }
+
+    /**
+     * Queues a result to be written, this never waits for the disk
+     *
+     * @param result    The result
+     * @return          Whether it was queued, false if the log is closed or the writer stopped because of an error
+     */
+    public boolean submit(SessionResult result) {
+        if (closed || failure != null) return false;
+        return queue.offer(result);
+    }
+
+    /**
+     * Gets the newest results that have been written (ones still in the queue aren't included)
+     *
+     * @param amount    How many results to get
+     * @return          The results, oldest first
+     * @throws IOException
+     * @throws IllegalArgumentException if the amount is negative
+     */
+    public synchronized List<SessionResult> last(int amount) throws IOException {
+        if (amount < 0) throw new IllegalArgumentException("can't get " + amount + " results");
+        int first = Math.max(0, count - amount);
+        ArrayList<SessionResult> results = new ArrayList<SessionResult>(count - first);
+        for (int i = first; i < count; i++) {
+            results.add(SessionResult.decode(readData(log, offsetOf(i))));
+        }
+        return results;
+    }
+
+    /**
+     * Gets one result that's been written, which only reads that result (the index says where it is)
+     *
+     * @param i     Which result, 0 is the oldest still in the log
+     * @return      The result
+     * @throws IOException
+     */
+    public synchronized SessionResult get(int i) throws IOException {
+        Objects.checkIndex(i, count);
+        return SessionResult.decode(readData(log, offsetOf(i)));
+    }
+
+    /**
+     * Calls a listener for every result after it's written (on the writer thread, so it should be quick)
+     *
+     * @param listener  The listener
+     * @param replay    Whether to call it for all the results already in the log first
+     * @throws IOException if the log can't be read
+     */
+    public synchronized void subscribe(Consumer<SessionResult> listener, boolean replay) throws IOException {
+        if (replay) {
+            // read straight through the log, which is much faster than going through the index for each one
+            try (DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(Files.newInputStream(logPath), 1 << 16))) {
+                for (int i = 0; i < count; i++) {
+                    byte[] data = new byte[in.readInt()];
+                    in.readInt(); // the CRC, which was checked when the log was opened
+                    in.readFully(data);
+                    listener.accept(SessionResult.decode(data));
+                }
+            }
+        }
+        listeners.add(listener);
+    }
+
+    /**
+     * @return  How many results have been written
+     */
+    public synchronized int size() {
+        return count;
+    }
+
+    /**
+     * Throws away all but the newest results, by writing them to new files and swapping those in. Writing waits
+     * while this runs.
+     *
+     * @param keep      How many of the newest results to keep
+     * @return          How many results were thrown away
+     * @throws IOException
+     * @throws IllegalArgumentException if the amount to keep is negative
+     */
+    public synchronized int compact(int keep) throws IOException {
+        if (keep < 0) throw new IllegalArgumentException("can't keep " + keep + " results");
+        int first = Math.max(0, count - keep);
+        if (first == 0) return 0;
+
+        Path newLog = logPath.resolveSibling("results.log.tmp");
+        Path newIndex = indexPath.resolveSibling("results.idx.tmp");
+        long newEnd = 0;
+        try (FileChannel out = FileChannel.open(newLog, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                StandardOpenOption.TRUNCATE_EXISTING);
+             FileChannel outIndex = FileChannel.open(newIndex, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer offset = ByteBuffer.allocate(8);
+            for (int i = first; i < count; i++) {
+                long start = offsetOf(i);
+                int length = HEADER + readLength(log, start);
+                long copied = 0;
+                while (copied < length) {
+                    copied += log.transferTo(start + copied, length - copied, out);
+                }
+                offset.clear();
+                offset.putLong(newEnd).flip();
+                writeFully(outIndex, offset, (long) (i - first) * 8);
+                newEnd += length;
+            }
+            out.force(true);
+            outIndex.force(true);
+        }
+
+        // the old index goes first, so if the program dies partway through there's never an index that doesn't
+        // match the log (a missing one just gets rebuilt when the log is opened)
+        log.close();
+        index.close();
+        Files.delete(indexPath);
+        Files.move(newLog, logPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.move(newIndex, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        openFiles();
+        end = newEnd;
+        count -= first;
+        return first;
+    }
+
+    /**
+     * Writes everything that's queued, forces it to disk, and stops the writer thread
+     *
+     * @throws IOException if the writer thread stopped because of an error
+     */
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            queue.offer(CLOSE);
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            synchronized (this) {
+                log.close();
+                index.close();
+            }
+        }
+        if (failure != null) throw failure;
+    }
+
+    /**
+     * The writer thread: waits for results, writes whatever's queued up in one go, and forces the log to disk
+     * when the sync interval is up
+     */
+    private void writeLoop() {
+        ArrayList<SessionResult> batch = new ArrayList<SessionResult>();
+        long lastSync = System.nanoTime();
+        boolean unsynced = false;
+        try {
+            boolean closing = false;
+            while (!closing) {
+                // only wake up on a timer if there's something that still needs forcing
+                SessionResult result;
+                if (unsynced) {
+                    result = queue.poll(Math.max(0, lastSync + syncNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+                } else {
+                    result = queue.take();
+                }
+                if (result != null) {
+                    batch.add(result);
+                    queue.drainTo(batch, MAX_BATCH - 1);
+                    closing = batch.remove(CLOSE);
+                }
+
+                if (!batch.isEmpty()) {
+                    synchronized (this) {
+                        append(batch);
+                        for (Consumer<SessionResult> listener: listeners) {
+                            for (SessionResult r: batch) {
+                                listener.accept(r);
+                            }
+                        }
+                    }
+                    batch.clear();
+                    unsynced = true;
+                }
+
+                long now = System.nanoTime();
+                if (unsynced && (closing || now - lastSync >= syncNanos)) {
+                    synchronized (this) {
+                        log.force(false);
+                    }
+                    lastSync = now;
+                    unsynced = false;
+                }
+            }
+        } catch (IOException e) {
+            failure = e;
+        } catch (InterruptedException e) {
+            failure = new IOException("results log writer was interrupted");
+        }
+    }
+
+    /**
+     * Writes results to the end of the log, and their offsets to the end of the index
+     */
+    private void append(List<SessionResult> batch) throws IOException {
+        ArrayList<byte[]> encoded = new ArrayList<byte[]>(batch.size());
+        int size = 0;
+        for (SessionResult result: batch) {
+            byte[] data = result.encode();
+            encoded.add(data);
+            size += HEADER + data.length;
+        }
+
+        ByteBuffer records = ByteBuffer.allocate(size);
+        ByteBuffer offsets = ByteBuffer.allocate(8 * batch.size());
+        CRC32 crc = new CRC32();
+        long pos = end;
+        for (byte[] data: encoded) {
+            crc.reset();
+            crc.update(data);
+            offsets.putLong(pos);
+            records.putInt(data.length).putInt((int) crc.getValue()).put(data);
+            pos += HEADER + data.length;
+        }
+        records.flip();
+        offsets.flip();
+
+        writeFully(log, records, end);
+        writeFully(index, offsets, (long) count * 8);
+        end = pos;
+        count += batch.size();
+    }
+
+    /**
+     * Makes the log and index match after opening them: index entries past the end of the log are dropped, results
+     * in the log that aren't in the index are added to it, and anything broken at the end of the log is cut off
+     */
+    private void recover() throws IOException {
+        long logSize = log.size();
+        count = (int) (index.size() / 8);
+        while (count > 0 && offsetOf(count - 1) >= logSize) {
+            count--;
+        }
+
+        // check the last result in the index again, then look for any after it
+        long pos = 0;
+        if (count > 0) {
+            count--;
+            pos = offsetOf(count);
+        }
+        ByteBuffer offset = ByteBuffer.allocate(8);
+        while (true) {
+            long next = checkRecord(pos, logSize);
+            if (next < 0) break;
+            offset.clear();
+            offset.putLong(pos).flip();
+            writeFully(index, offset, (long) count * 8);
+            count++;
+            pos = next;
+        }
+
+        end = pos;
+        log.truncate(end);
+        index.truncate((long) count * 8);
+    }
+
+    /**
+     * Checks if there's a whole result at a spot in the log
+     *
+     * @return  Where the result after it starts, or -1 if there isn't a good result there
+     */
+    private long checkRecord(long pos, long logSize) throws IOException {
+        if (pos + HEADER > logSize) return -1;
+        ByteBuffer header = ByteBuffer.allocate(HEADER);
+        readFully(log, header, pos);
+        int length = header.getInt(0);
+        if (length < 0 || pos + HEADER + length > logSize) return -1;
+
+        byte[] data = readData(log, pos);
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        if ((int) crc.getValue() != header.getInt(4)) return -1;
+        return pos + HEADER + length;
+    }
+
+    private void openFiles() throws IOException {
+        log = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        index = FileChannel.open(indexPath, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                 StandardOpenOption.WRITE);
+    }
+
+    private long offsetOf(int i) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(8);
+        readFully(index, buf, (long) i * 8);
+        return buf.getLong(0);
+    }
+
+    private static int readLength(FileChannel channel, long pos) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(4);
+        readFully(channel, buf, pos);
+        return buf.getInt(0);
+    }
+
+    private static byte[] readData(FileChannel channel, long pos) throws IOException {
+        ByteBuffer data = ByteBuffer.allocate(readLength(channel, pos));
+        readFully(channel, data, pos + HEADER);
+        return data.array();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buf, long pos) throws IOException {
+        while (buf.hasRemaining()) {
+            if (channel.read(buf, pos + buf.position()) < 0) {
+                throw new IOException("unexpected end of results log");
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buf, long pos) throws IOException {
+        while (buf.hasRemaining()) {
+            channel.write(buf, pos + buf.position());
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int arg = 0;
+        Path folder = Paths.get("results");
+        if (args.length == 3) {
+            folder = Paths.get(args[arg++]);
+        }
+        if (args.length - arg != 2) {
+            System.out.println("Usage: java typer.ResultsLog [folder] last <n> | compact <n>");
+            return;
+        }
+        String command = args[arg++];
+        int n = Integer.parseInt(args[arg]);
+
+        try (ResultsLog results = ResultsLog.open(folder)) {
+            if (command.equals("last")) {
+                for (SessionResult result: results.last(n)) {
+                    System.out.println(result);
+                }
+            } else if (command.equals("compact")) {
+                System.out.println("Removed " + results.compact(n) + " results, kept " + results.size());
+            } else {
+                System.out.println("Unknown command " + command);
+            }
+        }
+    }
+
+}
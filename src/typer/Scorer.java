@@ -0,0 +1,34 @@
+package typer;
+
+/**
+ * Works out one number from a finished game, like its WPM. Scorers are plugins: any class on the classpath that's
+ * listed in a META-INF/services/typer.Scorer file gets found by ServiceLoader (see Scorers), so a tool that embeds the
+ * game can add its own, and pick which ones run with GameOptions.
+ *
+ * A scorer only runs once, after the last key, so the per-key path of the game never calls one.
+ */
+public interface Scorer {
+
+    /**
+     * @return  What GameOptions picks it by, lowercase with dashes, like "net-wpm"
+     */
+    String name();
+
+    /**
+     * @return  What it's called on the end screen, like "Net WPM"
+     */
+    default String label() {
+        return name();
+    }
+
+    /**
+     * Works out the score
+     *
+     * @param state     The game, as it was at the end
+     * @param keys      Every key pressed (just the last 64k in a long timed or endless game)
+     * @param duration  How long the game took, in nanoseconds
+     * @return          The score
+     */
+    double score(GameState state, KeystrokeLog keys, long duration);
+
+}
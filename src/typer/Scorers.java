@@ -0,0 +1,147 @@
+package typer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.ServiceLoader;
+
+/**
+ * Finds the scorers, and has the built-in ones. They're registered in META-INF/services/typer.Scorer like any other
+ * plugin, but they get added anyway if they weren't found (like when running from the classes without the
+ * resources), so they're always there.
+ */
+public class Scorers {
+
+    private static List<Scorer> all = null; // loaded the first time they're asked for
+
+    private Scorers() {
+    }
+
+    /**
+     * @return  Every scorer there is, the built-in ones first
+     */
+    public static synchronized List<Scorer> all() {
+        if (all == null) {
+            ArrayList<Scorer> found = new ArrayList<Scorer>();
+            for (Scorer scorer: ServiceLoader.load(Scorer.class)) {
+                if (find(found, scorer.name()) == null) found.add(scorer);
+            }
+            Scorer[] builtIn = { new NetWpm(), new RawWpm(), new Consistency() };
+            for (int i = builtIn.length - 1; i >= 0; i--) {
+                if (find(found, builtIn[i].name()) == null) found.add(0, builtIn[i]);
+            }
+            all = Collections.unmodifiableList(found);
+        }
+        return all;
+    }
+
+    /**
+     * Picks scorers by name
+     *
+     * @param names     The names, or null for all of them
+     * @return          The scorers, in the same order
+     * @throws IllegalArgumentException if there isn't one with one of the names
+     */
+    public static List<Scorer> get(List<String> names) {
+        if (names == null) return all();
+        ArrayList<Scorer> picked = new ArrayList<Scorer>(names.size());
+        for (String name: names) {
+            Scorer scorer = find(all(), name);
+            if (scorer == null) throw new IllegalArgumentException("there's no scorer called " + name);
+            picked.add(scorer);
+        }
+        return picked;
+    }
+
+    private static Scorer find(List<Scorer> scorers, String name) {
+        for (Scorer scorer: scorers) {
+            if (scorer.name().equals(name)) return scorer;
+        }
+        return null;
+    }
+
+    /**
+     * @return  How many minutes a duration in nanoseconds is
+     */
+    private static double minutes(long duration) {
+        return Math.max(duration, 1) / 60_000_000_000.0;
+    }
+
+    /**
+     * Everything typed (right or wrong, and the spaces between words) counted in words of 5 characters, per minute
+     */
+    public static class RawWpm implements Scorer {
+
+        public String name() {
+            return "raw-wpm";
+        }
+
+        public String label() {
+            return "Raw WPM";
+        }
+
+        public double score(GameState state, KeystrokeLog keys, long duration) {
+            int typed = state.getCorrect() + state.getIncorrect() + state.getWord();
+            return Math.round(100 * typed / 5.0 / minutes(duration)) / 100.0;
+        }
+
+    }
+
+    /**
+     * Raw WPM, less one word a minute for each mistake that was left in (wrong characters that weren't fixed, and
+     * ones that were skipped with space)
+     */
+    public static class NetWpm implements Scorer {
+
+        public String name() {
+            return "net-wpm";
+        }
+
+        public String label() {
+            return "Net WPM";
+        }
+
+        public double score(GameState state, KeystrokeLog keys, long duration) {
+            double minutes = minutes(duration);
+            int typed = state.getCorrect() + state.getIncorrect() + state.getWord();
+            int errors = state.getIncorrect() + state.getMissed();
+            return Math.round(100 * Math.max(0, (typed / 5.0 - errors) / minutes)) / 100.0;
+        }
+
+    }
+
+    /**
+     * How even the time between keys was, as a percentage: 100 less the coefficient of variation (the standard
+     * deviation over the mean), so 100 is a perfectly steady rhythm, and it's 0 once the spread is as big as the mean
+     */
+    public static class Consistency implements Scorer {
+
+        public String name() {
+            return "consistency";
+        }
+
+        public String label() {
+            return "Consistency";
+        }
+
+        public double score(GameState state, KeystrokeLog keys, long duration) {
+            // Welford's, so it's one pass with no rounding trouble from summing squares of nanoseconds
+            long count = 0;
+            double mean = 0;
+            double squares = 0;
+            for (int i = 0; i < keys.size(); i++) {
+                long delta = keys.delta(i);
+                if (delta <= 0) continue; // the first key
+                count++;
+                double diff = delta - mean;
+                mean += diff / count;
+                squares += diff * (delta - mean);
+            }
+            if (count < 2) return 0;
+            double cv = Math.sqrt(squares / count) / mean;
+            return Math.round(100 * Math.max(0, 100 * (1 - cv))) / 100.0;
+        }
+
+    }
+
+}
@@ -0,0 +1,270 @@
+package typer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The results of one finished game, which is what gets saved in the ResultsLog and added up by the StatsEngine. It
+ * can be turned into bytes and back with encode() and decode().
+ */
+public class SessionResult {
+
+    private static final int VERSION = 1; // the first byte of every encoded result, so the format can change later
+
+    private final String user; // who played, "" if nobody knows
+    private final long time; // when the game ended, in milliseconds since the epoch
+    private final long duration; // how long the game took, in nanoseconds
+    private final int words;
+    private final int chars;
+    private final int mistakes;
+    private final double wpm;
+    private final double accuracy; // in percent
+    private final List<String> wrongWords;
+    private final List<String> slowBigrams; // the slowest letter transitions, like "th" ('_' is space)
+    private final byte[] trace; // the encoded KeyTrace, for racing against, or null if there isn't one
+
+    /**
+     * Creates a result
+     *
+     * @param user          Who played
+     * @param time          When the game ended, in milliseconds since the epoch
+     * @param duration      How long the game took, in nanoseconds
+     * @param words         How many words were in the game
+     * @param chars         How many characters were in the game
+     * @param mistakes      How many mistakes were made
+     * @param wpm           The words per minute
+     * @param accuracy      The accuracy, in percent
+     * @param wrongWords    The words that had a mistake in them
+     * @param slowBigrams   The slowest transitions between two keys, slowest first
+     */
+    public SessionResult(String user, long time, long duration, int words, int chars, int mistakes, double wpm,
+                         double accuracy, List<String> wrongWords, List<String> slowBigrams) {
+        this(user, time, duration, words, chars, mistakes, wpm, accuracy, wrongWords, slowBigrams, null);
+    }
+
+    /**
+     * Creates a result with the keys that were typed, so it can be raced against later
+     *
+     * @param user          Who played
+     * @param time          When the game ended, in milliseconds since the epoch
+     * @param duration      How long the game took, in nanoseconds
+     * @param words         How many words were in the game
+     * @param chars         How many characters were in the game
+     * @param mistakes      How many mistakes were made
+     * @param wpm           The words per minute
+     * @param accuracy      The accuracy, in percent
+     * @param wrongWords    The words that had a mistake in them
+     * @param slowBigrams   The slowest transitions between two keys, slowest first
+     * @param trace         The encoded KeyTrace, or null
+     */
+    public SessionResult(String user, long time, long duration, int words, int chars, int mistakes, double wpm,
+                         double accuracy, List<String> wrongWords, List<String> slowBigrams, byte[] trace) {
+        this.user = user;
+        this.time = time;
+        this.duration = duration;
+        this.words = words;
+        this.chars = chars;
+        this.mistakes = mistakes;
+        this.wpm = wpm;
+        this.accuracy = accuracy;
+        this.wrongWords = wrongWords;
+        this.slowBigrams = slowBigrams;
+        this.trace = trace;
+    }
+
+    /**
+     * Works out the results of a game that just finished
+     *
+     * @param user          Who played
+     * @param state         The game
+     * @param duration      How long the game took, in nanoseconds
+     * @param keys          The timing stats for the game's keys
+     * @return              The results
+     */
+    public static SessionResult of(String user, GameState state, long duration, KeystrokeStats keys) {
+        return of(user, state, duration, keys, null);
+    }
+
+    /**
+     * Works out the results of a game that just finished, keeping its keys so it can be raced against later
+     *
+     * @param user          Who played
+     * @param state         The game
+     * @param duration      How long the game took, in nanoseconds
+     * @param keys          The timing stats for the game's keys
+     * @param trace         Every key of the game, or null to not keep them
+     * @return              The results
+     */
+    public static SessionResult of(String user, GameState state, long duration, KeystrokeStats keys, KeyTrace trace) {
+        // a game that ended before a key was typed has no duration, and dividing by 0 would make the WPM infinite
+        double seconds = Math.max(duration, 1) / 1000_000_000.0;
+        // only what was gotten to counts, which is everything unless the game was timed (or quit early)
+        int words = state.getWord();
+        int chars = Math.max(state.getCursor(), 1);
+        // words per minute
+        double wpm = Math.round(1000 * (60 / seconds) * words) / 1000.0;
+        // accuracy
+        double accuracy = Math.round(10000 * ((double) (chars - state.getMistakes()) / chars)) / 100;
+        return new SessionResult(user, System.currentTimeMillis(), duration, words, state.getCursor(),
+                                 state.getMistakes(), wpm, accuracy, state.getWrongWords(),
+                                 Arrays.asList(keys.slowestBigrams(5, 2)), trace != null ? trace.encode() : null);
+    }
+
+    /**
+     * Turns the result into bytes
+     *
+     * @return  The encoded result
+     */
+    public byte[] encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + 8 * wrongWords.size()
+                                                                + (trace != null ? trace.length : 0));
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeUTF(user);
+            out.writeLong(time);
+            out.writeLong(duration);
+            out.writeInt(words);
+            out.writeInt(chars);
+            out.writeInt(mistakes);
+            out.writeDouble(wpm);
+            out.writeDouble(accuracy);
+            out.writeInt(wrongWords.size());
+            for (String word: wrongWords) {
+                out.writeUTF(word);
+            }
+            out.writeByte(slowBigrams.size());
+            for (String bigram: slowBigrams) {
+                out.writeUTF(bigram);
+            }
+            out.writeInt(trace != null ? trace.length : 0);
+            if (trace != null) out.write(trace);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // can't happen, it's all in memory
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Reads a result that was made with encode()
+     *
+     * @param data      The bytes
+     * @return          The result
+     * @throws IOException if the bytes aren't a result this version can read
+     */
+    public static SessionResult decode(byte[] data) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        int version = in.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("unknown result version " + version);
+        }
+        String user = in.readUTF();
+        long time = in.readLong();
+        long duration = in.readLong();
+        int words = in.readInt();
+        int chars = in.readInt();
+        int mistakes = in.readInt();
+        double wpm = in.readDouble();
+        double accuracy = in.readDouble();
+        int wrongCount = in.readInt();
+        ArrayList<String> wrongWords = new ArrayList<String>(Math.min(wrongCount, 1024));
+        for (int i = 0; i < wrongCount; i++) {
+            wrongWords.add(in.readUTF());
+        }
+        int bigramCount = in.readUnsignedByte();
+        ArrayList<String> slowBigrams = new ArrayList<String>(bigramCount);
+        for (int i = 0; i < bigramCount; i++) {
+            slowBigrams.add(in.readUTF());
+        }
+        byte[] trace = null;
+        int traceLength = in.readInt();
+        if (traceLength > in.available()) throw new IOException("result is truncated");
+        if (traceLength > 0) {
+            trace = new byte[traceLength];
+            in.readFully(trace);
+        }
+        return new SessionResult(user, time, duration, words, chars, mistakes, wpm, accuracy, wrongWords, slowBigrams,
+                                 trace);
+    }
+
+    public String getUser() {
+        return user;
+    }
+
+    public long getTime() {
+        return time;
+    }
+
+    public long getDuration() {
+        return duration;
+    }
+
+    public int getWords() {
+        return words;
+    }
+
+    public int getChars() {
+        return chars;
+    }
+
+    public int getMistakes() {
+        return mistakes;
+    }
+
+    public double getWpm() {
+        return wpm;
+    }
+
+    public double getAccuracy() {
+        return accuracy;
+    }
+
+    /**
+     * @return  The characters per minute
+     */
+    public double getCpm() {
+        return Math.round(1000 * (60 / (duration / 1000_000_000.0)) * chars) / 1000.0;
+    }
+
+    public List<String> getWrongWords() {
+        return wrongWords;
+    }
+
+    public List<String> getSlowBigrams() {
+        return slowBigrams;
+    }
+
+    /**
+     * @return  Whether the keys of the game were kept
+     */
+    public boolean hasTrace() {
+        return trace != null;
+    }
+
+    /**
+     * Gets every key of the game, for racing against it
+     *
+     * @return  The trace, or null if the keys weren't kept
+     * @throws IOException if the trace can't be read
+     */
+    public KeyTrace getTrace() throws IOException {
+        return trace != null ? KeyTrace.decode(trace) : null;
+    }
+
+    @Override
+    public String toString() {
+        LocalDateTime ended = LocalDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneId.systemDefault()).withNano(0);
+        return ended + "  " + (user.isEmpty() ? "" : user + "  ") + wpm + " wpm  " + accuracy + "%  " + words
+               + " words in " + Math.round(duration / 10_000_000.0) / 100.0 + "s"
+               + (wrongWords.isEmpty() ? "" : "  mistakes: " + String.join(", ", wrongWords));
+    }
+
+}
@@ -0,0 +1,97 @@
+package typer;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.jline.terminal.Size;
+import org.jline.terminal.Terminal;
+import org.jline.terminal.TerminalBuilder;
+
+/**
+ * Measures how long a game takes to start: from the JVM starting to the words being on screen and the first key
+ * being read. It takes the same path as java -jar typer.jar (the wordlist, a theme, the terminal, the Typer) and stops
+ * as soon as the game is ready, so it can be run over and over to compare launch options (see Startup in the README).
+ *
+ * The time is from when the JVM started, which doesn't count the few milliseconds before that (starting the process
+ * and loading libjvm), so time the whole command too to see those.
+ *
+ * Run it with: java typer.StartupCheck [options]
+ * <pre>
+ *   --system         Open the real terminal, like a normal game (default an in-memory one, so it runs anywhere)
+ *   --play           Keep going and play the game to the end with a scripted typist, so the classes for the whole
+ *                    game get loaded (for making a CDS archive)
+ *   --limit ms       Exit with status 1 if it takes longer than this (default 0, no limit)
+ * </pre>
+ */
+public class StartupCheck {
+
+    public static void main(String[] args) throws IOException {
+        boolean system = false;
+        boolean play = false;
+        long limit = 0;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--system":
+                    system = true;
+                    break;
+                case "--play":
+                    play = true;
+                    break;
+                case "--limit":
+                    limit = Long.parseLong(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown option " + args[i]);
+            }
+        }
+
+        long[] ready = new long[1];
+        List<String> wordlist = Corpus.shared().get(Utils.DEFAULT_WORDLIST);
+        Headless.KeyStream in = new Headless.KeyStream(0);
+        Terminal term = system ? Typer.systemTerminal()
+                        : TerminalBuilder.builder().system(false).streams(in, new Headless.CountingOutput())
+                                         .size(new Size(100, 30)).type("xterm-256color").build();
+        Typer typer = new Typer(wordlist, 10, new Theme(), term);
+        boolean keepGoing = play && !system; // a real terminal would need a real person to finish
+        typer.setOnReady(() -> {
+            ready[0] = System.currentTimeMillis();
+            if (!keepGoing) throw new Ready();
+            StringBuilder keys = new StringBuilder();
+            for (String word: typer.getWords()) {
+                keys.append(word).append(' ');
+            }
+            in.setKeys(keys.append('\r').toString().getBytes(StandardCharsets.UTF_8));
+        });
+        try {
+            typer.start();
+        } catch (Ready e) {
+            // only as far as the first key, the input thread is left waiting (it's a daemon)
+        } finally {
+            term.close();
+        }
+
+        long took = ready[0] - ManagementFactory.getRuntimeMXBean().getStartTime();
+        System.out.println("ready for the first key " + took + "ms after the JVM started");
+        if (limit > 0 && took > limit) {
+            System.out.println("that's over the limit of " + limit + "ms");
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Thrown from the ready hook to get out of Typer.start() without playing
+     */
+    private static class Ready extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        Ready() {
+            super(null, null, false, false);
+        }
+
+    }
+
+}
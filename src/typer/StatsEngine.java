@@ -0,0 +1,316 @@
+package typer;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Keeps running totals over every saved game, so questions like "what's the p90 WPM" or "which words get missed the
+ * most" are answered from a few small sketches instead of reading every result again. Each result is added once
+ * (add() is cheap and never looks at old results), and the memory used doesn't grow with the number of games:
+ * <pre>
+ *   WPM and accuracy       a TDigest each, for percentiles
+ *   missed words           a TopWords (count-min sketch plus the top candidates)
+ *   each day               games, total WPM and accuracy, and the best WPM, for the last MAX_DAYS days
+ *   each user              a rolling WPM, their first and latest games, and their best
+ * </pre>
+ * StatsEngine.follow(log) reads a ResultsLog once and then subscribes to it, so it's updated by the log's writer thread
+ * as results are saved. All the methods are synchronized, so it can be queried from anywhere.
+ *
+ * Run it with: java typer.StatsEngine [folder], to see the stats for a results log
+ */
+public class StatsEngine {
+
+    public static final int MAX_DAYS = 366; // daily rollups older than this get dropped
+    private static final int WINDOW = 10; // games in a user's rolling WPM
+
+    private final TDigest wpm = new TDigest();
+    private final TDigest accuracy = new TDigest();
+    private final TopWords missed = new TopWords(100);
+    private final TreeMap<Long, DayStats> days = new TreeMap<Long, DayStats>(); // by epoch day
+    private final HashMap<String, UserStats> users = new HashMap<String, UserStats>();
+    private final ZoneId zone;
+    private long games = 0;
+
+    /**
+     * Creates an empty engine that works out days in the system time zone
+     */
+    public StatsEngine() {
+        this(ZoneId.systemDefault());
+    }
+
+    /**
+     * Creates an empty engine
+     *
+     * @param zone      The time zone to work out which day a game was played in
+     */
+    public StatsEngine(ZoneId zone) {
+        this.zone = zone;
+    }
+
+    /**
+     * Adds a finished game to all the stats
+     *
+     * @param result    The game's results
+     */
+    public synchronized void add(SessionResult result) {
+        games++;
+        wpm.add(result.getWpm());
+        accuracy.add(result.getAccuracy());
+        for (String word: result.getWrongWords()) {
+            missed.add(word);
+        }
+
+        long day = LocalDate.ofInstant(Instant.ofEpochMilli(result.getTime()), zone).toEpochDay();
+        DayStats stats = days.get(day);
+        if (stats == null) {
+            stats = new DayStats(day);
+            days.put(day, stats);
+            if (days.size() > MAX_DAYS) days.pollFirstEntry();
+        }
+        stats.add(result);
+
+        UserStats user = users.get(result.getUser());
+        if (user == null) {
+            user = new UserStats(result.getUser());
+            users.put(result.getUser(), user);
+        }
+        user.add(result);
+    }
+
+    /**
+     * @return  How many games have been added
+     */
+    public synchronized long getGames() {
+        return games;
+    }
+
+    /**
+     * @param percentile    The percentile, from 0 to 100
+     * @return              The estimated WPM at that percentile over every game, NaN if there are none
+     */
+    public synchronized double wpmPercentile(double percentile) {
+        return wpm.percentile(percentile);
+    }
+
+    /**
+     * @param percentile    The percentile, from 0 to 100
+     * @return              The estimated accuracy at that percentile over every game, NaN if there are none
+     */
+    public synchronized double accuracyPercentile(double percentile) {
+        return accuracy.percentile(percentile);
+    }
+
+    /**
+     * Gets the words that have been gotten wrong the most, over every game
+     *
+     * @param amount    How many words to get, at most 100
+     * @return          The words and about how many games they were wrong in, most first
+     */
+    public synchronized List<Map.Entry<String, Integer>> mostMissed(int amount) {
+        return missed.top(amount);
+    }
+
+    /**
+     * Gets the stats for each of the most recent days that had games
+     *
+     * @param amount    How many days to get
+     * @return          The days, oldest first
+     */
+    public synchronized List<DayStats> lastDays(int amount) {
+        ArrayList<DayStats> out = new ArrayList<DayStats>(Math.min(amount, days.size()));
+        for (DayStats day: days.descendingMap().values()) {
+            if (out.size() == amount) break;
+            out.add(day);
+        }
+        Collections.reverse(out);
+        return out;
+    }
+
+    /**
+     * Gets the users with the best rolling WPM (the average of their last few games)
+     *
+     * @param amount    How many users to get
+     * @return          The users, best first
+     */
+    public synchronized List<UserStats> leaderboard(int amount) {
+        ArrayList<UserStats> sorted = new ArrayList<UserStats>(users.values());
+        sorted.sort((a, b) -> Double.compare(b.getRollingWpm(), a.getRollingWpm()));
+        return new ArrayList<UserStats>(sorted.subList(0, Math.min(amount, sorted.size())));
+    }
+
+    /**
+     * @param user  The user's name
+     * @return      The stats for the user, or null if they haven't played
+     */
+    public synchronized UserStats getUser(String user) {
+        return users.get(user);
+    }
+
+    /**
+     * Builds an engine from every result in a log, and keeps it up to date with the results saved after that
+     *
+     * @param log       The results log
+     * @return          The engine
+     * @throws IOException if the log can't be read
+     */
+    public static StatsEngine follow(ResultsLog log) throws IOException {
+        StatsEngine engine = new StatsEngine();
+        log.subscribe(engine::add, true);
+        return engine;
+    }
+
+    /**
+     * The totals for one day. Only the engine changes these, so read them while holding the engine's lock (or
+     * after it's done being updated).
+     */
+    public static class DayStats {
+
+        private final long day;
+        private int games = 0;
+        private double totalWpm = 0;
+        private double totalAccuracy = 0;
+        private double bestWpm = 0;
+
+        DayStats(long day) {
+            this.day = day;
+        }
+
+        void add(SessionResult result) {
+            games++;
+            totalWpm += result.getWpm();
+            totalAccuracy += result.getAccuracy();
+            bestWpm = Math.max(bestWpm, result.getWpm());
+        }
+
+        public LocalDate getDay() {
+            return LocalDate.ofEpochDay(day);
+        }
+
+        public int getGames() {
+            return games;
+        }
+
+        public double getAverageWpm() {
+            return totalWpm / games;
+        }
+
+        public double getAverageAccuracy() {
+            return totalAccuracy / games;
+        }
+
+        public double getBestWpm() {
+            return bestWpm;
+        }
+
+    }
+
+    /**
+     * The stats for one user: a ring of their last WINDOW games' WPM (for the rolling average), the average of
+     * their first WINDOW games (to see how much they've improved), and their best
+     */
+    public static class UserStats {
+
+        private final String name;
+        private final double[] recent = new double[WINDOW];
+        private int games = 0;
+        private double firstTotal = 0; // the WPM of their first WINDOW games added up
+        private double bestWpm = 0;
+
+        UserStats(String name) {
+            this.name = name;
+        }
+
+        void add(SessionResult result) {
+            if (games < WINDOW) firstTotal += result.getWpm();
+            recent[games % WINDOW] = result.getWpm();
+            games++;
+            bestWpm = Math.max(bestWpm, result.getWpm());
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getGames() {
+            return games;
+        }
+
+        public double getBestWpm() {
+            return bestWpm;
+        }
+
+        /**
+         * @return  The average WPM of their last WINDOW games (or all of them, if they haven't played that many)
+         */
+        public double getRollingWpm() {
+            int n = Math.min(games, WINDOW);
+            double total = 0;
+            for (int i = 0; i < n; i++) {
+                total += recent[i];
+            }
+            return total / n;
+        }
+
+        /**
+         * @return  How much faster their last WINDOW games are than their first WINDOW games, in WPM
+         */
+        public double getImprovement() {
+            return getRollingWpm() - firstTotal / Math.min(games, WINDOW);
+        }
+
+    }
+
+    private static String round(double value) {
+        return String.valueOf(Math.round(value * 10) / 10.0);
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path folder = Paths.get(args.length > 0 ? args[0] : "results");
+        try (ResultsLog log = ResultsLog.open(folder)) {
+            long start = System.nanoTime();
+            StatsEngine engine = follow(log);
+            long built = System.nanoTime();
+
+            System.out.println("Games:      " + engine.getGames() + " (read in " + (built - start) / 1_000_000
+                               + "ms)");
+            System.out.println("WPM:        p10 " + round(engine.wpmPercentile(10)) + ", p50 "
+                               + round(engine.wpmPercentile(50)) + ", p90 " + round(engine.wpmPercentile(90)) + ", p99 "
+                               + round(engine.wpmPercentile(99)));
+            System.out.println("Accuracy:   p10 " + round(engine.accuracyPercentile(10)) + "%, p50 "
+                               + round(engine.accuracyPercentile(50)) + "%");
+
+            StringBuilder words = new StringBuilder();
+            for (Map.Entry<String, Integer> word: engine.mostMissed(10)) {
+                if (words.length() > 0) words.append(", ");
+                words.append(word.getKey()).append(" (").append(word.getValue()).append(")");
+            }
+            System.out.println("Missed:     " + words);
+
+            System.out.println("\nLast 7 days:");
+            for (DayStats day: engine.lastDays(7)) {
+                System.out.println("  " + day.getDay() + "  " + day.getGames() + " games, " + round(day.getAverageWpm())
+                                   + " wpm, " + round(day.getAverageAccuracy()) + "%, best " + round(day.getBestWpm()));
+            }
+
+            System.out.println("\nLeaderboard:");
+            for (UserStats user: engine.leaderboard(10)) {
+                System.out.println("  " + user.getName() + "  " + round(user.getRollingWpm()) + " wpm (best "
+                                   + round(user.getBestWpm()) + ", " + (user.getImprovement() >= 0 ? "+" : "")
+                                   + round(user.getImprovement()) + " since their first games, " + user.getGames()
+                                   + " games)");
+            }
+            System.out.println("\n(queries took " + (System.nanoTime() - built) / 1_000_000 + "ms)");
+        }
+    }
+
+}
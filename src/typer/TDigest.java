@@ -0,0 +1,178 @@
+package typer;
+
+import java.util.Arrays;
+
+/**
+ * Estimates percentiles of a stream of numbers (like WPM over every game ever played) in a fixed amount of memory,
+ * using a merging t-digest. Values are collected in a buffer, and when it fills up they're sorted and merged into a
+ * list of centroids (a mean and a count). Centroids near the middle can get big, but ones near the ends are kept
+ * small, so p1 and p99 stay accurate even though the middle is blurred a little.
+ *
+ * The number of centroids is at most about 2 * compression, no matter how many values are added.
+ */
+public class TDigest {
+
+    private final double compression;
+    private double[] means;
+    private double[] weights;
+    private int centroids = 0;
+    private long count = 0; // values that have been merged into the centroids
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    private final double[] buffer; // values that haven't been merged yet
+    private int buffered = 0;
+
+    // reused for merging, so it doesn't allocate
+    private double[] mergeMeans;
+    private double[] mergeWeights;
+
+    /**
+     * Creates a digest with a compression of 100, which keeps percentiles within about 1% (less at the ends)
+     */
+    public TDigest() {
+        this(100);
+    }
+
+    /**
+     * Creates a digest
+     *
+     * @param compression   How many centroids to aim for, more is more accurate but bigger
+     */
+    public TDigest(double compression) {
+        this.compression = compression;
+        int size = (int) Math.ceil(2 * compression) + 10;
+        means = new double[size];
+        weights = new double[size];
+        buffer = new double[size * 5];
+        mergeMeans = new double[size + buffer.length];
+        mergeWeights = new double[size + buffer.length];
+    }
+
+    /**
+     * Adds a value
+     *
+     * @param value     The value
+     */
+    public void add(double value) {
+        if (Double.isNaN(value)) return;
+        buffer[buffered++] = value;
+        if (value < min) min = value;
+        if (value > max) max = value;
+        if (buffered == buffer.length) merge();
+    }
+
+    /**
+     * Gets the estimated value at a percentile
+     *
+     * @param percentile    The percentile, from 0 to 100
+     * @return              The value, or NaN if nothing was added
+     */
+    public double percentile(double percentile) {
+        merge();
+        if (count == 0) return Double.NaN;
+        if (centroids == 1) return means[0];
+
+        double rank = Math.max(0, Math.min(1, percentile / 100)) * count;
+        if (rank <= weights[0] / 2) {
+            // between the smallest value and the middle of the first centroid
+            return min + (means[0] - min) * rank / (weights[0] / 2);
+        }
+
+        // find the two centroids the rank falls between (each centroid's middle is at half its weight), and
+        // interpolate between their means
+        double seen = 0;
+        for (int i = 0; i < centroids - 1; i++) {
+            double left = seen + weights[i] / 2;
+            double right = seen + weights[i] + weights[i + 1] / 2;
+            if (rank <= right) {
+                return means[i] + (means[i + 1] - means[i]) * (rank - left) / (right - left);
+            }
+            seen += weights[i];
+        }
+
+        // between the middle of the last centroid and the biggest value
+        double last = weights[centroids - 1];
+        double left = count - last / 2;
+        return means[centroids - 1] + (max - means[centroids - 1]) * (rank - left) / (last / 2);
+    }
+
+    /**
+     * @return  How many values have been added
+     */
+    public long count() {
+        return count + buffered;
+    }
+
+    public double min() {
+        return count() == 0 ? Double.NaN : min;
+    }
+
+    public double max() {
+        return count() == 0 ? Double.NaN : max;
+    }
+
+    /**
+     * Merges the buffered values into the centroids. Everything is put in order by mean, then walked through,
+     * combining neighbours as long as the combined centroid stays under the size limit for where it is.
+     */
+    private void merge() {
+        if (buffered == 0) return;
+
+        // the centroids are already in order, so sort the buffer and merge the two
+        Arrays.sort(buffer, 0, buffered);
+        int n = 0;
+        int c = 0;
+        int b = 0;
+        while (c < centroids || b < buffered) {
+            if (b == buffered || (c < centroids && means[c] <= buffer[b])) {
+                mergeMeans[n] = means[c];
+                mergeWeights[n++] = weights[c++];
+            } else {
+                mergeMeans[n] = buffer[b++];
+                mergeWeights[n++] = 1;
+            }
+        }
+
+        long total = count + buffered;
+        buffered = 0;
+        centroids = 0;
+        double seen = 0;
+        double limit = total * quantileLimit(0);
+        for (int i = 0; i < n; i++) {
+            if (centroids > 0 && seen + mergeWeights[i] <= limit) {
+                // fits into the current centroid
+                int last = centroids - 1;
+                weights[last] += mergeWeights[i];
+                means[last] += (mergeMeans[i] - means[last]) * mergeWeights[i] / weights[last];
+            } else {
+                if (centroids > 0) {
+                    limit = total * quantileLimit(seen / total);
+                }
+                if (centroids == means.length) grow();
+                means[centroids] = mergeMeans[i];
+                weights[centroids++] = mergeWeights[i];
+            }
+            seen += mergeWeights[i];
+        }
+        count = total;
+    }
+
+    /**
+     * The k1 scale function: works out the highest quantile the centroid starting at q can reach. Steps are small
+     * near 0 and 1 and big near the middle.
+     */
+    private double quantileLimit(double q) {
+        double k = compression * (Math.asin(2 * q - 1) / Math.PI + 0.5) + 1;
+        if (k >= compression) return 1;
+        return (Math.sin(Math.PI * (k / compression - 0.5)) + 1) / 2;
+    }
+
+    private void grow() {
+        means = Arrays.copyOf(means, means.length * 2);
+        weights = Arrays.copyOf(weights, weights.length * 2);
+        mergeMeans = Arrays.copyOf(mergeMeans, means.length + buffer.length);
+        mergeWeights = Arrays.copyOf(mergeWeights, means.length + buffer.length);
+    }
+
+}
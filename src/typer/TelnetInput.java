@@ -0,0 +1,120 @@
+package typer;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Goes between a telnet client's socket and the terminal reading it, and takes out everything that's telnet and not
+ * typing. The server asks for character mode (IAC WILL ECHO, IAC WILL SGA), and the client answers with IAC DO/DONT
+ * and often sends its own options too (window size, terminal type), so without this those bytes would reach the
+ * terminal as keys: they'd start the clock, get typed into the game, and a 3 in them would even look like ctrl-c.
+ * <pre>
+ *   IAC IAC                   a 255 that's really data, so it stays as one 255
+ *   IAC WILL/WONT/DO/DONT x   option negotiation, all 3 bytes go
+ *   IAC SB ... IAC SE         subnegotiation (like the window size), all of it goes
+ *   IAC x                     any other command (like NOP or GA), both bytes go
+ *   CR NUL                    how telnet sends a bare CR, the NUL goes
+ * </pre>
+ * A command can be split across reads, so where it's up to is kept between them.
+ */
+public class TelnetInput extends FilterInputStream {
+
+    static final int IAC = 255;
+    static final int DONT = 254;
+    static final int DO = 253;
+    static final int WONT = 252;
+    static final int WILL = 251;
+    static final int SB = 250;
+    static final int SE = 240;
+
+    // where the last read stopped
+    private static final int DATA = 0;
+    private static final int COMMAND = 1; // after an IAC
+    private static final int OPTION = 2; // after IAC WILL/WONT/DO/DONT
+    private static final int SUBNEGOTIATION = 3; // inside IAC SB
+    private static final int SUBNEGOTIATION_IAC = 4; // after an IAC inside IAC SB
+    private static final int AFTER_CR = 5;
+
+    private int state = DATA;
+
+    /**
+     * @param in    The stream from the client, like a socket's
+     */
+    public TelnetInput(InputStream in) {
+        super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] b = new byte[1];
+        return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) return 0;
+        // a read that was all telnet has nothing to give back, but 0 would mean there's no more input, so read again
+        while (true) {
+            int n = in.read(b, off, len);
+            if (n < 0) return -1;
+            int kept = filter(b, off, n);
+            if (kept > 0) return kept;
+        }
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        // going through read() so commands never get skipped halfway
+        long skipped = 0;
+        while (skipped < n && read() >= 0) skipped++;
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    /**
+     * Takes the telnet out of bytes that were just read, moving what's left to the front
+     *
+     * @return  How many bytes are left
+     */
+    private int filter(byte[] b, int off, int n) {
+        int kept = off;
+        for (int i = off; i < off + n; i++) {
+            int c = b[i] & 0xff;
+            if (state == DATA || state == AFTER_CR) {
+                boolean afterCr = state == AFTER_CR;
+                state = DATA;
+                if (c == IAC) {
+                    state = COMMAND;
+                } else if (!(afterCr && c == 0)) {
+                    b[kept++] = (byte) c;
+                    if (c == '\r') state = AFTER_CR;
+                }
+            } else if (state == COMMAND) {
+                if (c == IAC) {
+                    b[kept++] = (byte) c;
+                    state = DATA;
+                } else if (c >= WILL && c <= DONT) {
+                    state = OPTION;
+                } else if (c == SB) {
+                    state = SUBNEGOTIATION;
+                } else {
+                    state = DATA;
+                }
+            } else if (state == OPTION) {
+                state = DATA;
+            } else if (state == SUBNEGOTIATION) {
+                if (c == IAC) state = SUBNEGOTIATION_IAC;
+            } else {
+                // IAC IAC inside a subnegotiation is a 255 in its data, anything else ends it
+                state = c == IAC ? SUBNEGOTIATION : DATA;
+            }
+        }
+        return kept - off;
+    }
+
+}
@@ -0,0 +1,192 @@
+package typer;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+
+/**
+ * A set of colors for the game. The hex codes are parsed and checked once, when the theme is made, and the ANSI
+ * escape codes for each color are kept as bytes so they can be written straight to the terminal.
+ */
+public class Theme {
+
+    public static final int UNTYPED = 0; // untyped text color
+    public static final int TYPED = 1; // typed text color
+    public static final int INCORRECT = 2; // incorrect text color
+    public static final int BACKGROUND = 3; // background color
+    public static final int GHOST = 4; // where the ghost is, the untyped color underlined (it isn't in theme files)
+
+    private static final String[] NAMES = { "untyped", "typed", "incorrect", "background" };
+
+    private String[] letters;
+    private byte[][] fgCodes; // foreground escape code for each color
+    private byte[] bgCode; // background escape code for the background color
+
+    public Theme()
+    {
+        int randNum = (int)(Math.random()*3)+1;
+        if(randNum == 1)
+        {
+           letters = new String[]{
+                "#E6DB74", // untyped text color
+                "#E2E2DC", // typed text color
+                "#F92672", // incorrect text color
+                "#272822"  // background color
+            };
+
+        }else if(randNum == 2)
+        {
+            //white
+            letters = new String[]
+            {
+                "#000000", // untyped text color BLACK
+                "#0000FF", // typed text color BLUE
+                "#F92672", // incorrect text color RED
+                "#FFFFFF"  // background color WHITE
+            };
+        }else
+        {
+            //gray
+            letters = new String[]
+            {
+                "#34282C", // untyped text color CHARCOAL
+                "#7FFFD4", // typed text color AQUAMARINE
+                "#F92672", // incorrect text color RED
+                "#808080"  // background color GRAY
+            };
+        }
+
+        cacheCodes();
+    }
+
+    /**
+     * Creates a theme from four hex codes, in the order untyped, typed, incorrect, background
+     *
+     * @param colors    The hex codes, like "#E6DB74"
+     * @throws IllegalArgumentException if there aren't four colors or one of them isn't a valid hex code
+     */
+    public Theme(String... colors)
+    {
+        if (colors.length != NAMES.length) {
+            throw new IllegalArgumentException("A theme needs " + NAMES.length + " colors, got " + colors.length);
+        }
+        letters = colors.clone();
+        cacheCodes();
+    }
+
+    /**
+     * Loads a theme from a file in the themes folder. Each line looks like "typed = #E2E2DC", and blank lines
+     * or lines starting with // are ignored. Every color is checked here, so a bad theme fails right away
+     * instead of in the middle of a game.
+     *
+     * @param filename  The name of the file in the themes folder
+     * @return          The loaded theme
+     * @throws IOException if the file can't be read
+     * @throws IllegalArgumentException if a line is malformed, a color is invalid, or a color is missing
+     */
+    public static Theme load(String filename) throws IOException
+    {
+        String path = "themes/" + filename;
+        String[] colors = new String[NAMES.length];
+        try (BufferedReader reader = new BufferedReader(new FileReader(path))) {
+            String line;
+            int lineNum = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNum++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("//")) {
+                    continue;
+                }
+
+                int eq = line.indexOf('=');
+                if (eq == -1) {
+                    throw new IllegalArgumentException(path + ":" + lineNum + ": expected <name> = <color>");
+                }
+                String name = line.substring(0, eq).trim().toLowerCase();
+                String value = line.substring(eq + 1).trim();
+
+                int index = -1;
+                for (int i = 0; i < NAMES.length; i++) {
+                    if (NAMES[i].equals(name)) index = i;
+                }
+                if (index == -1) {
+                    throw new IllegalArgumentException(path + ":" + lineNum + ": unknown color name \"" + name + "\"");
+                }
+                try {
+                    parseHex(value);
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException(path + ":" + lineNum + ": " + e.getMessage());
+                }
+                colors[index] = value;
+            }
+        }
+
+        for (int i = 0; i < NAMES.length; i++) {
+            if (colors[i] == null) {
+                throw new IllegalArgumentException(path + ": missing color \"" + NAMES[i] + "\"");
+            }
+        }
+        return new Theme(colors);
+    }
+
+    /**
+     * Parses a hex code like "#7FFFD4" into a packed RGB integer
+     *
+     * @param hex       The hex code, with the leading #
+     * @return          The color as 0xRRGGBB
+     * @throws IllegalArgumentException if it isn't a # followed by exactly six hex digits
+     */
+    public static int parseHex(String hex)
+    {
+        if (hex == null || hex.length() != 7 || hex.charAt(0) != '#') {
+            throw new IllegalArgumentException("invalid color \"" + hex + "\", expected #RRGGBB");
+        }
+        int rgb = 0;
+        for (int i = 1; i < 7; i++) {
+            int digit = Character.digit(hex.charAt(i), 16);
+            if (digit == -1) {
+                throw new IllegalArgumentException("invalid color \"" + hex + "\", expected #RRGGBB");
+            }
+            rgb = (rgb << 4) | digit;
+        }
+        return rgb;
+    }
+
+    /**
+     * Parses every color and builds the escape codes, so nothing has to be formatted during a game
+     */
+    private void cacheCodes()
+    {
+        fgCodes = new byte[letters.length + 1][];
+        for (int i = 0; i < letters.length; i++) {
+            fgCodes[i] = Utils.colorToAnsi(parseHex(letters[i]), false).getBytes();
+        }
+        fgCodes[GHOST] = ("\033[4m" + Utils.colorToAnsi(parseHex(letters[UNTYPED]), false)).getBytes();
+        bgCode = Utils.colorToAnsi(parseHex(letters[BACKGROUND]), true).getBytes();
+    }
+
+    public String[] getTheme()
+    {
+        return letters;
+    }
+
+    /**
+     * Gets the cached foreground escape codes for every color, indexed by color number
+     *
+     * @return          The escape codes, as bytes
+     */
+    public byte[][] getFgCodes()
+    {
+        return fgCodes;
+    }
+
+    /**
+     * Gets the cached escape code that sets the background color
+     *
+     * @return          The escape code, as bytes
+     */
+    public byte[] getBgCode()
+    {
+        return bgCode;
+    }
+}
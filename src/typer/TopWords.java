@@ -0,0 +1,138 @@
+package typer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps track of the most common words in a stream that's too big to count exactly (like every missed word in every
+ * game), in a fixed amount of memory. Counts come from a count-min sketch: a few rows of counters, where each word
+ * adds 1 to one counter per row (picked by a different hash for each row), and its count is the smallest of those
+ * counters. Collisions can only make a count too high, never too low.
+ *
+ * The words themselves are only kept for the current top candidates. When there are twice as many candidates as
+ * wanted, the ones with the lowest counts are dropped.
+ */
+public class TopWords {
+
+    private static final int DEPTH = 4; // rows in the sketch
+
+    private final int k;
+    private final int shift; // 32 - log2(width), the width is a power of two
+    private final int[][] counts;
+    private final HashMap<String, Integer> candidates = new HashMap<String, Integer>();
+    private int floor = 0; // the count a word needs to become a candidate once the list has been trimmed
+    private long total = 0;
+
+    /**
+     * Creates a tracker with a 4 x 16384 sketch (256 KB)
+     *
+     * @param k     How many of the top words to keep
+     */
+    public TopWords(int k) {
+        this(k, 1 << 14);
+    }
+
+    /**
+     * Creates a tracker
+     *
+     * @param k         How many of the top words to keep
+     * @param width     Counters in each row of the sketch, rounded up to a power of two. The error in each count is
+     *                  at most about total / width * e
+     */
+    public TopWords(int k, int width) {
+        this.k = k;
+        int w = Integer.highestOneBit(Math.max(width - 1, 1)) << 1;
+        this.shift = 32 - Integer.numberOfTrailingZeros(w);
+        this.counts = new int[DEPTH][w];
+    }
+
+    /**
+     * Counts a word
+     *
+     * @param word      The word
+     */
+    public void add(String word) {
+        total++;
+        int hash = word.hashCode();
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            int i = index(hash, row);
+            int c = ++counts[row][i];
+            if (c < min) min = c;
+        }
+
+        if (min > floor || candidates.containsKey(word)) {
+            Integer old = candidates.put(word, min);
+            if (old == null && candidates.size() >= 2 * k) trim();
+        }
+    }
+
+    /**
+     * Gets the estimated count of a word, which is never too low
+     *
+     * @param word      The word
+     * @return          The count
+     */
+    public int estimate(String word) {
+        int hash = word.hashCode();
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            min = Math.min(min, counts[row][index(hash, row)]);
+        }
+        return min;
+    }
+
+    /**
+     * Gets the most common words
+     *
+     * @param amount    How many to get, at most k
+     * @return          The words, most common first
+     */
+    public List<Map.Entry<String, Integer>> top(int amount) {
+        ArrayList<Map.Entry<String, Integer>> sorted = new ArrayList<Map.Entry<String, Integer>>(candidates.entrySet());
+        sorted.sort((a, b) -> Integer.compare(b.getValue(), a.getValue()));
+        ArrayList<Map.Entry<String, Integer>> out = new ArrayList<Map.Entry<String, Integer>>();
+        for (int i = 0; i < Math.min(Math.min(amount, k), sorted.size()); i++) {
+            out.add(Map.entry(sorted.get(i).getKey(), sorted.get(i).getValue()));
+        }
+        return out;
+    }
+
+    /**
+     * @return  How many words have been counted
+     */
+    public long total() {
+        return total;
+    }
+
+    /**
+     * Drops all but the top k candidates. Their counts are a little stale (they're from when each word was last
+     * seen), which is fine since counts only go up.
+     */
+    private void trim() {
+        int[] values = new int[candidates.size()];
+        int n = 0;
+        for (int c: candidates.values()) {
+            values[n++] = c;
+        }
+        Arrays.sort(values);
+        floor = values[n - k];
+        candidates.values().removeIf(c -> c < floor);
+        if (candidates.size() >= 2 * k) {
+            // lots of ties, drop them too so this doesn't run again straight away
+            candidates.values().removeIf(c -> c <= floor);
+        }
+    }
+
+    /**
+     * Picks the counter for a hash in a row. Each row multiplies the hash by a different odd constant and takes
+     * the top bits (which are the well mixed ones), so the rows don't collide on the same words.
+     */
+    private int index(int hash, int row) {
+        return ((hash ^ (hash >>> 16)) * (0x9E3779B1 + 2 * row * 0x632BE5AB)) >>> shift;
+    }
+
+}
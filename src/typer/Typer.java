@@ -0,0 +1,1184 @@
+package typer;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jline.terminal.Terminal;
+import org.jline.terminal.Terminal.Signal;
+import org.jline.terminal.TerminalBuilder;
+
+public class Typer {
+
+    private List<String> wordlist;
+    private int wordcount;
+    private Theme pallet;
+    private ArrayList<String> usedWords; // the list of words, randomly picked from the wordlist, that are being
+                                         // used in this game (just the first chunk in timed and endless games)
+    private int fed = 0; // how many of usedWords have been added to the game state so far
+    private int timeLimit = 0; // in seconds, 0 if the game is over when the words run out
+    private boolean endless = false; // keeps adding words until escape is pressed
+    private WordSampler sampler; // picks the words for timed and endless games, a chunk at a time
+    private Passages passages = null; // where the text comes from in quote mode, instead of a wordlist
+    private int nextPassage = 0; // the passage that gets added next in a timed or endless quote game
+    private boolean finished = false; // whether the game was played to the end (not quit partway)
+    private GameState state; // what's been typed, and all the stats counters
+    private LineLayout layout; // which words go on which line, from firstShown to the last word in the state
+    private int firstShown = 0; // the word at the start of the top line on screen
+    private boolean scrolling = false; // only showing SHOWN_LINES lines at a time, instead of all of them
+    private final char[] status = new char[40]; // the status line, filled in place so it's not a new string each time
+    private int maxCharsPerLine = 64; // the maximum characters per line, can shrink if the terminal window is 
+                                      // smaller
+    private Terminal term; // the terminal object
+    private long startTime = 0; // stores when the test starts, 0 before it's set
+    private KeystrokeLog keystrokes; // every key pressed, for the timing stats at the end
+    private KeyTrace trace; // every key that did something, saved so the game can be raced against (not in timed or
+                            // endless games, which don't have a set list of words to race on)
+    private KeyTrace ghostTrace = null; // the saved game to race against, if any
+    private Ghost ghost = null; // plays ghostTrace back during the game
+    private int ghostShown = -1; // where the ghost's cursor is drawn, -1 if it isn't
+    private int termWidth;
+    private int termHeight;
+    private Renderer screen; // in-memory copy of the screen, everything gets drawn through this
+    private InputDecoder input; // turns terminal input into timestamped key events, on the input thread
+    private final KeyRing keys = new KeyRing(4096); // the key events from the input thread
+    private volatile boolean inputStopped = false; // tells the input thread to stop, it checks every INPUT_CHECK
+    private final long[] pendingTimes = new long[256]; // when each key that hasn't been flushed yet was read
+    private final long[] recentLatencies = new long[256]; // render latencies that haven't been given to Metrics yet
+    private int recentCount = 0;
+    private int recentKeys = 0; // keys that haven't been counted in Metrics yet
+    private int[] lineRows; // the screen row of each line
+    private int[] lineCols; // the screen column each line starts at
+    private volatile boolean resized = false; // set when the terminal gets resized
+    private Runnable onReady = null; // called once the words are drawn and keys are being read
+    private LatencyHistogram frameLatency = new LatencyHistogram(); // from reading a key to it being on screen
+    private ResultsLog results = null; // where finished games get saved, if anywhere
+    private String user = System.getProperty("user.name", ""); // who's playing, for the saved results
+    private List<Scorer> scorers = null; // what gets worked out at the end, null for every scorer there is
+    private boolean endScreen = true; // whether the results get shown at the end, and wait for enter
+    private GameResult gameResult = null; // the results of the last game, for play() to return
+
+    private static final int CHUNK = 50; // words get added to the game this many at a time
+    private static final int SHOWN_LINES = 3; // lines on screen when the words don't all fit
+    private static final long FRAME = 1_000_000_000L / 240; // at most 240 flushes a second, keys in between get
+                                                            // drawn together
+    private static final long INPUT_CHECK = 20; // ms the input thread waits for a key before checking if it should stop
+    private static final long TICK = 500_000_000L; // how often the status line gets updated once the game starts
+    
+    /**
+     * Creates a Typer game object on any terminal, like one made from streams with
+     * TerminalBuilder.builder().system(false).streams(in, out), which is how the headless mode runs games
+     * 
+     * @param wordlist      // the list of words to pick from
+     * @param wordcount     // the amount of words the player has to type
+     * @param pallet        // the colors to use
+     * @param term          // the terminal to play in
+     * @throws IOException
+     */
+    public Typer(List<String> wordlist, int wordcount, Theme pallet, Terminal term) throws IOException {
+        this(Utils.getRandom(wordlist, wordcount), pallet, term);
+        this.wordlist = wordlist;
+    }
+
+    /**
+     * Creates a Typer game that uses exactly the words it's given, in order, instead of picking them from a wordlist
+     * (like the server does, which picks words for all its sessions from one shared WordSampler)
+     * 
+     * @param words         // the words the player has to type
+     * @param pallet        // the colors to use
+     * @param term          // the terminal to play in
+     * @throws IOException
+     */
+    public Typer(List<String> words, Theme pallet, Terminal term) throws IOException {
+        this.wordlist = words;
+        this.wordcount = words.size();
+        this.pallet = pallet;
+        this.usedWords = new ArrayList<String>(words);
+
+        this.term = term;
+        this.termWidth = term.getWidth();
+        this.termHeight = term.getHeight();
+
+        // nothing gets written to the terminal until the game starts
+        this.screen = new Renderer(term.output(), termWidth, termHeight, pallet);
+        this.input = new InputDecoder(term.reader());
+    }
+    /**
+     * Creates a Typer game in quote mode, where the text is a passage from a book (or any other text) instead of
+     * words from a wordlist. It's typed exactly as it is, with capitals, punctuation and digits. Timed and endless
+     * games keep going with the passages after it.
+     * 
+     * @param passages      // the text to take the passage from
+     * @param passage       // the number of the passage to start with, like passages.random()
+     * @param pallet        // the colors to use
+     * @param term          // the terminal to play in
+     * @throws IOException if the passage can't be read
+     */
+    public Typer(Passages passages, int passage, Theme pallet, Terminal term) throws IOException {
+        this(passages.words(passage), pallet, term);
+        this.passages = passages;
+        this.nextPassage = passage + 1;
+    }
+    /**
+     * Creates a Typer game object, automatically starts the game in the terminal
+     * 
+     * @param wordlist      // the list of words to pick from, default is the top 1000 most common english
+     *                         words
+     * @param wordcount     // the amount of words the player has to type
+     * @param pallet        // the colors to use
+     * @throws IOException
+     */
+    public Typer(List<String> wordlist, int wordcount, Theme pallet) throws IOException {
+        this(wordlist, wordcount, pallet, systemTerminal());
+    }
+    /**
+     * Creates a Typer game object with a random built-in theme
+     * 
+     * @param wordlist      // the list of words to pick from
+     * @param wordcount     // the amount of words the player has to type
+     * @throws IOException
+     */
+    public Typer(List<String> wordlist, int wordcount) throws IOException {
+        this(wordlist, wordcount, new Theme());
+    }
+    /**
+     * Creates a Typer game objectw ith the wordlist being
+     * the top 1000 most common english words
+     * 
+     * @param wordlist      // the list of words to pick from
+     * @throws IOException
+     */
+    public Typer(List<String> wordlist) throws IOException {
+        this(wordlist, 50);
+    }
+    /**
+     * Creates a Typer game object, where the user has to type 50 words
+     * 
+     * @param wordcount     // the amount of words the player has to type
+     * @throws IOException
+     */
+    public Typer(int wordcount) throws IOException {
+        this(Corpus.shared().get(Utils.DEFAULT_WORDLIST), wordcount);
+    }
+    /**
+     * Creates a Typer game object, where the user has to
+     * type 50 words, and with the wordlist being the top
+     * 1000 most common english words
+     * 
+     * @throws IOException
+     */
+    public Typer() throws IOException {
+        this(50);
+    }
+    
+
+    /**
+     * Starts making a game from GameOptions, for embedding it in other tools. Nothing gets written to the terminal
+     * until the game is played, and play() returns the results instead of just showing them:
+     * <pre>
+     *   GameResult result = Typer.builder()
+     *           .options(GameOptions.builder().words(25).seed(42).endScreen(false).build())
+     *           .terminal(term)
+     *           .build()
+     *           .play();
+     * </pre>
+     * 
+     * @return          The builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Opens the terminal the program is running in, and makes sure it gets reset when the program exits
+     * 
+     * @return          The terminal
+     * @throws IOException
+     */
+    static Terminal systemTerminal() throws IOException {
+        // JLine would try JNA and Jansi first, which aren't there (only jline-terminal is in lib/), so go straight to
+        // the one that runs stty. Windows still needs them, so it gets the normal search
+        boolean windows = System.getProperty("os.name").startsWith("Windows");
+        Terminal term = TerminalBuilder.builder().system(true).jna(windows).jansi(windows).build();
+
+        // This hooks into the program exit, and resets the terminal to normal
+        Runtime.getRuntime().addShutdownHook(new Thread() {
+            public void run() {
+                System.out.print("\033[0m\033[2J\033[0;0H\033[?25h\033[1 q\033[?2004l\033[!p");
+            }
+        });
+        return term;
+    }
+
+    /**
+     * Sets up the game for the words that were picked, and prints them to the terminal
+     * 
+     * @throws IOException
+     */
+    private void genWords() throws IOException {
+
+        // room for a bit more than the average word plus mistakes, timed and endless games just keep the last
+        // 64k keys
+        keystrokes = new KeystrokeLog(isStreaming() ? 1 << 16 : wordcount * 12);
+        trace = isStreaming() ? null : new KeyTrace(usedWords, wordcount * 8);
+        ghost = ghostTrace != null ? new Ghost(ghostTrace) : null;
+        ghostShown = ghost != null ? 0 : -1;
+
+        // words get added to the game a chunk at a time, so long games never have more than a few chunks in memory.
+        // Short tests get all their words straight away, so they can all be shown at once
+        state = new GameState(1 << 10, 1 << 8);
+        firstShown = 0;
+        feed(usedWords.size() <= 4 * CHUNK ? usedWords.size() : CHUNK);
+        maxCharsPerLine = Math.min(64, termWidth - 6);
+        relayout();
+
+        // output lines
+        drawWords();
+        placeCursor();
+        screen.flush();
+        
+    }
+
+    /**
+     * @return          Whether the words keep coming from the sampler, instead of being picked all at the start
+     */
+    private boolean isStreaming() {
+        return timeLimit > 0 || endless;
+    }
+
+    /**
+     * Adds more words to the game state if there are fewer than the given amount left after the cursor. In quote
+     * mode, the next passage gets read from the text (only ever one passage at a time).
+     * 
+     * @param ahead     How many words there should be from the cursor on
+     */
+    private void feed(int ahead) throws IOException {
+        while (state.getWordCount() - state.getWord() < ahead) {
+            if (isStreaming()) {
+                List<String> chunk = fed < usedWords.size() ? usedWords
+                                     : passages != null ? passages.words(nextPassage++)
+                                     : sampler.sample(wordlist, CHUNK);
+                fed = usedWords.size();
+                state.append(chunk);
+            } else if (fed < usedWords.size()) {
+                int end = Math.min(usedWords.size(), fed + Math.max(ahead, CHUNK));
+                state.append(usedWords.subList(fed, end));
+                fed = end;
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return          Whether every word has been typed
+     */
+    private boolean isOutOfWords() {
+        return !isStreaming() && fed == usedWords.size() && state.isFinished();
+    }
+
+    /**
+     * Lays out the words from the top line on screen to the last one in the state, and forgets the words before
+     * that. It's only ever a few lines plus a chunk, so this doesn't take longer as the game goes on.
+     */
+    private void relayout() {
+        state.discard(firstShown);
+        int count = state.getWordCount() - firstShown;
+        int[] wordLengths = new int[count];
+        for (int i = 0; i < count; i++) {
+            wordLengths[i] = state.wordLength(firstShown + i);
+        }
+        layout = new LineLayout(wordLengths, firstShown, count, maxCharsPerLine);
+        updateScrolling();
+    }
+
+    /**
+     * Works out whether the words have to scroll: they do when more can still come, or when they don't fit
+     */
+    private void updateScrolling() {
+        scrolling = isStreaming() || fed < usedWords.size() || layout.lineCount() > termHeight - 4;
+    }
+
+    /**
+     * Moves the words up a line once the cursor gets to the last line on screen, adding more words to the
+     * bottom if they're running out
+     */
+    private void scroll() throws IOException {
+        if (!scrolling || state.getWord() >= state.getWordCount()
+                || layout.lineOf(state.getWord()) < SHOWN_LINES - 1) return;
+        firstShown = layout.lineStart(layout.lineOf(state.getWord()) - 1);
+        feed(CHUNK);
+        relayout();
+        // only the status line and the lines of words need clearing
+        screen.clearRows(lineRows[0] - 2, lineRows[0] + SHOWN_LINES);
+        drawWords();
+    }
+
+    /**
+     * Works out where each line goes on the screen (centered), and draws all of the words. When scrolling, only the
+     * first few lines get a row, the rest are off screen.
+     */
+    private void drawWords() {
+        int shown = scrolling ? Math.min(SHOWN_LINES, layout.lineCount()) : layout.lineCount();
+        // center vertically
+        int topRow = Utils.centerVertSpacing(shown, termHeight) + 1;
+
+        lineRows = new int[layout.lineCount()];
+        lineCols = new int[layout.lineCount()];
+        for (int i = 0; i < layout.lineCount(); i++) {
+            lineRows[i] = i < shown ? topRow + i : -1;
+            lineCols[i] = Utils.centerHorizSpacing(layout.lineLength(i), termWidth);
+            if (i >= shown) continue;
+
+            int start = state.wordStart(layout.lineStart(i));
+            int end = start + layout.lineLength(i);
+            for (int pos = start; pos < end; pos++) {
+                drawChar(lineRows[i], lineCols[i] + pos - start, pos);
+            }
+        }
+        drawStatus();
+    }
+
+    /**
+     * Draws the status line above the words: the time (how long it's been, or how long is left in a timed game),
+     * the WPM and accuracy so far, and the words typed. It's filled into a char[] that's reused, and the renderer
+     * only sends the cells that changed, so it's usually just a digit or two.
+     */
+    private void drawStatus() {
+        if (lineRows.length == 0) return;
+        long elapsed = startTime == 0 ? 0 : System.nanoTime() - startTime;
+        // the game thread is the only one that touches the state, so the counters can be read any time
+        long seconds = timeLimit > 0 ? Math.max(0, (timeLimit * 1_000_000_000L - elapsed + 999_999_999) / 1_000_000_000)
+                                     : elapsed / 1_000_000_000;
+        long wpm = elapsed < 1_000_000_000 ? 0 : state.getWord() * 60_000_000_000L / elapsed;
+        int typed = state.getCursor();
+        long accuracy = typed == 0 ? 100 : Math.max(0, (typed - state.getMistakes()) * 100L / typed);
+
+        formatStatus(status, seconds, wpm, accuracy, state.getWord(), isStreaming() ? -1 : usedWords.size());
+        for (int i = 0; i < status.length; i++) {
+            screen.put(lineRows[0] - 2, lineCols[0] + i, status[i], Theme.TYPED);
+        }
+    }
+
+    /**
+     * Fills in the status line, like "12s   64 wpm   97%   20/50 words", padded with spaces to the end. Anything
+     * that doesn't fit gets cut off, but a number is never cut in half.
+     *
+     * @param status    Where to put it
+     * @param seconds   The time
+     * @param wpm       The WPM so far
+     * @param accuracy  The accuracy so far, in percent
+     * @param word      The words typed
+     * @param words     The words in the game, or -1 if it doesn't have a set amount
+     */
+    static void formatStatus(char[] status, long seconds, long wpm, long accuracy, int word, int words) {
+        int n = putNumber(status, 0, seconds);
+        n = putText(status, n, "s   ");
+        n = putNumber(status, n, wpm);
+        n = putText(status, n, " wpm   ");
+        n = putNumber(status, n, accuracy);
+        n = putText(status, n, "%   ");
+        n = putNumber(status, n, word);
+        if (words >= 0) {
+            n = putText(status, n, "/");
+            n = putNumber(status, n, words);
+        }
+        n = putText(status, n, " words");
+        while (n < status.length) status[n++] = ' ';
+    }
+
+    private static int putText(char[] status, int at, String text) {
+        int length = Math.min(text.length(), status.length - at);
+        text.getChars(0, length, status, at);
+        return at + length;
+    }
+
+    private static int putNumber(char[] status, int at, long value) {
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10) digits++;
+        if (at + digits > status.length) return at;
+        for (int i = at + digits - 1; i >= at; i--) {
+            status[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return at + digits;
+    }
+
+    /**
+     * Gives the keys and render latencies since the last time to Metrics
+     */
+    private void reportMetrics() {
+        Metrics.get().add(recentKeys, recentLatencies, recentCount);
+        recentKeys = 0;
+        recentCount = 0;
+    }
+
+    /**
+     * Redraws part of the text, like the characters changed by a key
+     * 
+     * @param start     The first position in the text to redraw
+     * @param end       The position after the last one to redraw
+     */
+    private void drawRange(int start, int end) {
+        for (int pos = start; pos < end; pos++) {
+            int line = layout.lineOf(state.wordAt(pos));
+            if (lineRows[line] < 0) continue; // off screen
+            drawChar(lineRows[line], lineCols[line] + pos - state.wordStart(layout.lineStart(line)), pos);
+        }
+    }
+
+    /**
+     * Draws one character of the text, in the color for its state. Wrong characters show what was typed instead
+     * of what was expected.
+     */
+    private void drawChar(int row, int col, int pos) {
+        if (pos == ghostShown) {
+            // the ghost's cursor goes over whatever's there, including a mistake
+            screen.put(row, col, state.state(pos) == GameState.WRONG ? state.typed(pos) : state.expected(pos),
+                       Theme.GHOST);
+            return;
+        }
+        switch (state.state(pos)) {
+            case GameState.CORRECT:
+                screen.put(row, col, state.expected(pos), Theme.TYPED);
+                break;
+            case GameState.WRONG:
+                screen.put(row, col, state.typed(pos), Theme.INCORRECT);
+                break;
+            case GameState.MISSED:
+                screen.put(row, col, state.expected(pos), Theme.INCORRECT);
+                break;
+            default:
+                screen.put(row, col, state.expected(pos), Theme.UNTYPED);
+        }
+    }
+
+    /**
+     * Moves the ghost's cursor to where the ghost is now, which only redraws the cell it was on and the one it's on
+     */
+    private void moveGhost() {
+        int old = ghostShown;
+        ghostShown = ghost.getCursor();
+        drawGhostCell(old);
+        drawGhostCell(ghostShown);
+    }
+
+    private void drawGhostCell(int pos) {
+        // the ghost can be on a line that's scrolled off the top, or on words that haven't been added yet
+        if (pos < state.wordStart(firstShown) || pos >= state.textLength()) return;
+        drawRange(pos, pos + 1);
+    }
+
+    /**
+     * Puts the cursor at the position in the text that gets typed next
+     */
+    private void placeCursor() {
+        if (state.getWord() >= state.getWordCount()) return;
+        int word = state.getWord();
+        int line = layout.lineOf(word);
+        screen.moveCursor(lineRows[line], lineCols[line] + state.wordStart(word)
+                          - state.wordStart(layout.lineStart(line)) + state.getTypedInWord());
+    }
+
+    /**
+     * Redraws everything for the new terminal size. The words are the same, so the layout just gets the new width
+     * instead of being built again.
+     */
+    private void handleResize() {
+        resized = false;
+        if (term.getWidth() == termWidth && term.getHeight() == termHeight) return;
+
+        termWidth = term.getWidth();
+        termHeight = term.getHeight();
+        screen.resize(termWidth, termHeight);
+        maxCharsPerLine = Math.min(64, termWidth - 6);
+        layout.setWidth(maxCharsPerLine);
+        updateScrolling();
+        drawWords();
+    }
+
+    /**
+     * Handles one key of input, updating the game state and redrawing whatever it changed
+     * 
+     * @param ch        The key, already lowercased unless it's quote mode
+     * @param time      When the key was pressed, from System.nanoTime()
+     */
+    private void handleKey(char ch, long time) throws IOException {
+        boolean changed;
+
+        if (ch == ' ') {
+            // if it's a space, fill out the rest of the word as wrong and move on to the next word
+            if (state.getTypedInWord() == 0) return;
+            keystrokes.record(ch, ' ', state.isWordTyped(), time);
+            if (trace != null) trace.record(' ', time);
+            changed = state.nextWord();
+            if (changed) drawRange(state.getDirtyStart(), state.getDirtyEnd());
+            scroll();
+            return;
+
+        } else if (ch == '\r' || ch == '\n') { // enter / return, acts as space if at end of line
+            if (!state.isLastOnLine(layout)) return;
+            keystrokes.record(' ', ' ', state.isWordTyped(), time);
+            if (trace != null) trace.record('\r', time);
+            changed = state.nextWord();
+            if (changed) drawRange(state.getDirtyStart(), state.getDirtyEnd());
+            scroll();
+            return;
+
+        } else if (ch == '\u007f' || ch == '\u008f' || ch == '\u0017') {
+            // backspace (7f is backspace and 8f is DEL for windows), or ctrl + backspace (deletes whole word)
+            if (state.getTypedInWord() == 0) return; // skip if already at beginning
+            keystrokes.record(ch, (char) 0, false, time);
+            if (trace != null) trace.record(ch, time);
+            changed = state.press(ch);
+
+        } else { // any normal character
+            // past the end of the word (expected is 0) it only counts as an extra key, and there's nothing to draw
+            char expected = state.expectedAtCursor();
+            keystrokes.record(ch, expected, expected != 0 && ch == expected, time);
+            if (trace != null) trace.record(ch, time);
+            changed = state.type(ch);
+        }
+
+        if (changed) drawRange(state.getDirtyStart(), state.getDirtyEnd());
+    }
+
+    /**
+     * Starts a Typer game
+     * 
+     * @throws IOException
+     */
+    public void start() throws IOException {
+
+        // set up terminal, change cursor to blinking bar (the background color gets set as the words are drawn)
+        term.echo(false);
+        term.enterRawMode();
+        screen.raw("\033[6 q\033[?2004h"); // also turn on bracketed paste, so pasted text can be ignored
+
+        // output starting words and generate wordlist
+        genWords();
+
+        // keys get read and timestamped on their own thread, so a slow write to the terminal never holds up reading
+        // (or timing) the next key. This thread takes them from the ring, and wakes up for a resize too (the handler
+        // runs on another thread, so it just sets a flag)
+        Thread reader = startInput();
+        term.handle(Signal.WINCH, signal -> {
+            resized = true;
+            keys.wake();
+        });
+        if (onReady != null) onReady.run();
+
+        long limit = timeLimit * 1_000_000_000L;
+        long nextTick = 0; // when the status line gets updated next, once the game has started
+        long lastFlush = 0;
+        boolean dirty = false; // something's been drawn that hasn't been flushed
+        int pending = 0; // keys that have been handled but not flushed yet
+
+        // counted in a finally, so a session that drops partway doesn't stay active in the metrics forever
+        Metrics.get().gameStarted();
+        try {
+            boolean done = false;
+            while (!done) {
+                // wait for keys, there can be more than one if they came in together. If there's something to flush
+                // that had to wait for the next frame, only wait until then, and once the game has started wake up for
+                // the next status tick too (a timed game is a whole number of ticks, so that's also when it runs out),
+                // and for the ghost's next key. The ring parks for exactly that long, so that's the ghost's timer
+                long wait = dirty ? Math.max(1, lastFlush + FRAME - System.nanoTime()) : 0;
+                if (startTime != 0) {
+                    long tick = Math.max(1, nextTick - System.nanoTime());
+                    wait = wait == 0 ? tick : Math.min(wait, tick);
+                    if (ghost != null && ghost.nextKeyAt() != Long.MAX_VALUE) {
+                        wait = Math.min(wait, Math.max(1, startTime + ghost.nextKeyAt() - System.nanoTime()));
+                    }
+                }
+                int events = keys.poll(wait);
+                if (events == KeyRing.EOF) break;
+                if (resized) {
+                    handleResize();
+                    dirty = true;
+                }
+
+                int e = 0;
+                for (; e < events && !done; e++) {
+                    int key = keys.key(e);
+                    long time = keys.time(e);
+                    if (timeLimit > 0 && startTime != 0 && time - startTime >= limit) {
+                        finished = done = true; // out of time, this key was too late
+                        break;
+                    }
+                    if (key == InputDecoder.KEY_ESCAPE && isStreaming()) {
+                        // escape ends the game, which only counts as finished in an endless game
+                        finished = endless && state.getWord() > 0;
+                        done = true;
+                        e++;
+                        break;
+                    }
+                    if (pending < pendingTimes.length) pendingTimes[pending++] = time;
+
+                    // pasted text and special keys (arrows, alt + key, etc.) don't count
+                    if (keys.flags(e) != 0 || key < 0 || key > Character.MAX_VALUE) {
+                        continue;
+                    }
+                    // wordlists are all lowercase, so caps lock doesn't matter there, but a passage has to be typed
+                    // exactly as it is
+                    char ch = passages != null ? (char) key : Character.toLowerCase((char) key);
+
+                    // any character that can be shown counts (it's just wrong if it's not in the text), but the only
+                    // control keys are enter, backspace, and ctrl+backspace. Half of a surrogate pair can't be
+                    // shown in one cell, so passages never have them
+                    if (Character.isISOControl(ch) ? !(ch == '\r' || ch == '\n' || ch == '\u007f' || ch == '\u008f'
+                                                       || ch == '\u0017')
+                                                   : Character.isSurrogate(ch)) {
+                        continue;
+                    }
+
+                    // the clock starts on the first key that gets typed, not an arrow or a paste before it
+                    if (startTime == 0) {
+                        startTime = time;
+                        nextTick = time + TICK;
+                    }
+                    handleKey(ch, time);
+                    recentKeys++;
+                    dirty = true;
+                    finished = done = isOutOfWords();
+                }
+                keys.unread(e); // anything after the end of the game is for the end screen
+                if (ghost != null && startTime != 0 && !done && ghost.advance(System.nanoTime() - startTime)) {
+                    // drawn in the same frame as any keys, so the ghost never adds flushes of its own
+                    moveGhost();
+                    dirty = true;
+                }
+                if (timeLimit > 0 && startTime != 0 && System.nanoTime() - startTime >= limit) {
+                    finished = done = true;
+                }
+                if (startTime != 0 && System.nanoTime() >= nextTick) {
+                    while (nextTick <= System.nanoTime()) nextTick += TICK;
+                    drawStatus();
+                    reportMetrics();
+                    dirty = true;
+                }
+
+                // send everything that changed since the last frame in one go, unless the last one was too recent (then
+                // it waits for the next frame, and any keys that come in before then go in the same one)
+                long now = System.nanoTime();
+                if (dirty && (now - lastFlush >= FRAME || done || pending == pendingTimes.length)) {
+                    placeCursor();
+                    screen.flush();
+                    lastFlush = System.nanoTime();
+                    for (int i = 0; i < pending; i++) {
+                        frameLatency.record(lastFlush - pendingTimes[i]);
+                        if (recentCount == recentLatencies.length) reportMetrics();
+                        recentLatencies[recentCount++] = lastFlush - pendingTimes[i];
+                    }
+                    pending = 0;
+                    dirty = false;
+                }
+            }
+        } finally {
+            reportMetrics();
+            Metrics.get().gameEnded(finished);
+        }
+
+        endGame(); // after loop is broken (on finish), display end menu
+        stopInput(reader);
+    }
+
+    /**
+     * Plays a Typer game, the same as start(), and returns how it went
+     * 
+     * @return          The results, with a score from each scorer
+     * @throws IOException
+     */
+    public GameResult play() throws IOException {
+        start();
+        return gameResult;
+    }
+
+    /**
+     * Starts the thread that reads keys from the terminal and puts them in the ring. It stops when the input ends,
+     * or within INPUT_CHECK once the game is over. It only waits for keys without reading them, and reads them once
+     * they're there, so a stopped thread never takes a key that came in after the game (on a terminal that's shared,
+     * that key belongs to whatever reads it next).
+     * 
+     * @return          The thread
+     */
+    private Thread startInput() {
+        Thread reader = new Thread(null, () -> {
+            try {
+                while (!inputStopped) {
+                    int waiting = input.waitForInput(INPUT_CHECK);
+                    if (waiting == InputDecoder.EOF) break;
+                    if (waiting == 0 || inputStopped) continue;
+                    int events = input.poll(0);
+                    if (events == InputDecoder.EOF) break;
+                    for (int e = 0; e < events; e++) {
+                        keys.put(input.key(e), input.time(e), input.flags(e));
+                    }
+                }
+            } catch (IOException e) {
+                // the terminal's gone, same as the end of the input
+            } finally {
+                keys.close();
+            }
+        }, "typer-input", 256 * 1024);
+        reader.setDaemon(true);
+        reader.start();
+        return reader;
+    }
+
+    /**
+     * Stops the input thread, and waits for it to be gone (it's never more than INPUT_CHECK, plus a poll of whatever
+     * keys were already waiting)
+     * 
+     * @param reader    The thread
+     */
+    private void stopInput(Thread reader) {
+        inputStopped = true;
+        boolean interrupted = false;
+        while (reader.isAlive()) {
+            try {
+                reader.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    /**
+     * Works out the results of the current Typer game, and displays a statistics menu for it
+     * 
+     * @throws IOException
+     */
+    private void endGame() throws IOException {
+
+        // some stats variables
+        long duration = startTime == 0 ? 0 : System.nanoTime() - startTime; // 0 if nothing was ever typed
+        if (timeLimit > 0 && finished) duration = timeLimit * 1_000_000_000L;
+        double secondsElapsed = duration / 1000_000_000.0;
+        // time between keys, and the slowest letter transitions
+        KeystrokeStats keyStats = new KeystrokeStats(keystrokes);
+        LatencyHistogram latency = keyStats.getLatency();
+        SessionResult result = SessionResult.of(user, state, duration, keyStats, trace);
+        if (results != null && finished) {
+            results.submit(result);
+        }
+        // the scorers only run here, once, so none of them are ever on the per-key path
+        List<Scorer> scoring = scorers != null ? scorers : Scorers.all();
+        LinkedHashMap<String, Double> scores = new LinkedHashMap<String, Double>();
+        for (Scorer scorer: scoring) {
+            scores.put(scorer.name(), scorer.score(state, keystrokes, duration));
+        }
+        gameResult = new GameResult(result, finished, scores);
+        if (endScreen) showResults(secondsElapsed, result, latency, scoreLines(scoring, scores), duration);
+
+        // reset terminal
+        term.echo(true);
+        screen.raw("\033[0m\033[2J\033[0;0H\033[?25h\033[?2004l\033[!p");
+        screen.flush();
+    }
+
+    /**
+     * Makes a line for each score on the end screen, with the label padded to 12 like the rest of the lines (this
+     * used to be String.format, which parses the format string every time)
+     *
+     * @param scorers   The scorers, in the order to show them
+     * @param scores    Their scores, by name
+     * @return          The lines, each one starting with a newline
+     */
+    static String scoreLines(List<Scorer> scorers, Map<String, Double> scores) {
+        StringBuilder lines = new StringBuilder();
+        for (Scorer scorer: scorers) {
+            int start = lines.append('\n').length();
+            lines.append(scorer.label()).append(':');
+            while (lines.length() - start < 12) lines.append(' ');
+            lines.append(scores.get(scorer.name()));
+        }
+        return lines.toString();
+    }
+
+    /**
+     * Displays the statistics menu, and waits for enter
+     * 
+     * @param secondsElapsed    How long the game took
+     * @param result            The results
+     * @param latency           The time between keys
+     * @param scoreDisp         A line for each scorer
+     * @param duration          How long the game took, in nanoseconds
+     * @throws IOException
+     */
+    private void showResults(double secondsElapsed, SessionResult result, LatencyHistogram latency, String scoreDisp,
+                             long duration) throws IOException {
+
+        // clears screen
+        screen.clear();
+        screen.raw("\033[?25l");
+
+        List<String> wrongWords = result.getWrongWords();
+        List<String> slowest = result.getSlowBigrams().subList(0, Math.min(3, result.getSlowBigrams().size()));
+
+        // the output variable with the formatted text
+        String wpmDisp = Utils.centerText("Time:       " + (Math.round(secondsElapsed * 100) / 100.0) + "s" + 
+                                        "\nWPM:        " + result.getWpm() + 
+                                        "\nCPM:        " + result.getCpm() +
+                                        "\nAccuracy:   " + result.getAccuracy() + "%" + 
+                                        scoreDisp +
+                                        "\nKey time:   " + toMillis(latency.percentile(50)) + "ms p50, " +
+                                                            toMillis(latency.percentile(90)) + "ms p90, " +
+                                                            toMillis(latency.percentile(99)) + "ms p99" +
+                                        (!slowest.isEmpty() ? "\nSlowest:    " + String.join(", ", slowest) : "") + 
+                                        (wrongWords.size() < 8 ? "\nMistakes:   " + String.join(", ", wrongWords) : "") + 
+                                        (ghost != null ? "\nGhost:      " + raceResult(duration) : "") + 
+                                        "\n \n ", // so the next line can be centered vertically 
+                                        termWidth, termHeight);
+
+        String[] dispLines = wpmDisp.split("\n", -1);
+        for (int i = 0; i < dispLines.length; i++) {
+            screen.text(i, 0, dispLines[i], Theme.TYPED);
+        }
+        // goes on the second to last line of the centered block
+        screen.text(dispLines.length - 2, Utils.centerHorizSpacing(" Press Enter to continue...", termWidth),
+                    "Press Enter to continue...", Theme.TYPED);
+        screen.moveCursor(0, 0);
+        screen.flush();
+
+        // wait for enter to exit
+        waitForEnter();
+    }
+
+    /**
+     * Says who won the race against the ghost, and by how much
+     * 
+     * @param duration  How long the player took, in nanoseconds
+     * @return          Something like "you won by 1.25s"
+     */
+    private String raceResult(long duration) {
+        if (!finished) return "got to word " + ghost.getWord() + ", you got to word " + state.getWord();
+        return raceResult(duration, ghost.getDuration());
+    }
+
+    /**
+     * Says who won a finished race, to a hundredth of a second
+     * 
+     * @param duration          How long the player took, in nanoseconds
+     * @param ghostDuration     How long the ghost took
+     * @return                  "you won by 1.25s", "the ghost won by 0.5s", or "a tie" if they're the same to a
+     *                          hundredth of a second
+     */
+    static String raceResult(long duration, long ghostDuration) {
+        long hundredths = Math.round((duration - ghostDuration) / 10_000_000.0);
+        if (hundredths == 0) return "a tie";
+        return (hundredths > 0 ? "the ghost won by " : "you won by ") + Math.abs(hundredths) / 100.0 + "s";
+    }
+
+    /**
+     * Waits until enter is pressed, or the input ends
+     */
+    private void waitForEnter() {
+        while (true) {
+            int events = keys.poll(0);
+            if (events == KeyRing.EOF) return;
+            for (int e = 0; e < events; e++) {
+                if (keys.key(e) == '\r' || keys.key(e) == '\n') return;
+            }
+        }
+    }
+
+    /**
+     * Makes the game last a set amount of time instead of a set amount of words. Words keep getting picked from the
+     * wordlist as they're needed.
+     * 
+     * @param seconds       How long the game lasts, like 15, 30, 60 or 120, or 0 for no limit
+     */
+    public void setTimeLimit(int seconds) {
+        this.timeLimit = seconds;
+        if (sampler == null) sampler = new WordSampler();
+    }
+
+    /**
+     * Makes the game keep going until escape is pressed, with words picked from the wordlist as they're needed
+     * 
+     * @param endless       Whether the game is endless
+     */
+    public void setEndless(boolean endless) {
+        this.endless = endless;
+        if (sampler == null) sampler = new WordSampler();
+    }
+
+    /**
+     * Sets what picks the words for timed and endless games, like a seeded one so the same words come up every time
+     * 
+     * @param sampler       The sampler
+     */
+    public void setSampler(WordSampler sampler) {
+        this.sampler = sampler;
+    }
+
+    /**
+     * Sets what gets worked out at the end of the game, and shown on the end screen (it's every scorer by default)
+     * 
+     * @param scorers       The scorers, in the order to show them
+     */
+    public void setScorers(List<Scorer> scorers) {
+        this.scorers = scorers;
+    }
+
+    /**
+     * Sets whether the results get shown at the end of the game (and wait for enter), which embedded games that
+     * show the results from play() themselves can turn off
+     * 
+     * @param endScreen     Whether to show them
+     */
+    public void setEndScreen(boolean endScreen) {
+        this.endScreen = endScreen;
+    }
+
+    /**
+     * Races against a saved game: the ghost's cursor moves through the words at the speed it was typed, starting
+     * when the first key is pressed. The game has to have the same words the saved one did.
+     * 
+     * @param ghost         The saved game's keys (see Ghost.find), or null to not race
+     * @throws IllegalArgumentException if the saved game had different words
+     */
+    public void setGhost(KeyTrace ghost) {
+        if (ghost != null && !ghost.getWords().equals(usedWords)) {
+            throw new IllegalArgumentException("the ghost's game had different words");
+        }
+        this.ghostTrace = ghost;
+    }
+
+    /**
+     * Sets something to run once the game is ready for the first key: the words are drawn and the input thread is
+     * reading. It runs on the game's thread, before any keys are handled.
+     * 
+     * @param onReady       What to run, or null for nothing
+     */
+    public void setOnReady(Runnable onReady) {
+        this.onReady = onReady;
+    }
+
+    /**
+     * Saves the results to a log when the game is finished. This doesn't wait for the disk, so the log can be shared
+     * by lots of games.
+     * 
+     * @param results       The log to save to, or null to not save
+     */
+    public void setResultsLog(ResultsLog results) {
+        this.results = results;
+    }
+
+    /**
+     * Sets who's playing, which gets saved with the results (it's the system user name by default)
+     * 
+     * @param user          The name
+     */
+    public void setUser(String user) {
+        this.user = user;
+    }
+
+    /**
+     * Gets the words picked for this game
+     * 
+     * @return          The words, in the order they have to be typed
+     */
+    public List<String> getWords() {
+        return usedWords;
+    }
+
+    /**
+     * Gets how long it took from each key being read to the screen being updated for it
+     * 
+     * @return          The latencies in nanoseconds, one for each key event
+     */
+    public LatencyHistogram getFrameLatency() {
+        return frameLatency;
+    }
+
+    /**
+     * Gets the state of the game, which is null until start() is called
+     * 
+     * @return          The game state
+     */
+    public GameState getState() {
+        return state;
+    }
+
+    /**
+     * @return  Whether the last game was played to the end: every word typed, the time ran out, or an endless game
+     *          was stopped with some words typed
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Gets the results of the last game, with the scores
+     * 
+     * @return          The results, null until a game has ended
+     */
+    public GameResult getResult() {
+        return gameResult;
+    }
+
+    /**
+     * Converts nanoseconds to milliseconds, rounded to one decimal place
+     * 
+     * @param nanos     The time in nanoseconds
+     * @return          The time in milliseconds
+     */
+    private static double toMillis(long nanos) {
+        return Math.round(nanos / 100_000.0) / 10.0;
+    }
+
+    public static void main(String[] args) throws Exception {
+
+        // a theme file from the themes folder can be passed as an argument, --adaptive picks words to practice from
+        // the saved results instead of at random, --time 30 plays for 30 seconds, --endless plays until escape, and
+        // --quote books.txt types a passage from a text file instead of words, and --ghost last (or best) races
+        // against your last (or best) saved game
+        boolean adaptive = false;
+        String quotes = null;
+        String race = null;
+        boolean endless = false;
+        int time = 0;
+        Theme theme = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--adaptive":
+                    adaptive = true;
+                    break;
+                case "--endless":
+                    endless = true;
+                    break;
+                case "--time":
+                    time = Integer.parseInt(args[++i]);
+                    break;
+                case "--quote":
+                    quotes = args[++i];
+                    break;
+                case "--ghost":
+                    race = args[++i];
+                    break;
+                default:
+                    theme = Theme.load(args[i]);
+            }
+        }
+        if (theme == null) theme = new Theme();
+
+        try (ResultsLog results = ResultsLog.open(Paths.get("results"));
+             Passages passages = quotes != null ? Passages.open(Paths.get(quotes)) : null) {
+            List<String> wordlist = Corpus.shared().get(Utils.DEFAULT_WORDLIST);
+            String user = System.getProperty("user.name", "");
+            KeyTrace ghost = race != null ? Ghost.find(results, user, race.equals("best")) : null;
+            if (race != null && ghost == null) {
+                System.out.println("There aren't any saved games to race against yet, so it's a normal game");
+            }
+            Typer t;
+            if (ghost != null) {
+                t = new Typer(ghost.getWords(), theme, systemTerminal());
+                t.setGhost(ghost);
+            } else if (passages != null) {
+                t = new Typer(passages, passages.random(), theme, systemTerminal());
+            } else if (adaptive) {
+                // the log can have other people's games in it (like from the server), only this user's mistakes count
+                AdaptiveSampler sampler = AdaptiveSampler.follow(results, user, wordlist);
+                t = new Typer(sampler.drill(50), theme, systemTerminal());
+            } else {
+                t = new Typer(wordlist, 50, theme);
+            }
+            if (time > 0) t.setTimeLimit(time);
+            t.setEndless(endless);
+            t.setResultsLog(results);
+            t.start();
+        }
+
+    }
+
+    /**
+     * Makes a Typer game from GameOptions, see Typer.builder()
+     */
+    public static class Builder {
+
+        private GameOptions options = GameOptions.builder().build();
+        private Terminal term = null;
+        private ResultsLog results = null;
+        private String user = null;
+
+        private Builder() {
+        }
+
+        /**
+         * @param options   How the game is set up, the defaults if this isn't called
+         * @return          This builder
+         */
+        public Builder options(GameOptions options) {
+            this.options = options;
+            return this;
+        }
+
+        /**
+         * @param term      The terminal to play in, like one made from streams with
+         *                  TerminalBuilder.builder().system(false).streams(in, out)
+         * @return          This builder
+         */
+        public Builder terminal(Terminal term) {
+            this.term = term;
+            return this;
+        }
+
+        /**
+         * @param results   The log to save finished games to
+         * @return          This builder
+         */
+        public Builder resultsLog(ResultsLog results) {
+            this.results = results;
+            return this;
+        }
+
+        /**
+         * @param user      Who's playing, for the saved results
+         * @return          This builder
+         */
+        public Builder user(String user) {
+            this.user = user;
+            return this;
+        }
+
+        /**
+         * Picks the words with the mode, and sets the game up. The mode and scorers are looked up here, so a bad
+         * name in the options fails before anything is drawn.
+         * 
+         * @return          The game, ready to play()
+         * @throws IOException
+         * @throws IllegalArgumentException if there's no mode or scorer with a name from the options
+         * @throws IllegalStateException if there's no terminal
+         */
+        public Typer build() throws IOException {
+            if (term == null) throw new IllegalStateException("a game needs a terminal to play in");
+            GameMode mode = GameModes.get(options.getMode());
+            List<Scorer> scorers = Scorers.get(options.getScorers());
+            List<String> wordlist = Corpus.shared().get(options.getWordlist());
+            // a seeded game needs a sampler of its own, anything else uses this thread's, which already has its
+            // scratch arrays (a new one would allocate two int[]s the size of the wordlist for every game)
+            WordSampler sampler = options.hasSeed() ? new WordSampler(options.getSeed()) : Utils.sampler();
+
+            Typer game = new Typer(mode.words(wordlist, options, sampler),
+                                   options.getTheme() != null ? options.getTheme() : new Theme(), term);
+            game.wordlist = wordlist; // timed and endless games keep picking from the whole list
+            // with the same sampler if it's seeded, otherwise they make their own, since the game might be played on
+            // another thread
+            if (options.hasSeed()) game.setSampler(sampler);
+            game.setScorers(scorers);
+            game.setEndScreen(options.hasEndScreen());
+            if (results != null) game.setResultsLog(results);
+            if (user != null) game.setUser(user);
+            mode.configure(game, options);
+            return game;
+        }
+
+    }
+
+}
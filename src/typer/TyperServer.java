@@ -0,0 +1,296 @@
+package typer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jline.terminal.Size;
+import org.jline.terminal.Terminal;
+import org.jline.terminal.TerminalBuilder;
+
+/**
+ * Hosts typing tests over TCP, one game per connection. Every connection gets its own JLine terminal made from the
+ * socket's streams, and its own thread (a virtual thread on Java 21 and up, otherwise a normal thread with a small
+ * stack). All the sessions share one wordlist, one theme, and one WordSampler, so a session only costs its thread,
+ * its socket, and the arrays for its own game.
+ *
+ * Connect with telnet (the server asks it to switch to character mode), or with a raw client like
+ * "stty raw -echo; nc localhost 4000; stty sane". LoopbackClient can simulate lots of users at once.
+ *
+ * Run it with: java typer.TyperServer [options]
+ * <pre>
+ *   --port n         The port to listen on (default 4000)
+ *   --bind address   The address to listen on (default 127.0.0.1, use 0.0.0.0 for every interface)
+ *   --words n        Words per game (default 50)
+ *   --size WxH       The terminal size to assume, since a raw socket can't say (default 80x24)
+ *   --theme file     A theme file from the themes folder (default a random built-in theme)
+ *   --wordlist file  The wordlist to use (default 1000en.txt)
+ *   --results folder Where to save the results of finished games (default results)
+ *   --sync ms        The most time saved results can go before being forced to disk (default 1000)
+ *   --metrics file   Where to write the metrics in the Prometheus text format (default none, they're always on JMX)
+ *   --metrics-interval ms  How often to update the metrics (default 10000)
+ *   --length a-b     Only words from a to b chars long, for a drill (or just a, for one length)
+ *   --letters abc    Only words that use nothing but these letters (like asdfghjkl for the home row)
+ *   --containing th  Only words with this in them
+ *   --top n          Only the n most common words in the wordlist
+ * </pre>
+ * With any of the last four, each game's words are picked from a WordIndex of the wordlist instead of the whole list.
+ */
+public class TyperServer {
+
+    // telnet commands that turn off the client's local echo and line buffering (IAC WILL ECHO, IAC WILL SGA)
+    private static final byte[] TELNET_CHAR_MODE = { (byte) 255, (byte) 251, 1, (byte) 255, (byte) 251, 3 };
+
+    private final List<String> wordlist;
+    private final Theme theme;
+    private final int words;
+    private final int width;
+    private final int height;
+    private final WordSampler sampler = new WordSampler(); // shared, so it's only used while holding its lock
+    private ResultsLog results = null;
+    private WordIndex index = null;
+    private WordIndex.Query drill = null;
+
+    private final AtomicInteger open = new AtomicInteger(); // sessions connected right now
+    private final AtomicLong finished = new AtomicLong(); // games played to the end
+    private final AtomicLong failed = new AtomicLong(); // sessions that ended with an error
+
+    /**
+     * Creates a server, which doesn't listen until serve() is called
+     *
+     * @param wordlist  The words to pick from, shared by every session (so it shouldn't change)
+     * @param theme     The colors, shared by every session
+     * @param words     The amount of words in each game
+     * @param width     The width of each session's terminal
+     * @param height    The height of each session's terminal
+     */
+    public TyperServer(List<String> wordlist, Theme theme, int words, int width, int height) {
+        this.wordlist = wordlist;
+        this.theme = theme;
+        this.words = words;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Accepts connections forever, starting a session for each one
+     *
+     * @param server    The socket to accept connections on
+     * @throws IOException if the server socket fails
+     */
+    public void serve(ServerSocket server) throws IOException {
+        ExecutorService sessions = newSessionExecutor("typer-session-");
+        try {
+            while (true) {
+                Socket socket = server.accept();
+                open.incrementAndGet();
+                sessions.execute(() -> session(socket));
+            }
+        } finally {
+            sessions.shutdownNow();
+        }
+    }
+
+    /**
+     * Plays one game over a connection, then closes it
+     *
+     * @param socket    The connection
+     */
+    private void session(Socket socket) {
+        try (Socket s = socket) {
+            s.setTcpNoDelay(true); // each frame is already one write, so send it straight away
+            OutputStream out = s.getOutputStream();
+            out.write(TELNET_CHAR_MODE);
+
+            ArrayList<String> picked;
+            if (drill != null) {
+                picked = index.drill(drill, words); // the index doesn't change, so there's nothing to lock
+            } else {
+                synchronized (sampler) {
+                    picked = sampler.sample(wordlist, words);
+                }
+            }
+
+            // the terminal writes a byte at a time, FrameOutput makes that one write (and one packet) a frame, and
+            // TelnetInput keeps the client's answers to TELNET_CHAR_MODE from being read as keys
+            Terminal term = TerminalBuilder.builder().system(false)
+                    .streams(new TelnetInput(s.getInputStream()), new FrameOutput(out))
+                    .size(new Size(width, height)).type("xterm-256color").build();
+            try {
+                Typer typer = new Typer(picked, theme, term);
+                typer.setResultsLog(results);
+                typer.setUser(s.getInetAddress().getHostAddress()); // there's no login, so each machine is a user
+                typer.start();
+                if (typer.isFinished()) finished.incrementAndGet();
+            } finally {
+                term.close();
+            }
+        } catch (IOException | RuntimeException e) {
+            // usually just the other end hanging up, which shouldn't take the server down
+            failed.incrementAndGet();
+        } finally {
+            open.decrementAndGet();
+        }
+    }
+
+    /**
+     * Saves every finished game to a log, which all the sessions share
+     *
+     * @param results   The log, or null to not save results
+     */
+    public void setResultsLog(ResultsLog results) {
+        this.results = results;
+    }
+
+    /**
+     * Picks every game's words from the ones that match a query, instead of from the whole wordlist
+     *
+     * @param index     The index of the server's wordlist
+     * @param drill     What to look for, which shouldn't change after this
+     */
+    public void setDrill(WordIndex index, WordIndex.Query drill) {
+        this.index = index;
+        this.drill = drill;
+    }
+
+    public int getOpenSessions() {
+        return open.get();
+    }
+
+    public long getFinishedGames() {
+        return finished.get();
+    }
+
+    public long getFailedSessions() {
+        return failed.get();
+    }
+
+    /**
+     * Makes an executor that runs every task on its own new thread. On Java 21 and up those are virtual threads (the
+     * method is looked up by reflection, so this still builds for Java 17). Before that, they're daemon threads with a
+     * small stack, since a session only ever has a few calls on it.
+     *
+     * @param name      What to start the thread names with
+     * @return          The executor
+     */
+    static ExecutorService newSessionExecutor(String name) {
+        try {
+            Method virtual = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) virtual.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger count = new AtomicInteger();
+            ThreadFactory factory = r -> {
+                Thread thread = new Thread(null, r, name + count.incrementAndGet(), 256 * 1024);
+                thread.setDaemon(true);
+                return thread;
+            };
+            return Executors.newCachedThreadPool(factory);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = 4000;
+        String bind = "127.0.0.1";
+        int words = 50;
+        int width = 80;
+        int height = 24;
+        Theme theme = null;
+        String wordlist = Utils.DEFAULT_WORDLIST;
+        String resultsFolder = "results";
+        long sync = 1000;
+        Path metricsFile = null;
+        long metricsInterval = 10_000;
+        WordIndex.Query drill = null;
+
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException(arg + " needs a value");
+            }
+            String value = args[++i];
+            switch (arg) {
+                case "--port":
+                    port = Integer.parseInt(value);
+                    break;
+                case "--bind":
+                    bind = value;
+                    break;
+                case "--words":
+                    words = Integer.parseInt(value);
+                    break;
+                case "--size":
+                    String[] size = value.split("x");
+                    width = Integer.parseInt(size[0]);
+                    height = Integer.parseInt(size[1]);
+                    break;
+                case "--theme":
+                    theme = Theme.load(value);
+                    break;
+                case "--wordlist":
+                    wordlist = value;
+                    break;
+                case "--results":
+                    resultsFolder = value;
+                    break;
+                case "--sync":
+                    sync = Long.parseLong(value);
+                    break;
+                case "--metrics":
+                    metricsFile = Paths.get(value);
+                    break;
+                case "--metrics-interval":
+                    metricsInterval = Long.parseLong(value);
+                    break;
+                case "--length":
+                    String[] range = value.split("-");
+                    drill = drill != null ? drill : new WordIndex.Query();
+                    drill.length(Integer.parseInt(range[0]), Integer.parseInt(range[range.length - 1]));
+                    break;
+                case "--letters":
+                    drill = (drill != null ? drill : new WordIndex.Query()).letters(value);
+                    break;
+                case "--containing":
+                    drill = (drill != null ? drill : new WordIndex.Query()).containing(value);
+                    break;
+                case "--top":
+                    drill = (drill != null ? drill : new WordIndex.Query()).top(Integer.parseInt(value));
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown option " + arg);
+            }
+        }
+
+        TyperServer server = new TyperServer(Corpus.shared().get(wordlist), theme != null ? theme : new Theme(),
+                                             words, width, height);
+        if (drill != null) {
+            WordIndex index = Corpus.shared().index(wordlist);
+            int matching = index.count(drill);
+            if (matching == 0) {
+                throw new IllegalArgumentException("no words in " + wordlist + " match the drill");
+            }
+            server.setDrill(index, drill);
+            System.out.println(matching + " words match the drill");
+        }
+        Metrics.get().start(metricsFile, metricsInterval);
+        // a big backlog, so lots of clients connecting at once don't get refused
+        try (ResultsLog results = ResultsLog.open(Paths.get(resultsFolder), sync);
+             ServerSocket socket = new ServerSocket(port, 4096, InetAddress.getByName(bind))) {
+            server.setResultsLog(results);
+            System.out.println("Listening on " + socket.getLocalSocketAddress());
+            server.serve(socket);
+        }
+    }
+
+}
@@ -0,0 +1,251 @@
+package typer;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class Utils {
+
+    public static final String DEFAULT_WORDLIST = "1000en.txt"; // in the words folder, and built into the jar
+
+    private static final ThreadLocal<WordSampler> SAMPLER = ThreadLocal.withInitial(WordSampler::new);
+    
+    /**
+     * Gets a wordlist from a filename and returns it as an ArrayList of Strings. If it isn't in the words folder, the
+     * copy built into the jar is used (only the default list is), so a game can start from anywhere.
+     * 
+     * @param filename  The name / location fof the file to read from
+     * @return          The ArrayList<String> of words, empty if it couldn't be read
+     */
+    public static ArrayList<String> getWordlist(String filename) {
+        try {
+            return readWordlist(filename);
+        } catch (IOException e) {
+            System.out.println("Wordlist " + filename + "not found:");
+            e.printStackTrace();
+            return new ArrayList<String>();
+        }
+    }
+
+    /**
+     * Reads a wordlist the same way as getWordlist(), but a list that can't be read is an error instead of empty
+     *
+     * @param filename  The name of the file in the words folder
+     * @return          The words
+     * @throws IOException if it isn't in the words folder or the jar, or can't be read
+     */
+    public static ArrayList<String> readWordlist(String filename) throws IOException {
+        ArrayList<String> wordlist = new ArrayList<String>();
+        File wordlistFile = new File("words/" + filename);
+        InputStream in = wordlistFile.isFile() ? new FileInputStream(wordlistFile)
+                         : Utils.class.getResourceAsStream("/words/" + filename);
+        if (in == null) throw new FileNotFoundException(wordlistFile.getPath());
+
+        // a BufferedReader and not a Scanner, which sets up regexes just to split lines (that used to be most of
+        // the time it took to get a game on screen)
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                wordlist.add(line);
+            }
+        }
+        return wordlist;
+    }
+
+    /**
+     * Opens a wordlist from the words folder. Compiled .twl files are memory mapped instead of read into memory,
+     * and if there's a compiled copy of a text wordlist next to it (like words/1000en.twl for 1000en.txt) that's
+     * at least as new, that gets used instead.
+     * 
+     * @param filename  The name of the file in the words folder
+     * @return          The wordlist
+     * @throws IOException if it can't be read (a compiled copy that can't be opened falls back to the text file)
+     */
+    public static List<String> openWordlist(String filename) throws IOException {
+        String compiled = filename.endsWith(".twl") ? filename
+                          : filename.replaceFirst("\\.[^.]*$", "") + ".twl";
+        File compiledFile = new File("words/" + compiled);
+        File textFile = new File("words/" + filename);
+        if (compiledFile.isFile() && (compiled.equals(filename) || compiledFile.lastModified() >= textFile.lastModified())) {
+            try {
+                return MappedWordlist.open(compiledFile.toPath());
+            } catch (IOException e) {
+                System.out.println("Couldn't open compiled wordlist " + compiled + ":");
+                e.printStackTrace();
+            }
+        }
+        return readWordlist(filename);
+    }
+
+    /**
+     * Gets the words that fit on the first line, when wrapping at a certain number of characters. For laying out a
+     * whole list of words at once, LineLayout does it in one pass.
+     * 
+     * @param words         The List<String> of words to use
+     * @param lineLength    The maximum length for each line
+     * @return              The words that go on the first line
+     */
+    public static ArrayList<String> wrapWords(List<String> words, int lineLength) {
+
+        int length = 0; // length of the line so far, only the length is needed to know when to wrap
+        for (int i = 0; i < words.size(); i++) {
+
+            // add spaces, but only if it's not at the very beginning
+            int wordLength = (i != 0 ? 1 : 0) + words.get(i).length();
+
+            // return if wrap limit has been reached (the first word always fits, so nothing gets stuck)
+            if (i != 0 && length + wordLength > lineLength) {
+                return new ArrayList<String>(words.subList(0, i));
+            }
+
+            length += wordLength;
+        }
+
+        // if the list of words is shorter than limit, just return a copy of the list of words
+        return new ArrayList<String>(words);
+
+    }
+
+
+    /**
+     * Converts an RGB color into an ANSI escape code
+     * 
+     * @param rgb   The color to convert, packed as 0xRRGGBB
+     * @param bg    Whether or the ANSI escape code should target the background or the foreground
+     * @return      The ANSI escape code for the color
+     */
+    public static String colorToAnsi(int rgb, boolean bg) {
+        return "\033[" + (bg ? 48 : 38) + ";2;" + ((rgb >> 16) & 0xFF) + ";" + ((rgb >> 8) & 0xFF) + ";" + (rgb & 0xFF) + "m";
+    }
+    
+    /**
+     * Converts an RGB color into an ANSI escape code for the foreground
+     * 
+     * @param rgb   The color to convert, packed as 0xRRGGBB
+     * @return      The ANSI escape code for the color
+     */
+    public static String colorToAnsi(int rgb) {
+        return colorToAnsi(rgb, false);
+    }
+
+    /**
+     * Converts a hex code into an ANSI escape code
+     * 
+     * @param col   The color to convert
+     * @param bg    Whether or the ANSI escape code should target the background or the foreground
+     * @return      The ANSI escape code for the color
+     */
+    public static String hexToAnsi(String col, boolean bg) {
+        return colorToAnsi(Theme.parseHex(col), bg);
+    }
+    /**
+     * Converts a hex code into an ANSI escape code for the foreground
+     * 
+     * @param col   The color to convert
+     * @return      The ANSI escape code for the color
+     */
+    public static String hexToAnsi(String col) {
+        return colorToAnsi(Theme.parseHex(col));
+    }
+
+    /**
+     * Calculates the amount of spacing needed on one side to center text horzontally in an area with a certain
+     * width
+     * 
+     * @param text      The text to use for calculations
+     * @param width     The width of the area to center in
+     * @return          The integer amount of spacing needed (in characters)
+     */
+    public static int centerHorizSpacing(String text, int width) {
+        return (width / 2) - (text.length() / 2);
+    }
+    /**
+     * Calculates the amount of spacing needed on one side to center text of a certain length horzontally in an
+     * area with a certain width
+     * 
+     * @param chars     The amount of characters to use for calculations
+     * @param width     The width of the area to center in
+     * @return          The integer amount of spacing needed (in characters)
+     */
+    public static int centerHorizSpacing(int chars, int width) {
+        return (width / 2) - (chars / 2);
+    }
+   
+    /**
+     * Calculates the amount of spacing needed on the top to center text vertically in an area with a certain
+     * height
+     * 
+     * @param text      The text to use for calculations
+     * @param height    The height of the area to center in
+     * @return          The integer amount of spacing needed (in characters)
+     */
+    public static int centerVertSpacing(String text, int height) {
+        return (height / 2) - (text.split("\n").length / 2) - 2;
+    }
+    /**
+     * Calculates the amount of spacing needed on the top to center a certain number of lines vertically in an
+     * area with a certain height
+     * 
+     * @param lines     The amount of lines to use for calculations
+     * @param height    The height of the area to center in
+     * @return          The integer amount of spacing needed (in characters)
+     */
+    public static int centerVertSpacing(int lines, int height) {
+        return (height / 2) - (lines / 2) - 2;
+    }
+
+    /**
+     * Centers a block of text horizontally and vertically
+     * 
+     * @param text      The text to center
+     * @param width     The width of the area to center the text within
+     * @param height    The height of the area to center the text within
+     * @return          The centered text
+     */
+    public static String centerText(String text, int width, int height) {
+
+        int longestLength = 0;
+        for (String line: text.split("\n")) {
+            longestLength = Math.max(longestLength, line.length());
+        }
+
+        int leftSpacing = centerHorizSpacing(longestLength, width);
+        int topSpacing = centerVertSpacing(text, height);
+
+        String out = "\n".repeat(topSpacing);
+        for (String line: text.split("\n")) {
+            out += " ".repeat(leftSpacing) + line + "\n";
+        }
+
+        return out;
+    }
+
+    /**
+     * Gets a certain amount of random values from a List of Strings, without duplicates (unless more values are
+     * asked for than there are in the list, then it starts over with a new random order). Uses a WordSampler,
+     * one per thread.
+     * 
+     * @param vals      The List<String> to pick from
+     * @param amount    The amount of values to pick
+     * @return          <amount> randomly picked values from the array
+     */
+    public static ArrayList<String> getRandom(List<String> vals, int amount) {
+        return SAMPLER.get().sample(vals, amount);
+    }
+
+    /**
+     * @return  This thread's WordSampler, the one getRandom() uses. It keeps its scratch arrays between calls, so
+     *          picking from the same list again doesn't allocate them again
+     */
+    static WordSampler sampler() {
+        return SAMPLER.get();
+    }
+
+}
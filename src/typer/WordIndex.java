@@ -0,0 +1,445 @@
+package typer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Finds the words in a wordlist that match a Query (a range of lengths, only some letters, containing some text, only
+ * the most common ones) without looking at every word. Wordlists are in order of how common the words are, so a
+ * word's index is its frequency rank, and everything here is kept in that order:
+ * <pre>
+ *   lengths   the words of each length (byLength), so a range of lengths is a few slices
+ *   masks     the words with each set of letters (byMask, one group per WordlistCompiler.letterMask), so "only these
+ *             letters" is every group whose letters are all in the set
+ *   bigrams   the words that have each pair of letters in (bigramWords), so "containing th" starts from the words
+ *             with "th" in instead of all of them
+ * </pre>
+ * A query starts from whichever of those gives the fewest words (the top n, the lengths, the letters, or the rarest
+ * pair of letters in the text), and checks the rest of the query against each of them. A drill picks random words
+ * from there, and only falls back to finding every match when not many of them match.
+ *
+ * Made once per list (Corpus.index), and it doesn't change after that, so any number of threads can use it.
+ */
+public class WordIndex {
+
+    public static final String HOME_ROW = "asdfghjkl";
+    private static final int MAX_LENGTH = 32; // words this long or longer share the last length bucket
+    private static final int LETTERS = 26;
+
+    private final List<String> words;
+    private final int[] masks;
+    private final short[] lengths;
+
+    // the words of each length, from byLength[lengthStart[l]] up to byLength[lengthStart[l + 1]]
+    private final int[] lengthStart = new int[MAX_LENGTH + 2];
+    private final int[] byLength;
+
+    // each different letter mask, sorted, and the words with it, from byMask[maskStart[g]] up to
+    // byMask[maskStart[g + 1]]
+    private final int[] maskValues;
+    private final int[] maskStart;
+    private final int[] byMask;
+
+    // the words with each pair of letters in, from bigramWords[bigramStart[b]] up to bigramWords[bigramStart[b + 1]]
+    private final int[] bigramStart = new int[LETTERS * LETTERS + 1];
+    private final int[] bigramWords;
+
+    /**
+     * Indexes a wordlist. A MappedWordlist already has the lengths and letters of its words, the rest have to be
+     * worked out, and every word gets looked at once for its pairs of letters.
+     *
+     * @param words     The words, most common first, which shouldn't change after this
+     */
+    public WordIndex(List<String> words) {
+        this.words = words;
+        int n = words.size();
+        masks = new int[n];
+        lengths = new short[n];
+        MappedWordlist mapped = words instanceof MappedWordlist ? (MappedWordlist) words : null;
+
+        // count first, so the words of each length and each pair fit in one array each
+        int[] seen = new int[LETTERS * LETTERS];
+        Arrays.fill(seen, -1);
+        for (int i = 0; i < n; i++) {
+            String word = words.get(i);
+            masks[i] = mapped != null ? mapped.letterMask(i) : WordlistCompiler.letterMask(word);
+            lengths[i] = (short) Math.min(word.length(), Short.MAX_VALUE);
+            lengthStart[bucket(lengths[i]) + 1]++;
+            for (int j = 1; j < word.length(); j++) {
+                int b = bigram(word.charAt(j - 1), word.charAt(j));
+                if (b != -1 && seen[b] != i) {
+                    seen[b] = i;
+                    bigramStart[b + 1]++;
+                }
+            }
+        }
+        for (int l = 0; l <= MAX_LENGTH; l++) {
+            lengthStart[l + 1] += lengthStart[l];
+        }
+        for (int b = 0; b < LETTERS * LETTERS; b++) {
+            bigramStart[b + 1] += bigramStart[b];
+        }
+
+        // then fill them in, in order, so each bucket and each list stays in rank order
+        byLength = new int[n];
+        bigramWords = new int[bigramStart[LETTERS * LETTERS]];
+        int[] lengthFill = Arrays.copyOf(lengthStart, MAX_LENGTH + 1);
+        int[] bigramFill = Arrays.copyOf(bigramStart, LETTERS * LETTERS);
+        Arrays.fill(seen, -1);
+        for (int i = 0; i < n; i++) {
+            byLength[lengthFill[bucket(lengths[i])]++] = i;
+            String word = words.get(i); // a mapped list decodes it again, rather than keeping every word around
+            for (int j = 1; j < word.length(); j++) {
+                int b = bigram(word.charAt(j - 1), word.charAt(j));
+                if (b != -1 && seen[b] != i) {
+                    seen[b] = i;
+                    bigramWords[bigramFill[b]++] = i;
+                }
+            }
+        }
+
+        // the mask groups: sorting longs with the mask on top and the index underneath keeps each group in rank order
+        long[] keyed = new long[n];
+        for (int i = 0; i < n; i++) {
+            keyed[i] = ((long) masks[i] << 32) | i;
+        }
+        Arrays.sort(keyed);
+        byMask = new int[n];
+        int groups = 0;
+        for (int i = 0; i < n; i++) {
+            byMask[i] = (int) keyed[i];
+            if (i == 0 || keyed[i] >>> 32 != keyed[i - 1] >>> 32) groups++;
+        }
+        maskValues = new int[groups];
+        maskStart = new int[groups + 1];
+        for (int i = 0, g = -1; i < n; i++) {
+            if (i == 0 || keyed[i] >>> 32 != keyed[i - 1] >>> 32) {
+                maskValues[++g] = (int) (keyed[i] >>> 32);
+                maskStart[g] = i;
+            }
+        }
+        maskStart[groups] = n;
+    }
+
+    /**
+     * Finds the most common words that match a query
+     *
+     * @param query     What to look for
+     * @param limit     The most words to find
+     * @return          The matching words, most common first
+     */
+    public ArrayList<String> find(Query query, int limit) {
+        int[] matches = matches(query, limit);
+        ArrayList<String> found = new ArrayList<String>(matches.length);
+        for (int i: matches) {
+            found.add(words.get(i));
+        }
+        return found;
+    }
+
+    /**
+     * Counts the words that match a query
+     *
+     * @param query     What to look for
+     * @return          How many words match
+     */
+    public int count(Query query) {
+        return matches(query, Integer.MAX_VALUE).length;
+    }
+
+    /**
+     * Picks random words that match a query, for a drill. The same word can come up more than once if there aren't
+     * enough to go around, but never twice in a row (unless only one word matches).
+     *
+     * @param query     What to look for
+     * @param amount    How many words to pick
+     * @return          The picked words, or an empty list if nothing matches
+     */
+    public ArrayList<String> drill(Query query, int amount) {
+        ArrayList<String> picked = new ArrayList<String>(amount);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Source source = source(query);
+
+        // guess and check from wherever the query starts, which is quick as long as a fair share of those match
+        int last = -1;
+        int tries = 0;
+        int maxTries = 20 * amount + 64;
+        while (picked.size() < amount && tries < maxTries && source.size > 0) {
+            tries++;
+            int word = source.get(random.nextInt(source.size));
+            if (word == last && source.size > 1) continue;
+            if (!query.matches(this, word, source.checked)) continue;
+            picked.add(words.get(word));
+            last = word;
+        }
+        if (picked.size() == amount) return picked;
+
+        // not many match, so find all of them and pick from those
+        picked.clear();
+        int[] matches = matches(query, Integer.MAX_VALUE);
+        last = -1;
+        for (int i = 0; i < amount && matches.length > 0; i++) {
+            int pos = random.nextInt(matches.length);
+            if (matches[pos] == last && matches.length > 1) {
+                pos = (pos + 1 + random.nextInt(matches.length - 1)) % matches.length;
+            }
+            picked.add(words.get(matches[pos]));
+            last = matches[pos];
+        }
+        return picked;
+    }
+
+    /**
+     * @return  The number of words in the list
+     */
+    public int size() {
+        return masks.length;
+    }
+
+    /**
+     * @return  About how many bytes of heap the index takes
+     */
+    public long getBytes() {
+        return 4L * (masks.length + byLength.length + byMask.length + bigramWords.length + maskValues.length
+                     + maskStart.length + lengthStart.length + bigramStart.length) + 2L * lengths.length + 16 * 8;
+    }
+
+    /**
+     * Finds the matches in rank order, stopping after the limit
+     */
+    private int[] matches(Query query, int limit) {
+        Source source = source(query);
+        int slices = source.starts.length;
+        // each slice is in rank order, so only the first limit matches of each can be in the answer
+        int[] found = new int[(int) Math.min(source.size, (long) limit * slices)];
+        int count = 0;
+        for (int s = 0; s < slices; s++) {
+            int taken = 0;
+            for (int i = source.starts[s]; i < source.ends[s] && taken < limit; i++) {
+                int word = source.array == null ? i : source.array[i];
+                if (query.matches(this, word, source.checked)) {
+                    found[count++] = word;
+                    taken++;
+                }
+            }
+        }
+        if (slices > 1) Arrays.sort(found, 0, count);
+        return Arrays.copyOf(found, Math.min(count, limit));
+    }
+
+    /**
+     * Picks where a query starts from: whichever of the top n words, the words of the right lengths, the words with
+     * the right letters, and the words with the rarest pair of letters from the text has the fewest
+     */
+    private Source source(Query query) {
+        Source best = new Source(null, new int[] { 0 }, new int[] { Math.min(masks.length, query.top) }, 0);
+
+        if (query.minLength > 0 || query.maxLength < Integer.MAX_VALUE) {
+            int from = bucket(query.minLength);
+            int to = bucket(Math.min(query.maxLength, MAX_LENGTH));
+            int slices = Math.max(0, to - from + 1);
+            int[] starts = new int[slices];
+            int[] ends = new int[slices];
+            for (int s = 0; s < slices; s++) {
+                starts[s] = lengthStart[from + s];
+                ends[s] = lengthStart[from + s + 1];
+            }
+            // the last bucket has every length from MAX_LENGTH up, so those still need checking
+            Source byLengths = new Source(byLength, starts, ends, query.maxLength < MAX_LENGTH ? Query.LENGTH : 0);
+            if (byLengths.size < best.size) best = byLengths;
+        }
+
+        if (query.allowed != -1) {
+            // every subset of the letters if there aren't many (9 letters is 512), otherwise every group
+            int letters = Integer.bitCount(query.allowed);
+            boolean subsets = (1L << letters) < maskValues.length;
+            int[] starts = new int[subsets ? 1 << letters : maskValues.length];
+            int[] ends = new int[starts.length];
+            int slices = 0;
+            if (subsets) {
+                for (int sub = query.allowed; ; sub = (sub - 1) & query.allowed) {
+                    int g = Arrays.binarySearch(maskValues, sub);
+                    if (g >= 0) {
+                        starts[slices] = maskStart[g];
+                        ends[slices++] = maskStart[g + 1];
+                    }
+                    if (sub == 0) break;
+                }
+            } else {
+                for (int g = 0; g < maskValues.length; g++) {
+                    if ((maskValues[g] & ~query.allowed) == 0) {
+                        starts[slices] = maskStart[g];
+                        ends[slices++] = maskStart[g + 1];
+                    }
+                }
+            }
+            Source byLetters = new Source(byMask, Arrays.copyOf(starts, slices), Arrays.copyOf(ends, slices),
+                                          Query.LETTERS);
+            if (byLetters.size < best.size) best = byLetters;
+        }
+
+        if (query.containing != null) {
+            String text = query.containing;
+            int rarest = -1;
+            for (int j = 1; j < text.length(); j++) {
+                int b = bigram(text.charAt(j - 1), text.charAt(j));
+                if (b == -1) continue;
+                if (rarest == -1 || bigramStart[b + 1] - bigramStart[b] < bigramStart[rarest + 1] - bigramStart[rarest]) {
+                    rarest = b;
+                }
+            }
+            if (rarest != -1 && bigramStart[rarest + 1] - bigramStart[rarest] < best.size) {
+                // a pair of letters is all there is to check, if that's the whole text
+                best = new Source(bigramWords, new int[] { bigramStart[rarest] }, new int[] { bigramStart[rarest + 1] },
+                                  text.length() == 2 ? Query.CONTAINING : 0);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * The word indexes a query starts from: some slices of one of the arrays (or of all the words, for the top n).
+     * Each slice is in rank order.
+     */
+    private static class Source {
+
+        final int[] array; // where the indexes are, or null if they're just the positions themselves
+        final int[] starts;
+        final int[] ends;
+        final int[] before; // how many are in the slices before each one, for finding the i-th
+        final int size;
+        final int checked; // the parts of the query every word from here already matches
+
+        Source(int[] array, int[] starts, int[] ends, int checked) {
+            this.array = array;
+            this.starts = starts;
+            this.ends = ends;
+            this.checked = checked;
+            this.before = new int[starts.length];
+            int total = 0;
+            for (int s = 0; s < starts.length; s++) {
+                before[s] = total;
+                total += ends[s] - starts[s];
+            }
+            this.size = total;
+        }
+
+        /**
+         * Gets the i-th word index, from 0 up to size
+         */
+        int get(int i) {
+            int s = 0;
+            if (starts.length > 1) {
+                // the last slice that starts at or before i (empty slices start at the same place as the next one)
+                int low = 0;
+                int high = before.length - 1;
+                while (low < high) {
+                    int mid = (low + high + 1) >>> 1;
+                    if (before[mid] <= i) low = mid;
+                    else high = mid - 1;
+                }
+                s = low;
+            }
+            int pos = starts[s] + i - before[s];
+            return array == null ? pos : array[pos];
+        }
+
+    }
+
+    private static int bucket(int length) {
+        return Math.min(length, MAX_LENGTH);
+    }
+
+    private static int bigram(char a, char b) {
+        a = Character.toLowerCase(a);
+        b = Character.toLowerCase(b);
+        if (a < 'a' || a > 'z' || b < 'a' || b > 'z') return -1;
+        return (a - 'a') * LETTERS + (b - 'a');
+    }
+
+    /**
+     * What words to look for. Everything is optional, and a word has to match all of it.
+     */
+    public static class Query {
+
+        static final int LENGTH = 1;
+        static final int LETTERS = 2;
+        static final int CONTAINING = 4;
+
+        int minLength = 0;
+        int maxLength = Integer.MAX_VALUE;
+        int allowed = -1; // the letter mask a word's letters have to be in, -1 for any
+        String containing = null;
+        int containingMask = 0; // the letters in it
+        int top = Integer.MAX_VALUE;
+
+        /**
+         * Only words with a length in a range
+         *
+         * @param min   The shortest, in chars
+         * @param max   The longest
+         * @return      This query
+         */
+        public Query length(int min, int max) {
+            minLength = min;
+            maxLength = max;
+            return this;
+        }
+
+        /**
+         * Only words that use nothing but some letters (like HOME_ROW)
+         *
+         * @param letters   The letters, a-z
+         * @return          This query
+         */
+        public Query letters(String letters) {
+            allowed = WordlistCompiler.letterMask(letters) & ~WordlistCompiler.OTHER_CHARS;
+            return this;
+        }
+
+        /**
+         * Only words with some text in them (any case)
+         *
+         * @param text      The text, like "th"
+         * @return          This query
+         */
+        public Query containing(String text) {
+            containing = text.toLowerCase(Locale.ROOT);
+            containingMask = WordlistCompiler.letterMask(containing);
+            return this;
+        }
+
+        /**
+         * Only the most common words
+         *
+         * @param n     How many of the most common words to look at
+         * @return      This query
+         */
+        public Query top(int n) {
+            top = n;
+            return this;
+        }
+
+        /**
+         * Checks a word against everything but the parts that are already known to match
+         */
+        boolean matches(WordIndex index, int word, int checked) {
+            if (word >= top) return false;
+            if ((checked & LENGTH) == 0 && (index.lengths[word] < minLength || index.lengths[word] > maxLength)) {
+                return false;
+            }
+            if ((checked & LETTERS) == 0 && (index.masks[word] & ~allowed) != 0) return false;
+            if (containing != null && (checked & CONTAINING) == 0) {
+                // the letters have to be there for the text to be, which is quicker to check than decoding the word
+                if ((index.masks[word] & containingMask) != containingMask) return false;
+                return index.words.get(word).toLowerCase(Locale.ROOT).contains(containing);
+            }
+            return true;
+        }
+
+    }
+
+}
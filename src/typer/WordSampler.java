@@ -0,0 +1,151 @@
+package typer;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Picks random words from a wordlist.
+ *
+ * Picking without replacement uses a partial Fisher-Yates shuffle over an array of indexes that gets reused between
+ * calls. Only the first <amount> spots are shuffled, and the swaps are undone afterwards, so after the array is set
+ * up once each pick costs O(amount) no matter how big the wordlist is. Wordlists that can only be read in order
+ * (or are too big to index) can use reservoir sampling instead.
+ *
+ * A sampler isn't thread safe, each thread should have its own. Using the same seed gives the same words, which is
+ * handy for tests and replays.
+ */
+public class WordSampler {
+
+    private final SplittableRandom random;
+    private int[] indexes = new int[0]; // always 0, 1, 2, ... between calls
+    private int[] swaps = new int[0]; // where each spot was swapped with, so it can be undone
+
+    /**
+     * Creates a sampler with a random seed
+     */
+    public WordSampler() {
+        this.random = new SplittableRandom();
+    }
+
+    /**
+     * Creates a sampler that always picks the same words for the same calls
+     *
+     * @param seed      The seed for the random number generator
+     */
+    public WordSampler(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Picks random words without duplicates. If more words are asked for than there are in the list, it goes
+     * through the whole list in a random order, then starts another random pass, so no word repeats until every
+     * word has been used.
+     *
+     * @param words     The words to pick from, should be quick to index (like an ArrayList or MappedWordlist)
+     * @param amount    How many words to pick
+     * @return          The picked words, in a random order
+     */
+    public ArrayList<String> sample(List<String> words, int amount) {
+        ArrayList<String> picked = new ArrayList<String>(amount);
+        int n = words.size();
+        if (n == 0) return picked;
+
+        if (indexes.length != n) {
+            indexes = new int[n];
+            for (int i = 0; i < n; i++) indexes[i] = i;
+        }
+
+        while (picked.size() < amount) {
+            int k = Math.min(amount - picked.size(), n);
+            if (swaps.length < k) swaps = new int[k];
+
+            for (int i = 0; i < k; i++) {
+                int j = i + random.nextInt(n - i);
+                swap(i, j);
+                swaps[i] = j;
+                picked.add(words.get(indexes[i]));
+            }
+
+            // put the index array back how it was, in reverse order
+            for (int i = k - 1; i >= 0; i--) {
+                swap(i, swaps[i]);
+            }
+        }
+        return picked;
+    }
+
+    /**
+     * Picks random words where the same word can come up more than once, good for very long sessions
+     *
+     * @param words     The words to pick from
+     * @param amount    How many words to pick
+     * @return          The picked words
+     */
+    public ArrayList<String> sampleWithReplacement(List<String> words, int amount) {
+        ArrayList<String> picked = new ArrayList<String>(amount);
+        int n = words.size();
+        if (n == 0) return picked;
+        for (int i = 0; i < amount; i++) {
+            picked.add(words.get(random.nextInt(n)));
+        }
+        return picked;
+    }
+
+    /**
+     * Picks random words without duplicates from words that can only be read in order, using reservoir sampling
+     * (Algorithm L, which skips ahead instead of rolling for every word). Every word is only looked at once, and
+     * only <amount> words are kept in memory.
+     *
+     * @param words     The words to pick from
+     * @param amount    How many words to pick, fewer are returned if there aren't enough
+     * @return          The picked words, in a random order
+     */
+    public ArrayList<String> reservoir(Iterator<String> words, int amount) {
+        ArrayList<String> picked = new ArrayList<String>(amount);
+        if (amount <= 0) return picked;
+
+        while (picked.size() < amount && words.hasNext()) {
+            picked.add(words.next());
+        }
+
+        double w = Math.exp(Math.log(nextOpenDouble()) / amount);
+        while (words.hasNext()) {
+            // how many words to skip before the next one that goes in the reservoir
+            long skip = (long) Math.floor(Math.log(nextOpenDouble()) / Math.log(1 - w));
+            while (skip > 0 && words.hasNext()) {
+                words.next();
+                skip--;
+            }
+            if (!words.hasNext()) break;
+            picked.set(random.nextInt(amount), words.next());
+            w *= Math.exp(Math.log(nextOpenDouble()) / amount);
+        }
+
+        // the reservoir is in the order words were read, so mix it up
+        for (int i = picked.size() - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            picked.set(i, picked.set(j, picked.get(i)));
+        }
+        return picked;
+    }
+
+    /**
+     * A random double that's never exactly 0, so it's safe to take the log of
+     */
+    private double nextOpenDouble() {
+        double d;
+        do {
+            d = random.nextDouble();
+        } while (d == 0);
+        return d;
+    }
+
+    private void swap(int a, int b) {
+        int tmp = indexes[a];
+        indexes[a] = indexes[b];
+        indexes[b] = tmp;
+    }
+
+}
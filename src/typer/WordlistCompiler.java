@@ -0,0 +1,126 @@
+package typer;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Compiles a text wordlist (one word per line) into the binary .twl format that MappedWordlist reads.
+ *
+ * The file is laid out so that it can be memory mapped and used as-is:
+ * <pre>
+ *   int     magic ("TWL1")
+ *   int     number of words (n)
+ *   int     length of the UTF-8 blob in bytes
+ *   int     reserved, 0
+ *   int[]   n + 1 byte offsets into the blob, word i is from offsets[i] to offsets[i + 1]
+ *   int[]   n letter masks, bit 0 is 'a' ... bit 25 is 'z', bit 26 means the word has anything else in it
+ *   short[] n word lengths, in chars
+ *   byte[]  the blob, every word's UTF-8 bytes back to back
+ * </pre>
+ * Everything is big endian (Java's default).
+ *
+ * Run it with: java typer.WordlistCompiler words/1000en.txt words/1000en.twl
+ */
+public class WordlistCompiler {
+
+    public static final int MAGIC = 0x54574C31; // "TWL1"
+    public static final int HEADER_SIZE = 16;
+    public static final int OTHER_CHARS = 1 << 26; // mask bit for anything that isn't a-z
+
+    /**
+     * Compiles a text wordlist into a .twl file. Blank lines are skipped.
+     *
+     * @param input     The path of the text wordlist
+     * @param output    The path to write the .twl file to
+     * @return          The number of words written
+     * @throws IOException
+     */
+    public static int compile(String input, String output) throws IOException {
+        int count = 0;
+        int[] offsets = new int[1024];
+        int[] masks = new int[1024];
+        short[] lengths = new short[1024];
+        byte[] blob = new byte[16 * 1024];
+        int blobLength = 0;
+
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(input), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String word = line.trim();
+                if (word.isEmpty()) continue;
+                if (word.length() > Short.MAX_VALUE) {
+                    throw new IOException(input + ": word " + (count + 1) + " is too long");
+                }
+
+                if (count + 2 > offsets.length) {
+                    offsets = Arrays.copyOf(offsets, offsets.length * 2);
+                    masks = Arrays.copyOf(masks, masks.length * 2);
+                    lengths = Arrays.copyOf(lengths, lengths.length * 2);
+                }
+                byte[] bytes = word.getBytes(StandardCharsets.UTF_8);
+                if (blobLength + bytes.length > blob.length) {
+                    blob = Arrays.copyOf(blob, Math.max(blob.length * 2, blobLength + bytes.length));
+                }
+
+                offsets[count] = blobLength;
+                masks[count] = letterMask(word);
+                lengths[count] = (short) word.length();
+                System.arraycopy(bytes, 0, blob, blobLength, bytes.length);
+                blobLength += bytes.length;
+                count++;
+            }
+        }
+        offsets[count] = blobLength;
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(output)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(count);
+            out.writeInt(blobLength);
+            out.writeInt(0);
+            for (int i = 0; i <= count; i++) out.writeInt(offsets[i]);
+            for (int i = 0; i < count; i++) out.writeInt(masks[i]);
+            for (int i = 0; i < count; i++) out.writeShort(lengths[i]);
+            out.write(blob, 0, blobLength);
+        }
+        return count;
+    }
+
+    /**
+     * Works out which letters a word uses
+     *
+     * @param word  The word
+     * @return      A bit for each letter a-z (case doesn't matter), plus OTHER_CHARS if it has anything else
+     */
+    public static int letterMask(CharSequence word) {
+        int mask = 0;
+        for (int i = 0; i < word.length(); i++) {
+            char ch = Character.toLowerCase(word.charAt(i));
+            if (ch >= 'a' && ch <= 'z') {
+                mask |= 1 << (ch - 'a');
+            } else {
+                mask |= OTHER_CHARS;
+            }
+        }
+        return mask;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.out.println("Usage: java typer.WordlistCompiler <input.txt> <output.twl>");
+            return;
+        }
+        long start = System.nanoTime();
+        int count = compile(args[0], args[1]);
+        System.out.println("Compiled " + count + " words into " + args[1] + " in " +
+                           (System.nanoTime() - start) / 1_000_000 + "ms");
+    }
+
+}